@@ -60,6 +60,7 @@ import org.springframework.util.Assert;
  * @author Stephane Nicoll
  * @author Gary Russell
  * @author Artem Bilan
+ * @author agent
  *
  * @see AbstractMessageListenerContainer
  */
@@ -110,6 +111,8 @@ public abstract class AbstractKafkaListenerContainerFactory<C extends AbstractMe
 
 	private String correlationHeaderName;
 
+	private Boolean compiledInvocation;
+
 	private Boolean changeConsumerThreadName;
 
 	private Function<MessageListenerContainer, String> threadNameSupplier;
@@ -325,6 +328,17 @@ public abstract class AbstractKafkaListenerContainerFactory<C extends AbstractMe
 		this.correlationHeaderName = correlationHeaderName;
 	}
 
+	/**
+	 * Set to true to invoke listener methods through method handles, instead of
+	 * resolving each argument for each record.
+	 * @param compiledInvocation true to compile.
+	 * @since 3.1
+	 * @see AbstractKafkaListenerEndpoint#setCompiledInvocation(boolean)
+	 */
+	public void setCompiledInvocation(Boolean compiledInvocation) {
+		this.compiledInvocation = compiledInvocation;
+	}
+
 	/**
 	 * Set to true to instruct the container to change the consumer thread name during
 	 * initialization.
@@ -380,7 +394,8 @@ public abstract class AbstractKafkaListenerContainerFactory<C extends AbstractMe
 				.acceptIfNotNull(this.replyTemplate, aklEndpoint::setReplyTemplate)
 				.acceptIfNotNull(this.replyHeadersConfigurer, aklEndpoint::setReplyHeadersConfigurer)
 				.acceptIfNotNull(this.batchToRecordAdapter, aklEndpoint::setBatchToRecordAdapter)
-				.acceptIfNotNull(this.correlationHeaderName, aklEndpoint::setCorrelationHeaderName);
+				.acceptIfNotNull(this.correlationHeaderName, aklEndpoint::setCorrelationHeaderName)
+				.acceptIfNotNull(this.compiledInvocation, aklEndpoint::setCompiledInvocation);
 		if (aklEndpoint.getBatchListener() == null) {
 			JavaUtils.INSTANCE
 					.acceptIfNotNull(this.batchListener, aklEndpoint::setBatchListener);
@@ -61,6 +61,7 @@ import org.springframework.util.ObjectUtils;
  * @author Stephane Nicoll
  * @author Gary Russell
  * @author Artem Bilan
+ * @author agent
  *
  * @see MethodKafkaListenerEndpoint
  */
@@ -115,6 +116,8 @@ public abstract class AbstractKafkaListenerEndpoint<K, V>
 
 	private String correlationHeaderName;
 
+	private boolean compiledInvocation;
+
 	private ContainerPostProcessor<?, ?, ?> containerPostProcessor;
 
 	@Nullable
@@ -470,6 +473,28 @@ public abstract class AbstractKafkaListenerEndpoint<K, V>
 		this.correlationHeaderName = correlationHeaderName;
 	}
 
+	/**
+	 * Return true if the listener method should be invoked through a method handle.
+	 * @return true to compile.
+	 * @since 3.1
+	 */
+	protected boolean isCompiledInvocation() {
+		return this.compiledInvocation;
+	}
+
+	/**
+	 * Set to true to invoke the listener method through a method handle, with argument
+	 * extractors prepared when the listener is created, instead of resolving each
+	 * argument for each record. Only the arguments that can be obtained without
+	 * conversion or argument resolvers are supported (see the reference manual); other
+	 * methods, and individual invocations that need conversion, are invoked as usual.
+	 * @param compiledInvocation true to compile.
+	 * @since 3.1
+	 */
+	public void setCompiledInvocation(boolean compiledInvocation) {
+		this.compiledInvocation = compiledInvocation;
+	}
+
 	@Override
 	public ContainerPostProcessor<?, ?, ?> getContainerPostProcessor() {
 		return this.containerPostProcessor;
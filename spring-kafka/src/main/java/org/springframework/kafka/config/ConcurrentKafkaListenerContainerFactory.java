@@ -16,11 +16,14 @@
 
 package org.springframework.kafka.config;
 
+import java.time.Duration;
 import java.util.Collection;
 
+import org.springframework.kafka.listener.ConcurrencyScalingPolicy;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.lang.Nullable;
 
 /**
  * A {@link KafkaListenerContainerFactory} implementation to build a
@@ -42,12 +45,24 @@ import org.springframework.kafka.support.TopicPartitionOffset;
  * @author Gary Russell
  * @author Artem Bilan
  * @author Murali Reddy
+ * @author agent
  */
 public class ConcurrentKafkaListenerContainerFactory<K, V>
 		extends AbstractKafkaListenerContainerFactory<ConcurrentMessageListenerContainer<K, V>, K, V> {
 
 	private Integer concurrency;
 
+	@Nullable
+	private ConcurrencyScalingPolicy concurrencyScalingPolicy;
+
+	private Integer minConcurrency;
+
+	private Integer maxConcurrency;
+
+	private Duration scalingInterval;
+
+	private Duration scalingCooldown;
+
 	/**
 	 * Specify the container concurrency.
 	 * @param concurrency the number of consumers to create.
@@ -57,6 +72,56 @@ public class ConcurrentKafkaListenerContainerFactory<K, V>
 		this.concurrency = concurrency;
 	}
 
+	/**
+	 * Set a policy to adjust the number of consumers while the containers are running.
+	 * @param concurrencyScalingPolicy the policy.
+	 * @since 3.1
+	 * @see ConcurrentMessageListenerContainer#setConcurrencyScalingPolicy(ConcurrencyScalingPolicy)
+	 */
+	public void setConcurrencyScalingPolicy(@Nullable ConcurrencyScalingPolicy concurrencyScalingPolicy) {
+		this.concurrencyScalingPolicy = concurrencyScalingPolicy;
+	}
+
+	/**
+	 * Set the minimum number of consumers when scaling.
+	 * @param minConcurrency the minimum.
+	 * @since 3.1
+	 * @see ConcurrentMessageListenerContainer#setMinConcurrency(int)
+	 */
+	public void setMinConcurrency(Integer minConcurrency) {
+		this.minConcurrency = minConcurrency;
+	}
+
+	/**
+	 * Set the maximum number of consumers when scaling.
+	 * @param maxConcurrency the maximum.
+	 * @since 3.1
+	 * @see ConcurrentMessageListenerContainer#setMaxConcurrency(int)
+	 */
+	public void setMaxConcurrency(Integer maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	/**
+	 * Set the interval between invocations of the scaling policy.
+	 * @param scalingInterval the interval.
+	 * @since 3.1
+	 * @see ConcurrentMessageListenerContainer#setScalingInterval(Duration)
+	 */
+	public void setScalingInterval(Duration scalingInterval) {
+		this.scalingInterval = scalingInterval;
+	}
+
+	/**
+	 * Set the minimum time between adding or removing consumers.
+	 * @param scalingCooldown the cooldown.
+	 * @since 3.1
+	 * @see ConcurrentMessageListenerContainer#setScalingCooldown(Duration)
+	 */
+	public void setScalingCooldown(Duration scalingCooldown) {
+		this.scalingCooldown = scalingCooldown;
+	}
+
 	@Override
 	protected ConcurrentMessageListenerContainer<K, V> createContainerInstance(KafkaListenerEndpoint endpoint) {
 		TopicPartitionOffset[] topicPartitions = endpoint.getTopicPartitionsToAssign();
@@ -89,6 +154,21 @@ public class ConcurrentKafkaListenerContainerFactory<K, V>
 		else if (this.concurrency != null) {
 			instance.setConcurrency(this.concurrency);
 		}
+		if (this.concurrencyScalingPolicy != null) {
+			instance.setConcurrencyScalingPolicy(this.concurrencyScalingPolicy);
+		}
+		if (this.minConcurrency != null) {
+			instance.setMinConcurrency(this.minConcurrency);
+		}
+		if (this.maxConcurrency != null) {
+			instance.setMaxConcurrency(this.maxConcurrency);
+		}
+		if (this.scalingInterval != null) {
+			instance.setScalingInterval(this.scalingInterval);
+		}
+		if (this.scalingCooldown != null) {
+			instance.setScalingCooldown(this.scalingCooldown);
+		}
 	}
 
 }
@@ -20,15 +20,18 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiPredicate;
 import java.util.function.Supplier;
@@ -60,6 +63,8 @@ import org.springframework.context.ApplicationListener;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.context.event.ContextStoppedEvent;
 import org.springframework.core.log.LogAccessor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.kafka.KafkaException;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -99,7 +104,9 @@ import org.springframework.util.StringUtils;
  * Setting {@link #setTransactionIdPrefix(String)} enables transactions; in which case, a
  * cache of producers is maintained; closing a producer returns it to the cache. The
  * producers are closed and the cache is cleared when the factory is destroyed, the
- * application context stopped, or the {@link #reset()} method is called.
+ * application context stopped, or the {@link #reset()} method is called. Set
+ * {@link #setTransactionalPoolMinSize(int)} to create producers (and initialize their
+ * transactions) in the background, so they are ready in the cache when needed.
  *
  * @param <K> the key type.
  * @param <V> the value type.
@@ -110,6 +117,7 @@ import org.springframework.util.StringUtils;
  * @author Artem Bilan
  * @author Chris Gilbert
  * @author Thomas Strauß
+ * @author agent
  */
 public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 		implements ProducerFactory<K, V>, ApplicationContextAware,
@@ -137,6 +145,10 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 
 	private final AtomicBoolean running = new AtomicBoolean();
 
+	private final Set<String> replenishing = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong transactionalCacheMisses = new AtomicLong();
+
 	private Supplier<Serializer<K>> keySerializerSupplier;
 
 	private Supplier<Serializer<V>> valueSerializerSupplier;
@@ -163,6 +175,18 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 
 	private volatile CloseSafeProducer<K, V> producer;
 
+	private int producerPoolSize;
+
+	private PoolRouting poolRouting = PoolRouting.PARTITION;
+
+	private volatile PooledProducer<K, V> pool;
+
+	private int transactionalPoolMinSize;
+
+	private int transactionalPoolMaxSize;
+
+	private TaskExecutor transactionalPoolExecutor;
+
 	/**
 	 * Construct a factory with the provided configuration.
 	 * @param configs the configuration.
@@ -438,6 +462,139 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 		return this.producerPerThread;
 	}
 
+	/**
+	 * Return the number of producers shared by all clients.
+	 * @return the pool size.
+	 * @since 3.1
+	 * @see #setProducerPoolSize(int)
+	 */
+	public int getProducerPoolSize() {
+		return this.producerPoolSize;
+	}
+
+	/**
+	 * Set to a number greater than 1 to share a pool of that many producers between all
+	 * clients, instead of a single producer, for non-transactional sends. Each record is
+	 * sent by one of the producers, selected according to the
+	 * {@link #setProducerPoolRouting(PoolRouting) routing}, so record appends and network
+	 * I/O are spread across several sender threads; with the default routing, the order
+	 * of the records for each partition (or key) is preserved. Each producer is
+	 * announced to the {@link Listener}s, so it has its own metrics. Ignored when
+	 * {@link #setProducerPerThread(boolean) producerPerThread} is true. Default 0 (a
+	 * single producer).
+	 * @param producerPoolSize the pool size.
+	 * @since 3.1
+	 */
+	public void setProducerPoolSize(int producerPoolSize) {
+		Assert.isTrue(producerPoolSize >= 0, "'producerPoolSize' cannot be negative");
+		this.producerPoolSize = producerPoolSize;
+	}
+
+	/**
+	 * Return how records are routed to the producers in the pool.
+	 * @return the routing.
+	 * @since 3.1
+	 * @see #setProducerPoolRouting(PoolRouting)
+	 */
+	public PoolRouting getProducerPoolRouting() {
+		return this.poolRouting;
+	}
+
+	/**
+	 * Set how records are routed to the producers in the pool, when the
+	 * {@link #setProducerPoolSize(int) producerPoolSize} is greater than 1. Default
+	 * {@link PoolRouting#PARTITION}.
+	 * @param poolRouting the routing.
+	 * @since 3.1
+	 */
+	public void setProducerPoolRouting(PoolRouting poolRouting) {
+		Assert.notNull(poolRouting, "'poolRouting' cannot be null");
+		this.poolRouting = poolRouting;
+	}
+
+	/**
+	 * Return the minimum number of idle transactional producers to keep in the cache.
+	 * @return the minimum.
+	 * @since 3.1
+	 * @see #setTransactionalPoolMinSize(int)
+	 */
+	public int getTransactionalPoolMinSize() {
+		return this.transactionalPoolMinSize;
+	}
+
+	/**
+	 * Set the minimum number of idle transactional producers to keep in the cache for each
+	 * transaction id prefix. When greater than zero, producers are created, and their
+	 * transactions initialized, on a background thread when the factory is started, after
+	 * {@link #reset()}, when a cached producer is fenced or expires (see
+	 * {@link #setMaxAge(Duration)}), and when the number of idle producers falls below this
+	 * value. Default 0 (producers are only created when needed).
+	 * @param transactionalPoolMinSize the minimum.
+	 * @since 3.1
+	 * @see #setTransactionalPoolExecutor(TaskExecutor)
+	 */
+	public void setTransactionalPoolMinSize(int transactionalPoolMinSize) {
+		Assert.isTrue(transactionalPoolMinSize >= 0, "'transactionalPoolMinSize' cannot be negative");
+		this.transactionalPoolMinSize = transactionalPoolMinSize;
+	}
+
+	/**
+	 * Return the maximum number of idle transactional producers to keep in the cache.
+	 * @return the maximum.
+	 * @since 3.1
+	 * @see #setTransactionalPoolMaxSize(int)
+	 */
+	public int getTransactionalPoolMaxSize() {
+		return this.transactionalPoolMaxSize;
+	}
+
+	/**
+	 * Set the maximum number of idle transactional producers to keep in the cache for each
+	 * transaction id prefix; producers that are closed when the cache is full are
+	 * physically closed. Default 0 (no limit).
+	 * @param transactionalPoolMaxSize the maximum.
+	 * @since 3.1
+	 */
+	public void setTransactionalPoolMaxSize(int transactionalPoolMaxSize) {
+		Assert.isTrue(transactionalPoolMaxSize >= 0, "'transactionalPoolMaxSize' cannot be negative");
+		this.transactionalPoolMaxSize = transactionalPoolMaxSize;
+	}
+
+	/**
+	 * Set the executor used to create transactional producers in the background. Default
+	 * a {@link SimpleAsyncTaskExecutor}.
+	 * @param transactionalPoolExecutor the executor.
+	 * @since 3.1
+	 * @see #setTransactionalPoolMinSize(int)
+	 */
+	public void setTransactionalPoolExecutor(TaskExecutor transactionalPoolExecutor) {
+		Assert.notNull(transactionalPoolExecutor, "'transactionalPoolExecutor' cannot be null");
+		this.transactionalPoolExecutor = transactionalPoolExecutor;
+	}
+
+	/**
+	 * Return the number of idle transactional producers in the cache, for all transaction
+	 * id prefixes.
+	 * @return the number of idle producers.
+	 * @since 3.1
+	 */
+	public int getIdleTransactionalProducerCount() {
+		return this.cache.values().stream().mapToInt(BlockingQueue::size).sum();
+	}
+
+	/**
+	 * Return the number of times a transactional producer was requested when there was
+	 * no idle producer in the cache, so a new producer had to be created (and its
+	 * transactions initialized) on the calling thread. A steadily increasing value
+	 * indicates that the {@link #setTransactionalPoolMinSize(int) transactionalPoolMinSize}
+	 * is too small.
+	 * @return the number of cache misses.
+	 * @since 3.1
+	 */
+	public long getTransactionalCacheMisses() {
+		return this.transactionalCacheMisses.get();
+	}
+
 	@Override
 	@Nullable
 	public Serializer<K> getKeySerializer() {
@@ -501,6 +658,9 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 	@Override
 	public void start() {
 		this.running.set(true);
+		if (this.transactionIdPrefix != null) {
+			replenish(this.transactionIdPrefix);
+		}
 	}
 
 	@Override
@@ -541,6 +701,13 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 						isConfigureSerializers());
 		newFactory.setPhysicalCloseTimeout((int) getPhysicalCloseTimeout().getSeconds());
 		newFactory.setProducerPerThread(isProducerPerThread());
+		newFactory.setProducerPoolSize(getProducerPoolSize());
+		newFactory.setProducerPoolRouting(getProducerPoolRouting());
+		newFactory.setTransactionalPoolMinSize(getTransactionalPoolMinSize());
+		newFactory.setTransactionalPoolMaxSize(getTransactionalPoolMaxSize());
+		if (this.transactionalPoolExecutor != null) {
+			newFactory.setTransactionalPoolExecutor(this.transactionalPoolExecutor);
+		}
 		for (ProducerPostProcessor<K, V> templatePostProcessor : getPostProcessors()) {
 			newFactory.addPostProcessor(templatePostProcessor);
 		}
@@ -680,10 +847,13 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 	@Override
 	public void destroy() {
 		CloseSafeProducer<K, V> producerToClose;
+		PooledProducer<K, V> poolToClose;
 		this.globalLock.lock();
 		try {
 			producerToClose = this.producer;
 			this.producer = null;
+			poolToClose = this.pool;
+			this.pool = null;
 		}
 		finally {
 			this.globalLock.unlock();
@@ -696,6 +866,17 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 				LOGGER.error(e, "Exception while closing producer");
 			}
 		}
+		if (poolToClose != null) {
+			for (CloseSafeProducer<K, V> member : poolToClose.getMembers()) {
+				try {
+					member.closeDelegate(this.physicalCloseTimeout, this.listeners);
+				}
+				catch (Exception e) {
+					LOGGER.error(e, "Exception while closing producer");
+				}
+			}
+		}
+		Set<String> prefixes = new HashSet<>(this.cache.keySet());
 		this.cache.values().forEach(queue -> {
 			CloseSafeProducer<K, V> next = queue.poll();
 			while (next != null) {
@@ -719,6 +900,7 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 		});
 		this.threadBoundProducers.clear();
 		this.epoch.incrementAndGet();
+		prefixes.forEach(this::replenish);
 	}
 
 	@Override
@@ -766,6 +948,13 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 		if (this.producerPerThread) {
 			return getOrCreateThreadBoundProducer();
 		}
+		if (this.producerPoolSize > 1) {
+			return getOrCreatePool();
+		}
+		CloseSafeProducer<K, V> shared = this.producer;
+		if (shared != null && !shared.closed && !isExpired(shared)) {
+			return shared; // lock-free fast path; replacing the producer requires the lock
+		}
 		this.globalLock.lock();
 		try {
 			if (this.producer != null && this.producer.closed) {
@@ -787,6 +976,55 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 		}
 	}
 
+	private Producer<K, V> getOrCreatePool() {
+		PooledProducer<K, V> current = this.pool;
+		if (current != null && isUsable(current)) {
+			return current;
+		}
+		this.globalLock.lock();
+		try {
+			current = this.pool;
+			if (current != null && isUsable(current)) {
+				return current;
+			}
+			@SuppressWarnings("unchecked")
+			CloseSafeProducer<K, V>[] members = new CloseSafeProducer[this.producerPoolSize];
+			for (int i = 0; i < members.length; i++) {
+				CloseSafeProducer<K, V> member = current == null || i >= current.getMembers().length
+						? null
+						: current.getMembers()[i];
+				if (member != null && member.closed) {
+					member.closeDelegate(this.physicalCloseTimeout, this.listeners);
+					member = null;
+				}
+				if (member != null && expire(member)) {
+					member = null;
+				}
+				if (member == null) {
+					CloseSafeProducer<K, V> newMember = new CloseSafeProducer<>(createKafkaProducer(),
+							this::removeProducer, this.physicalCloseTimeout, this.beanName, this.epoch.get());
+					this.listeners.forEach(listener -> listener.producerAdded(newMember.clientId, newMember));
+					member = newMember;
+				}
+				members[i] = member;
+			}
+			this.pool = new PooledProducer<>(members, this.poolRouting);
+			return this.pool;
+		}
+		finally {
+			this.globalLock.unlock();
+		}
+	}
+
+	private boolean isUsable(PooledProducer<K, V> pooled) {
+		for (CloseSafeProducer<K, V> member : pooled.getMembers()) {
+			if (member.closed || isExpired(member)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private Producer<K, V> getOrCreateThreadBoundProducer() {
 		CloseSafeProducer<K, V> tlProducer = this.threadBoundProducers.get(Thread.currentThread());
 		if (tlProducer != null && (tlProducer.closed || this.epoch.get() != tlProducer.epoch || expire(tlProducer))) {
@@ -845,7 +1083,11 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 				break;
 			}
 		}
+		if (queue.size() < this.transactionalPoolMinSize) {
+			replenish(txIdPrefix);
+		}
 		if (cachedProducer == null) {
+			this.transactionalCacheMisses.incrementAndGet();
 			return doCreateTxProducer(txIdPrefix, "" + this.transactionIdSuffix.getAndIncrement(), this::cacheReturner);
 		}
 		else {
@@ -853,8 +1095,56 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 		}
 	}
 
+	/**
+	 * Create idle transactional producers on the
+	 * {@link #setTransactionalPoolExecutor(TaskExecutor) executor}, until the cache has
+	 * the {@link #setTransactionalPoolMinSize(int) minimum} number.
+	 * @param txIdPrefix the transaction id prefix.
+	 */
+	private void replenish(String txIdPrefix) {
+		if (this.transactionalPoolMinSize > 0 && this.running.get() && this.replenishing.add(txIdPrefix)) {
+			try {
+				obtainTransactionalPoolExecutor().execute(() -> doReplenish(txIdPrefix));
+			}
+			catch (RuntimeException ex) {
+				this.replenishing.remove(txIdPrefix);
+				LOGGER.error(ex, () -> "Failed to schedule creation of transactional producers for " + txIdPrefix);
+			}
+		}
+	}
+
+	private void doReplenish(String txIdPrefix) {
+		int min = this.transactionalPoolMaxSize > 0
+				? Math.min(this.transactionalPoolMinSize, this.transactionalPoolMaxSize)
+				: this.transactionalPoolMinSize;
+		try {
+			while (this.running.get() && getCache(txIdPrefix).size() < min) {
+				CloseSafeProducer<K, V> newProducer = doCreateTxProducer(txIdPrefix,
+						"" + this.transactionIdSuffix.getAndIncrement(), this::cacheReturner);
+				cacheReturner(newProducer, this.physicalCloseTimeout); // closed if reset while creating
+			}
+		}
+		catch (Exception ex) {
+			LOGGER.error(ex, () -> "Failed to create transactional producers for " + txIdPrefix);
+		}
+		finally {
+			this.replenishing.remove(txIdPrefix);
+		}
+	}
+
+	private TaskExecutor obtainTransactionalPoolExecutor() {
+		if (this.transactionalPoolExecutor == null) {
+			this.transactionalPoolExecutor = new SimpleAsyncTaskExecutor(this.beanName + "-tx-pool-");
+		}
+		return this.transactionalPoolExecutor;
+	}
+
+	private boolean isExpired(CloseSafeProducer<K, V> producer) {
+		return this.maxAge > 0 && System.currentTimeMillis() - producer.created > this.maxAge;
+	}
+
 	private boolean expire(CloseSafeProducer<K, V> producer) {
-		boolean expired = this.maxAge > 0 && System.currentTimeMillis() - producer.created > this.maxAge;
+		boolean expired = isExpired(producer);
 		if (expired) {
 			producer.closeDelegate(this.physicalCloseTimeout, this.listeners);
 		}
@@ -864,6 +1154,7 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 	boolean cacheReturner(CloseSafeProducer<K, V> producerToRemove, Duration timeout) {
 		if (producerToRemove.closed) {
 			producerToRemove.closeDelegate(timeout, this.listeners);
+			replenish(producerToRemove.txIdPrefix);
 			return true;
 		}
 		else {
@@ -872,7 +1163,7 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 				BlockingQueue<CloseSafeProducer<K, V>> txIdCache = getCache(producerToRemove.txIdPrefix);
 				if (producerToRemove.epoch != this.epoch.get()
 						|| (txIdCache != null && !txIdCache.contains(producerToRemove)
-						&& !txIdCache.offer(producerToRemove))) {
+						&& (isCacheFull(txIdCache) || !txIdCache.offer(producerToRemove)))) {
 					producerToRemove.closeDelegate(timeout, this.listeners);
 					return true;
 				}
@@ -884,6 +1175,10 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 		}
 	}
 
+	private boolean isCacheFull(BlockingQueue<CloseSafeProducer<K, V>> txIdCache) {
+		return this.transactionalPoolMaxSize > 0 && txIdCache.size() >= this.transactionalPoolMaxSize;
+	}
+
 	private CloseSafeProducer<K, V> doCreateTxProducer(String prefix, String suffix,
 			BiPredicate<CloseSafeProducer<K, V>, Duration> remover) {
 		Producer<K, V> newProducer = createRawProducer(getTxProducerConfigs(prefix + suffix));
@@ -974,6 +1269,28 @@ public class DefaultKafkaProducerFactory<K, V> extends KafkaResourceFactory
 		return newProducerConfigs;
 	}
 
+	/**
+	 * How records are routed to the producers in a pool.
+	 * @since 3.1
+	 * @see DefaultKafkaProducerFactory#setProducerPoolSize(int)
+	 */
+	public enum PoolRouting {
+
+		/**
+		 * Route by the record's topic and partition, if specified, otherwise by its key
+		 * (records without a key are routed by the sending thread); preserves the order
+		 * of the records for each partition and key.
+		 */
+		PARTITION,
+
+		/**
+		 * Route by the sending thread; preserves the order of the records sent by each
+		 * thread.
+		 */
+		THREAD
+
+	}
+
 	/**
 	 * A wrapper class for the delegate.
 	 *
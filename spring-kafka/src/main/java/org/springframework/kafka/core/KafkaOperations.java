@@ -33,6 +33,7 @@ import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 
+import org.springframework.kafka.support.BatchSendResult;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.kafka.support.TopicPartitionOffset;
 import org.springframework.lang.Nullable;
@@ -55,6 +56,7 @@ import org.springframework.messaging.Message;
  * @author Marius Bogoevici
  * @author Gary Russell
  * @author Biju Kunjummen
+ * @author agent
  */
 public interface KafkaOperations<K, V> {
 
@@ -145,6 +147,18 @@ public interface KafkaOperations<K, V> {
 	 */
 	CompletableFuture<SendResult<K, V>> send(ProducerRecord<K, V> record);
 
+	/**
+	 * Send the provided {@link ProducerRecord}s, in order, using a single producer and a
+	 * single future. The future completes normally when all the sends have completed,
+	 * even if some of them failed; see {@link BatchSendResult#getFailures()}.
+	 * @param records the records.
+	 * @return a Future for the {@link BatchSendResult}.
+	 * @since 3.1
+	 */
+	default CompletableFuture<BatchSendResult<K, V>> sendAll(Collection<ProducerRecord<K, V>> records) {
+		throw new UnsupportedOperationException("This implementation does not support this operation");
+	}
+
 	/**
 	 * Send a message with routing information in message headers. The message payload
 	 * may be converted before sending.
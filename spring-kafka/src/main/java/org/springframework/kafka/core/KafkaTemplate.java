@@ -25,10 +25,16 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 import org.apache.commons.logging.LogFactory;
@@ -39,6 +45,7 @@ import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.BufferExhaustedException;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -58,7 +65,9 @@ import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextStoppedEvent;
 import org.springframework.core.log.LogAccessor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.support.BatchSendResult;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.kafka.support.KafkaUtils;
 import org.springframework.kafka.support.LoggingProducerListener;
@@ -99,11 +108,23 @@ import io.micrometer.observation.ObservationRegistry;
  * @author Thomas Strauß
  * @author Soby Chacko
  * @author Gurps Bassi
+ * @author agent
  */
 @SuppressWarnings("deprecation")
 public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationContextAware, BeanNameAware,
 		ApplicationListener<ContextStoppedEvent>, DisposableBean, SmartInitializingSingleton {
 
+	/**
+	 * The default {@link #setBackPressureThreshold(long) back pressure threshold} (the
+	 * default producer {@code batch.size}).
+	 */
+	public static final long DEFAULT_BACK_PRESSURE_THRESHOLD = 16_384;
+
+	/**
+	 * The default {@link #setSpillQueueCapacity(int) spill queue capacity}.
+	 */
+	public static final int DEFAULT_SPILL_QUEUE_CAPACITY = 10_000;
+
 	protected final LogAccessor logger = new LogAccessor(LogFactory.getLog(this.getClass())); //NOSONAR
 
 	private final ProducerFactory<K, V> producerFactory;
@@ -118,6 +139,10 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 
 	private final Map<String, String> micrometerTags = new HashMap<>();
 
+	private final AtomicLong backPressureRejections = new AtomicLong();
+
+	private final ReentrantLock spillLock = new ReentrantLock();
+
 	private String beanName = "kafkaTemplate";
 
 	private ApplicationContext applicationContext;
@@ -144,12 +169,49 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 
 	private MicrometerHolder micrometerHolder;
 
+	@Nullable
+	private double[] micrometerPercentiles;
+
+	@Nullable
+	private Duration[] micrometerServiceLevelObjectives;
+
+	private boolean micrometerPercentileHistogram;
+
+	private boolean micrometerPhaseTimers;
+
+	@Nullable
+	private Object appendTimer;
+
+	@Nullable
+	private Object acknowledgeTimer;
+
 	private boolean observationEnabled;
 
 	private KafkaTemplateObservationConvention observationConvention;
 
 	private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
+	private BackPressureMode backPressureMode = BackPressureMode.BLOCK;
+
+	private long backPressureThreshold = DEFAULT_BACK_PRESSURE_THRESHOLD;
+
+	private int spillQueueCapacity = DEFAULT_SPILL_QUEUE_CAPACITY;
+
+	private final Map<Producer<K, V>, BufferMetrics> bufferMetrics = new ConcurrentHashMap<>();
+
+	private final Set<ProducerFactory<K, V>> bufferMetricsFactories = ConcurrentHashMap.newKeySet();
+
+	private final ProducerFactory.Listener<K, V> bufferMetricsListener = new ProducerFactory.Listener<>() {
+
+		@Override
+		public void producerRemoved(String id, Producer<K, V> producer) {
+			KafkaTemplate.this.bufferMetrics.remove(producer);
+		}
+
+	};
+
+	private volatile SpillQueue<K, V> spillQueue;
+
 	@Nullable
 	private Function<ProducerRecord<?, ?>, Map<String, String>> micrometerTagsProvider;
 
@@ -384,6 +446,50 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 		this.micrometerTagsProvider = micrometerTagsProvider;
 	}
 
+	/**
+	 * Set the percentiles (e.g. 0.5, 0.99) to publish for the Micrometer timers.
+	 * @param percentiles the percentiles.
+	 * @since 3.1
+	 */
+	public void setMicrometerPercentiles(double... percentiles) {
+		this.micrometerPercentiles = percentiles;
+	}
+
+	/**
+	 * Set service level objectives (latency boundaries) to publish as histogram buckets
+	 * for the Micrometer timers.
+	 * @param serviceLevelObjectives the boundaries.
+	 * @since 3.1
+	 */
+	public void setMicrometerServiceLevelObjectives(Duration... serviceLevelObjectives) {
+		this.micrometerServiceLevelObjectives = serviceLevelObjectives;
+	}
+
+	/**
+	 * Set to true to publish a percentile histogram for the Micrometer timers, for
+	 * monitoring systems that can aggregate percentiles across instances.
+	 * @param percentileHistogram true to publish the histogram.
+	 * @since 3.1
+	 */
+	public void setMicrometerPercentileHistogram(boolean percentileHistogram) {
+		this.micrometerPercentileHistogram = percentileHistogram;
+	}
+
+	/**
+	 * Set to true to time the two phases of a send separately: the time spent in
+	 * {@code Producer.send()} (serialization, partitioning, waiting for metadata or
+	 * buffer space, and appending the record to a batch), and the time from then until
+	 * the broker acknowledges the record (time in the accumulator plus the broker round
+	 * trip). Timers {@code spring.kafka.template.append} and
+	 * {@code spring.kafka.template.acknowledge} are used; only applies to
+	 * {@code send()} operations (not {@code sendAll()}) when Micrometer timers are enabled.
+	 * @param phaseTimers true to enable the timers.
+	 * @since 3.1
+	 */
+	public void setMicrometerPhaseTimers(boolean phaseTimers) {
+		this.micrometerPhaseTimers = phaseTimers;
+	}
+
 	/**
 	 * Return the Micrometer tags provider.
 	 * @return the micrometerTagsProvider.
@@ -452,6 +558,89 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 		this.observationConvention = observationConvention;
 	}
 
+	/**
+	 * Set what to do when a non-transactional send would block because the producer's
+	 * buffer (record accumulator) is exhausted. Default {@link BackPressureMode#BLOCK}.
+	 * @param backPressureMode the mode.
+	 * @since 3.1
+	 * @see #setBackPressureThreshold(long)
+	 */
+	public void setBackPressureMode(BackPressureMode backPressureMode) {
+		Assert.notNull(backPressureMode, "'backPressureMode' cannot be null");
+		this.backPressureMode = backPressureMode;
+	}
+
+	/**
+	 * Set the number of bytes available in the producer's buffer below which it is
+	 * considered to be exhausted. Default {@value #DEFAULT_BACK_PRESSURE_THRESHOLD}; it
+	 * should not be less than the producer's {@code batch.size}.
+	 * @param backPressureThreshold the threshold in bytes.
+	 * @since 3.1
+	 * @see #setBackPressureMode(BackPressureMode)
+	 */
+	public void setBackPressureThreshold(long backPressureThreshold) {
+		this.backPressureThreshold = backPressureThreshold;
+	}
+
+	/**
+	 * Set the maximum number of records queued when the {@link #setBackPressureMode(BackPressureMode)
+	 * backPressureMode} is {@link BackPressureMode#SPILL}; when the queue is full, sends
+	 * fail immediately. Default {@value #DEFAULT_SPILL_QUEUE_CAPACITY}.
+	 * @param spillQueueCapacity the capacity.
+	 * @since 3.1
+	 */
+	public void setSpillQueueCapacity(int spillQueueCapacity) {
+		Assert.isTrue(spillQueueCapacity > 0, "'spillQueueCapacity' must be greater than 0");
+		this.spillQueueCapacity = spillQueueCapacity;
+	}
+
+	/**
+	 * Return true if a send would block (or be queued or rejected, depending on the
+	 * {@link #setBackPressureMode(BackPressureMode) backPressureMode}) because the
+	 * producer's buffer is exhausted or records are waiting in the spill queue. Callers
+	 * can use this to slow down. Always false for a transactional template.
+	 * @return true if back pressure is being applied.
+	 * @since 3.1
+	 */
+	public boolean isBackPressured() {
+		if (this.transactional) {
+			return false;
+		}
+		SpillQueue<K, V> spill = this.spillQueue;
+		if (spill != null && !spill.isEmpty()) {
+			return true;
+		}
+		Producer<K, V> producer = getTheProducer();
+		try {
+			return bufferMetrics(this.producerFactory, producer).isExhausted(this.backPressureThreshold);
+		}
+		finally {
+			closeProducer(producer, false);
+		}
+	}
+
+	/**
+	 * Return the number of records waiting in the spill queue.
+	 * @return the number of records.
+	 * @since 3.1
+	 * @see BackPressureMode#SPILL
+	 */
+	public int getSpillQueueDepth() {
+		SpillQueue<K, V> spill = this.spillQueue;
+		return spill == null ? 0 : spill.size();
+	}
+
+	/**
+	 * Return the number of sends that were failed immediately because the producer's
+	 * buffer was exhausted (and, with {@link BackPressureMode#SPILL}, the spill queue was
+	 * full).
+	 * @return the number of rejected sends.
+	 * @since 3.1
+	 */
+	public long getBackPressureRejections() {
+		return this.backPressureRejections.get();
+	}
+
 	/**
 	 * Return the {@link KafkaAdmin}, used to find the cluster id for observation, if
 	 * present.
@@ -495,6 +684,19 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 		}
 		else if (this.micrometerEnabled) {
 			this.micrometerHolder = obtainMicrometerHolder();
+			if (this.micrometerHolder != null && !BackPressureMode.BLOCK.equals(this.backPressureMode)) {
+				this.micrometerHolder.gauge("spring.kafka.template.spill.depth",
+						"The number of records waiting in the spill queue", this, KafkaTemplate::getSpillQueueDepth);
+				this.micrometerHolder.functionCounter("spring.kafka.template.back.pressure.rejections",
+						"Sends failed immediately because the producer's buffer was exhausted",
+						this.backPressureRejections, AtomicLong::get);
+			}
+			if (this.micrometerHolder != null && this.micrometerPhaseTimers) {
+				this.appendTimer = this.micrometerHolder.timer("spring.kafka.template.append",
+						"Time to append a record to the producer's accumulator");
+				this.acknowledgeTimer = this.micrometerHolder.timer("spring.kafka.template.acknowledge",
+						"Time from appending a record until it is acknowledged by the broker");
+			}
 		}
 	}
 
@@ -565,6 +767,56 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 		return observeSend(record);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Unlike {@link #send(ProducerRecord)}, a single Micrometer timer sample and a single
+	 * observation are used for the whole batch; when tags or the observation context are
+	 * derived from a record, the first record is used. Failures to send individual records
+	 * (including immediate failures) do not prevent the remaining records from being sent;
+	 * they are reported in the {@link BatchSendResult}.
+	 * @since 3.1
+	 */
+	@Override
+	public CompletableFuture<BatchSendResult<K, V>> sendAll(Collection<ProducerRecord<K, V>> records) {
+		Assert.notNull(records, "'records' cannot be null");
+		Assert.noNullElements(records, "'records' cannot have null elements");
+		if (records.isEmpty()) {
+			return CompletableFuture.completedFuture(new BatchSendResult<>(new ArrayList<>(), new TreeMap<>()));
+		}
+		ProducerRecord<K, V> first = records.iterator().next();
+		Map<String, Producer<K, V>> producers = new HashMap<>();
+		producers.put(first.topic(), getTheProducer(first.topic()));
+		Observation observation = KafkaTemplateObservation.TEMPLATE_OBSERVATION.observation(
+				this.observationConvention, DefaultKafkaTemplateObservationConvention.INSTANCE,
+				() -> new KafkaRecordSenderContext(first, this.beanName, this::clusterId),
+				this.observationRegistry);
+		observation.start();
+		Object sample = null;
+		if (this.micrometerHolder != null) {
+			sample = this.micrometerHolder.start();
+		}
+		BatchCallback batch = new BatchCallback(first, records.size(), producers.values(), sample, observation);
+		this.logger.trace(() -> "Sending batch of " + records.size() + " records");
+		int index = 0;
+		for (ProducerRecord<K, V> record : records) {
+			ProducerRecord<K, V> interceptedRecord = record;
+			try {
+				Producer<K, V> producer = producers.computeIfAbsent(record.topic(), this::getTheProducer);
+				interceptedRecord = interceptorProducerRecord(record);
+				producer.send(interceptedRecord, batch.callback(index, interceptedRecord));
+			}
+			catch (RuntimeException ex) {
+				batch.failed(index, interceptedRecord, null, ex);
+			}
+			index++;
+		}
+		if (this.autoFlush) {
+			flush();
+		}
+		return batch.future;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public CompletableFuture<SendResult<K, V>> send(Message<?> message) {
@@ -747,13 +999,41 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 	}
 
 	private CompletableFuture<SendResult<K, V>> observeSend(final ProducerRecord<K, V> producerRecord) {
+		if (!BackPressureMode.BLOCK.equals(this.backPressureMode) && !this.transactional) {
+			Producer<K, V> producer = getTheProducer(producerRecord.topic());
+			CompletableFuture<SendResult<K, V>> future;
+			try {
+				future = sendWithBackPressure(producerRecord, producer);
+			}
+			catch (RuntimeException ex) {
+				closeProducer(producer, false);
+				throw ex;
+			}
+			if (future != null) {
+				closeProducer(producer, false);
+				return future;
+			}
+			return doObserveSend(producerRecord, producer);
+		}
+		return doObserveSend(producerRecord, null);
+	}
+
+	private CompletableFuture<SendResult<K, V>> doObserveSend(final ProducerRecord<K, V> producerRecord) {
+		return doObserveSend(producerRecord, null);
+	}
+
+	private CompletableFuture<SendResult<K, V>> doObserveSend(final ProducerRecord<K, V> producerRecord,
+			@Nullable Producer<K, V> producer) {
+
 		Observation observation = KafkaTemplateObservation.TEMPLATE_OBSERVATION.observation(
 				this.observationConvention, DefaultKafkaTemplateObservationConvention.INSTANCE,
 				() -> new KafkaRecordSenderContext(producerRecord, this.beanName, this::clusterId),
 				this.observationRegistry);
 		try {
 			observation.start();
-			return doSend(producerRecord, observation);
+			return producer == null
+					? doSend(producerRecord, observation)
+					: doSend(producerRecord, observation, producer);
 		}
 		catch (RuntimeException ex) {
 			// The error is added from org.apache.kafka.clients.producer.Callback
@@ -765,6 +1045,79 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 		}
 	}
 
+	/**
+	 * Queue or reject the record if the producer's buffer is exhausted, or records are
+	 * already queued, so that the caller is not blocked.
+	 * @param producerRecord the record.
+	 * @param producer the producer that will send the record.
+	 * @return the future, or null if the record can be sent normally.
+	 */
+	@Nullable
+	private CompletableFuture<SendResult<K, V>> sendWithBackPressure(ProducerRecord<K, V> producerRecord,
+			Producer<K, V> producer) {
+
+		SpillQueue<K, V> spill = this.spillQueue;
+		boolean spilling = BackPressureMode.SPILL.equals(this.backPressureMode);
+		BufferMetrics metrics = bufferMetrics(getProducerFactory(producerRecord.topic()), producer);
+		if ((spill == null || spill.isEmpty()) && !metrics.isExhausted(this.backPressureThreshold)
+				&& (!spilling || metrics.isTopicKnown(producerRecord.topic()))) {
+			return null;
+		}
+		if (spilling) {
+			CompletableFuture<SendResult<K, V>> future = new CompletableFuture<>();
+			if (obtainSpillQueue().offer(producerRecord, future)) {
+				this.logger.trace(() -> "Spilled: " + KafkaUtils.format(producerRecord));
+				return future;
+			}
+		}
+		this.backPressureRejections.incrementAndGet();
+		BufferExhaustedException exception = new BufferExhaustedException("Producer buffer exhausted");
+		if (this.producerListener != null) {
+			this.producerListener.onError(producerRecord, null, exception);
+		}
+		return CompletableFuture.failedFuture(
+				new KafkaProducerException(producerRecord, "Failed to send", exception));
+	}
+
+	private BufferMetrics bufferMetrics(ProducerFactory<K, V> factory, Producer<K, V> producer) {
+		BufferMetrics metrics = this.bufferMetrics.get(producer);
+		if (metrics == null) {
+			if (this.bufferMetricsFactories.add(factory)) {
+				factory.addListener(this.bufferMetricsListener);
+			}
+			// only cache if the factory will tell us when the producer is closed
+			boolean cache = factory.getListeners().contains(this.bufferMetricsListener);
+			metrics = new BufferMetrics(producer, cache);
+			if (cache) {
+				BufferMetrics existing = this.bufferMetrics.putIfAbsent(producer, metrics);
+				if (existing != null) {
+					metrics = existing;
+				}
+			}
+		}
+		return metrics;
+	}
+
+	private SpillQueue<K, V> obtainSpillQueue() {
+		SpillQueue<K, V> spill = this.spillQueue;
+		if (spill == null) {
+			this.spillLock.lock();
+			try {
+				spill = this.spillQueue;
+				if (spill == null) {
+					SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(this.beanName + "-spill-");
+					executor.setDaemon(true);
+					spill = new SpillQueue<>(this.spillQueueCapacity, this::doObserveSend, executor);
+					this.spillQueue = spill;
+				}
+			}
+			finally {
+				this.spillLock.unlock();
+			}
+		}
+		return spill;
+	}
+
 	/**
 	 * Send the producer record.
 	 * @param producerRecord the producer record.
@@ -775,7 +1128,12 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 	protected CompletableFuture<SendResult<K, V>> doSend(final ProducerRecord<K, V> producerRecord,
 			Observation observation) {
 
-		final Producer<K, V> producer = getTheProducer(producerRecord.topic());
+		return doSend(producerRecord, observation, getTheProducer(producerRecord.topic()));
+	}
+
+	private CompletableFuture<SendResult<K, V>> doSend(final ProducerRecord<K, V> producerRecord,
+			Observation observation, final Producer<K, V> producer) {
+
 		this.logger.trace(() -> "Sending: " + KafkaUtils.format(producerRecord));
 		final CompletableFuture<SendResult<K, V>> future = new CompletableFuture<>();
 		Object sample = null;
@@ -783,8 +1141,19 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 			sample = this.micrometerHolder.start();
 		}
 		ProducerRecord<K, V> interceptedRecord = interceptorProducerRecord(producerRecord);
-		Future<RecordMetadata> sendFuture =
-				producer.send(interceptedRecord, buildCallback(interceptedRecord, producer, future, sample, observation));
+		AtomicLong appended = this.appendTimer == null ? null : new AtomicLong();
+		long sendStarted = appended == null ? 0 : System.nanoTime();
+		Future<RecordMetadata> sendFuture = producer.send(interceptedRecord,
+				buildCallback(interceptedRecord, producer, future, sample, observation, appended));
+		BufferMetrics metrics = this.bufferMetrics.get(producer);
+		if (metrics != null) {
+			metrics.topicKnown(interceptedRecord.topic());
+		}
+		if (appended != null) {
+			long now = System.nanoTime();
+			this.micrometerHolder.recordTime(this.appendTimer, now - sendStarted);
+			appended.set(now);
+		}
 		// Maybe an immediate failure
 		if (sendFuture.isDone()) {
 			try {
@@ -813,7 +1182,8 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 	}
 
 	private Callback buildCallback(final ProducerRecord<K, V> producerRecord, final Producer<K, V> producer,
-			final CompletableFuture<SendResult<K, V>> future, @Nullable Object sample, Observation observation) {
+			final CompletableFuture<SendResult<K, V>> future, @Nullable Object sample, Observation observation,
+			@Nullable AtomicLong appended) {
 
 		return (metadata, exception) -> {
 			try {
@@ -827,6 +1197,7 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 			try {
 				if (exception == null) {
 					successTimer(sample, producerRecord);
+					acknowledgeTimer(appended);
 					observation.stop();
 					future.complete(new SendResult<>(producerRecord, metadata));
 					if (KafkaTemplate.this.producerListener != null) {
@@ -856,6 +1227,108 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 		};
 	}
 
+	/**
+	 * Aggregates the results of a {@link #sendAll(Collection)}.
+	 */
+	private final class BatchCallback {
+
+		private final CompletableFuture<BatchSendResult<K, V>> future = new CompletableFuture<>();
+
+		private final ProducerRecord<K, V> first;
+
+		private final AtomicReferenceArray<Object> outcomes;
+
+		private final AtomicInteger remaining;
+
+		private final Collection<Producer<K, V>> producers;
+
+		@Nullable
+		private final Object sample;
+
+		private final Observation observation;
+
+		BatchCallback(ProducerRecord<K, V> first, int size, Collection<Producer<K, V>> producers,
+				@Nullable Object sample, Observation observation) {
+
+			this.first = first;
+			this.outcomes = new AtomicReferenceArray<>(size);
+			this.remaining = new AtomicInteger(size);
+			this.producers = producers;
+			this.sample = sample;
+			this.observation = observation;
+		}
+
+		Callback callback(int index, ProducerRecord<K, V> record) {
+			return (metadata, exception) -> {
+				try {
+					if (KafkaTemplate.this.producerInterceptor != null) {
+						KafkaTemplate.this.producerInterceptor.onAcknowledgement(metadata, exception);
+					}
+				}
+				catch (Exception e) {
+					KafkaTemplate.this.logger.warn(e, () -> "Error executing interceptor onAcknowledgement callback");
+				}
+				if (exception == null) {
+					if (KafkaTemplate.this.producerListener != null) {
+						KafkaTemplate.this.producerListener.onSuccess(record, metadata);
+					}
+					done(index, new SendResult<>(record, metadata));
+				}
+				else {
+					failed(index, record, metadata, exception);
+				}
+			};
+		}
+
+		void failed(int index, ProducerRecord<K, V> record, @Nullable RecordMetadata metadata, Exception exception) {
+			if (KafkaTemplate.this.producerListener != null) {
+				KafkaTemplate.this.producerListener.onError(record, metadata, exception);
+			}
+			KafkaTemplate.this.logger.debug(exception, () -> "Failed to send: " + KafkaUtils.format(record));
+			done(index, new KafkaProducerException(record, "Failed to send", exception));
+		}
+
+		@SuppressWarnings("unchecked")
+		private void done(int index, Object outcome) {
+			if (!this.outcomes.compareAndSet(index, null, outcome) || this.remaining.decrementAndGet() > 0) {
+				return;
+			}
+			List<SendResult<K, V>> results = new ArrayList<>(this.outcomes.length());
+			Map<Integer, Exception> failures = new TreeMap<>();
+			for (int i = 0; i < this.outcomes.length(); i++) {
+				Object result = this.outcomes.get(i);
+				if (result instanceof KafkaProducerException kpe) {
+					results.add(null);
+					failures.put(i, kpe);
+				}
+				else {
+					results.add((SendResult<K, V>) result);
+				}
+			}
+			try {
+				if (failures.isEmpty()) {
+					successTimer(this.sample, this.first);
+				}
+				else {
+					Throwable cause = failures.values().iterator().next().getCause();
+					Exception exception = cause instanceof Exception ex ? ex : new KafkaException("Failed to send");
+					failureTimer(this.sample, exception, this.first);
+					this.observation.error(exception);
+				}
+				this.observation.stop();
+			}
+			finally {
+				if (!KafkaTemplate.this.transactional) {
+					this.producers.forEach(producer -> closeProducer(producer, false));
+				}
+				KafkaTemplate.this.logger.trace(() -> "Sent batch of " + this.outcomes.length() + " records, "
+						+ failures.size() + " failed");
+				this.future.complete(new BatchSendResult<>(results, failures));
+			}
+		}
+
+	}
+
 	private void successTimer(@Nullable Object sample, ProducerRecord<?, ?> record) {
 		if (sample != null) {
 			if (this.micrometerTagsProvider == null) {
@@ -867,6 +1340,15 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 		}
 	}
 
+	private void acknowledgeTimer(@Nullable AtomicLong appended) {
+		if (appended != null) {
+			long appendedAt = appended.get();
+			if (appendedAt != 0) { // 0 if acknowledged before send() returned
+				this.micrometerHolder.recordTime(this.acknowledgeTimer, System.nanoTime() - appendedAt);
+			}
+		}
+	}
+
 	private void failureTimer(@Nullable Object sample, Exception exception, ProducerRecord<?, ?> record) {
 		if (sample != null) {
 			if (this.micrometerTagsProvider == null) {
@@ -946,7 +1428,8 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 					};
 				}
 				holder = new MicrometerHolder(this.applicationContext, this.beanName,
-						"spring.kafka.template", "KafkaTemplate Timer", mergedProvider);
+						"spring.kafka.template", "KafkaTemplate Timer", mergedProvider, this.micrometerPercentiles,
+						this.micrometerServiceLevelObjectives, this.micrometerPercentileHistogram);
 			}
 		}
 		catch (@SuppressWarnings("unused") IllegalStateException ex) {
@@ -957,6 +1440,13 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 
 	@Override
 	public void destroy() {
+		SpillQueue<K, V> spill = this.spillQueue;
+		if (spill != null) {
+			spill.stop();
+		}
+		this.bufferMetricsFactories.forEach(factory -> factory.removeListener(this.bufferMetricsListener));
+		this.bufferMetricsFactories.clear();
+		this.bufferMetrics.clear();
 		if (this.micrometerHolder != null) {
 			this.micrometerHolder.destroy();
 		}
@@ -968,6 +1458,91 @@ public class KafkaTemplate<K, V> implements KafkaOperations<K, V>, ApplicationCo
 		}
 	}
 
+	/**
+	 * What to do when a non-transactional send would block because the producer's buffer
+	 * is exhausted.
+	 *
+	 * @since 3.1
+	 */
+	public enum BackPressureMode {
+
+		/**
+		 * Send the record; the caller blocks for up to {@code max.block.ms}.
+		 */
+		BLOCK,
+
+		/**
+		 * Fail the returned future immediately with a {@link KafkaProducerException}
+		 * caused by a {@link BufferExhaustedException}. Missing metadata is not
+		 * detected; the first send to a topic can block for up to {@code max.block.ms}
+		 * while the producer fetches it.
+		 */
+		FAIL,
+
+		/**
+		 * Add the record to a bounded queue, from which records are sent, in order, by a
+		 * dedicated thread; the future is failed immediately if the queue is full. The
+		 * first record for a topic that the producer has not yet sent to is also queued,
+		 * so that the dedicated thread, rather than the caller, waits for its metadata.
+		 */
+		SPILL
+
+	}
+
+	/**
+	 * The producer's buffer metrics, and the topics it has sent to (so it has their
+	 * metadata); cached until the producer factory reports that the producer has been
+	 * removed.
+	 */
+	private static final class BufferMetrics {
+
+		private final List<Metric> available = new ArrayList<>();
+
+		private final List<Metric> waiting = new ArrayList<>();
+
+		@Nullable
+		private final Set<String> knownTopics;
+
+		BufferMetrics(Producer<?, ?> producer, boolean trackTopics) {
+			this.knownTopics = trackTopics ? ConcurrentHashMap.newKeySet() : null;
+			producer.metrics().forEach((name, metric) -> {
+				if ("producer-metrics".equals(name.group())) {
+					if ("buffer-available-bytes".equals(name.name())) {
+						this.available.add(metric);
+					}
+					else if ("waiting-threads".equals(name.name())) {
+						this.waiting.add(metric);
+					}
+				}
+			});
+		}
+
+		boolean isExhausted(long threshold) {
+			for (Metric metric : this.available) {
+				if (metric.metricValue() instanceof Number bytes && bytes.doubleValue() < threshold) {
+					return true;
+				}
+			}
+			for (Metric metric : this.waiting) {
+				if (metric.metricValue() instanceof Number threads && threads.doubleValue() > 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		void topicKnown(String topic) {
+			if (this.knownTopics != null) {
+				this.knownTopics.add(topic);
+			}
+		}
+
+		boolean isTopicKnown(String topic) {
+			return this.knownTopics == null || this.knownTopics.contains(topic);
+		}
+
+	}
+
 	@SuppressWarnings("serial")
 	private static final class SkipAbortException extends RuntimeException {
 
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.core;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.ProducerFencedException;
+
+import org.springframework.kafka.core.DefaultKafkaProducerFactory.CloseSafeProducer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory.PoolRouting;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * A non-transactional {@link Producer} that routes each record to one of a fixed set of
+ * producers, so that record appends and network I/O are spread across several sender
+ * threads. Records for the same partition (or, when the partition is not known, with the
+ * same key) are always sent by the same producer, so their order is preserved.
+ * Closing this producer closes the members only if they have failed.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+final class PooledProducer<K, V> implements Producer<K, V> {
+
+	private final CloseSafeProducer<K, V>[] members;
+
+	private final PoolRouting routing;
+
+	PooledProducer(CloseSafeProducer<K, V>[] members, PoolRouting routing) {
+		this.members = members;
+		this.routing = routing;
+	}
+
+	CloseSafeProducer<K, V>[] getMembers() {
+		return this.members;
+	}
+
+	/**
+	 * Return the producer to use for the record.
+	 * @param record the record.
+	 * @return the producer.
+	 */
+	CloseSafeProducer<K, V> select(ProducerRecord<K, V> record) {
+		int hash;
+		if (PoolRouting.PARTITION.equals(this.routing) && record.partition() != null) {
+			hash = 31 * record.topic().hashCode() + record.partition();
+		}
+		else if (PoolRouting.PARTITION.equals(this.routing) && record.key() != null) {
+			hash = ObjectUtils.nullSafeHashCode(record.key());
+		}
+		else {
+			hash = System.identityHashCode(Thread.currentThread());
+		}
+		return this.members[Math.floorMod(hash ^ (hash >>> 16), this.members.length)];
+	}
+
+	@Override
+	public Future<RecordMetadata> send(ProducerRecord<K, V> record) {
+		return select(record).send(record);
+	}
+
+	@Override
+	public Future<RecordMetadata> send(ProducerRecord<K, V> record, Callback callback) {
+		return select(record).send(record, callback);
+	}
+
+	@Override
+	public void flush() {
+		for (CloseSafeProducer<K, V> member : this.members) {
+			member.flush();
+		}
+	}
+
+	@Override
+	public List<PartitionInfo> partitionsFor(String topic) {
+		return this.members[0].partitionsFor(topic);
+	}
+
+	@Override
+	public Map<MetricName, ? extends Metric> metrics() {
+		Map<MetricName, Metric> metrics = new HashMap<>();
+		for (CloseSafeProducer<K, V> member : this.members) {
+			metrics.putAll(member.metrics());
+		}
+		return metrics;
+	}
+
+	@Override
+	public void initTransactions() {
+		throw new UnsupportedOperationException("Transactions are not supported by a producer pool");
+	}
+
+	@Override
+	public void beginTransaction() throws ProducerFencedException {
+		throw new UnsupportedOperationException("Transactions are not supported by a producer pool");
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId)
+			throws ProducerFencedException {
+
+		throw new UnsupportedOperationException("Transactions are not supported by a producer pool");
+	}
+
+	@Override
+	public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets,
+			ConsumerGroupMetadata groupMetadata) throws ProducerFencedException {
+
+		throw new UnsupportedOperationException("Transactions are not supported by a producer pool");
+	}
+
+	@Override
+	public void commitTransaction() throws ProducerFencedException {
+		throw new UnsupportedOperationException("Transactions are not supported by a producer pool");
+	}
+
+	@Override
+	public void abortTransaction() throws ProducerFencedException {
+		throw new UnsupportedOperationException("Transactions are not supported by a producer pool");
+	}
+
+	@Override
+	public void close() {
+		close(null);
+	}
+
+	@Override
+	public void close(@Nullable Duration timeout) {
+		for (CloseSafeProducer<K, V> member : this.members) {
+			member.close(timeout);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PooledProducer [routing=" + this.routing + ", members=" + Arrays.toString(this.members) + "]";
+	}
+
+}
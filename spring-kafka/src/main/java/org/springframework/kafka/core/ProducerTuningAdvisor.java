@@ -0,0 +1,576 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * Periodically samples the metrics of the producers created by a
+ * {@link ProducerFactory} and recommends changes to {@code batch.size},
+ * {@code linger.ms} and {@code compression.type}. Recommendations are only derived
+ * while the producers are under load (above the {@link #setQuietRecordRate(double)
+ * quiet record rate}); when {@link #setAutoApply(boolean) autoApply} is true, the most
+ * recent recommendation is applied, using {@link ProducerFactory#updateConfigs(Map)}
+ * and {@link ProducerFactory#reset()}, the next time the producers are idle (no records
+ * sent during the metrics sample window, buffered or in flight), no more often than
+ * the {@link #setMinApplyInterval(Duration) minApplyInterval}. Each evaluation changes
+ * each property by at most a factor of two and within the configured bounds.
+ * <p>
+ * The advisor registers itself as a {@link ProducerFactory.Listener} when constructed,
+ * so it should be created before the factory creates any producers.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class ProducerTuningAdvisor<K, V> implements ProducerFactory.Listener<K, V>, SmartLifecycle,
+		DisposableBean {
+
+	/**
+	 * The default {@link #setInterval(Duration) interval}.
+	 */
+	public static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(1);
+
+	/**
+	 * The default {@link #setMinApplyInterval(Duration) minApplyInterval}.
+	 */
+	public static final Duration DEFAULT_MIN_APPLY_INTERVAL = Duration.ofMinutes(10);
+
+	/**
+	 * The default {@link #setMaxBatchSize(int) maxBatchSize}.
+	 */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 1_048_576;
+
+	/**
+	 * The default {@link #setMaxLingerMs(int) maxLingerMs}.
+	 */
+	public static final int DEFAULT_MAX_LINGER_MS = 100;
+
+	/**
+	 * The default {@link #setHighRecordRate(double) highRecordRate}.
+	 */
+	public static final double DEFAULT_HIGH_RECORD_RATE = 1000;
+
+	/**
+	 * The default {@link #setQuietRecordRate(double) quietRecordRate}.
+	 */
+	public static final double DEFAULT_QUIET_RECORD_RATE = 10;
+
+	private static final LogAccessor LOGGER = new LogAccessor(LogFactory.getLog(ProducerTuningAdvisor.class));
+
+	private static final String PRODUCER_METRICS = "producer-metrics";
+
+	private static final String TOPIC_METRICS = "producer-topic-metrics";
+
+	private static final String RECORD_SEND_RATE = "record-send-rate";
+
+	private static final String REQUESTS_IN_FLIGHT = "requests-in-flight";
+
+	private static final String BUFFER_TOTAL_BYTES = "buffer-total-bytes";
+
+	private static final String BUFFER_AVAILABLE_BYTES = "buffer-available-bytes";
+
+	private static final String WAITING_THREADS = "waiting-threads";
+
+	private static final String NO_COMPRESSION = "none";
+
+	private static final int DEFAULT_BATCH_SIZE = 16_384;
+
+	private static final int MIN_LINGER_INCREMENT = 5;
+
+	private static final double FULL_BATCH_RATIO = 0.9;
+
+	private static final double SMALL_BATCH_RATIO = 0.5;
+
+	private static final double EMPTY_BATCH_RATIO = 0.1;
+
+	private static final double INCOMPRESSIBLE_RATIO = 0.95;
+
+	private static final int PERCENT = 100;
+
+	private final ProducerFactory<K, V> producerFactory;
+
+	private final Map<String, Producer<K, V>> producers = new ConcurrentHashMap<>();
+
+	private final AtomicInteger appliedCount = new AtomicInteger();
+
+	@Nullable
+	private TaskScheduler taskScheduler;
+
+	@Nullable
+	private ThreadPoolTaskScheduler createdScheduler;
+
+	private Duration interval = DEFAULT_INTERVAL;
+
+	private Duration minApplyInterval = DEFAULT_MIN_APPLY_INTERVAL;
+
+	private boolean autoApply;
+
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+	private int maxLingerMs = DEFAULT_MAX_LINGER_MS;
+
+	private double highRecordRate = DEFAULT_HIGH_RECORD_RATE;
+
+	private double quietRecordRate = DEFAULT_QUIET_RECORD_RATE;
+
+	@Nullable
+	private ScheduledFuture<?> task;
+
+	@Nullable
+	private volatile ProducerSample lastSample;
+
+	@Nullable
+	private volatile Recommendation lastRecommendation;
+
+	@Nullable
+	private volatile Recommendation pending;
+
+	private volatile long lastApplied;
+
+	private volatile boolean running;
+
+	/**
+	 * Construct an instance for the provided factory.
+	 * @param producerFactory the factory.
+	 */
+	public ProducerTuningAdvisor(ProducerFactory<K, V> producerFactory) {
+		Assert.notNull(producerFactory, "'producerFactory' cannot be null");
+		this.producerFactory = producerFactory;
+		producerFactory.addListener(this);
+	}
+
+	/**
+	 * Set the scheduler used to evaluate the metrics; by default, a single-threaded
+	 * scheduler is created when the advisor is started.
+	 * @param taskScheduler the scheduler.
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		Assert.notNull(taskScheduler, "'taskScheduler' cannot be null");
+		this.taskScheduler = taskScheduler;
+	}
+
+	/**
+	 * Set the interval between evaluations; default {@link #DEFAULT_INTERVAL}. It should
+	 * not be less than the producer's {@code metrics.sample.window.ms}.
+	 * @param interval the interval.
+	 */
+	public void setInterval(Duration interval) {
+		Assert.notNull(interval, "'interval' cannot be null");
+		this.interval = interval;
+	}
+
+	/**
+	 * Set to true to apply recommendations when the producers are idle; default false, in
+	 * which case recommendations are only logged and available from
+	 * {@link #getLastRecommendation()}. Applying a recommendation closes the factory's
+	 * producers, so it is only applied when their record send rate is zero and no records
+	 * are buffered or in flight; a send started concurrently with the close fails.
+	 * @param autoApply true to apply recommendations.
+	 */
+	public void setAutoApply(boolean autoApply) {
+		this.autoApply = autoApply;
+	}
+
+	/**
+	 * Set the minimum time between applying recommendations; default
+	 * {@link #DEFAULT_MIN_APPLY_INTERVAL}.
+	 * @param minApplyInterval the interval.
+	 */
+	public void setMinApplyInterval(Duration minApplyInterval) {
+		Assert.notNull(minApplyInterval, "'minApplyInterval' cannot be null");
+		this.minApplyInterval = minApplyInterval;
+	}
+
+	/**
+	 * Set the largest {@code batch.size} that will be recommended; default
+	 * {@link #DEFAULT_MAX_BATCH_SIZE}.
+	 * @param maxBatchSize the maximum.
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "'maxBatchSize' must be positive");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Set the largest {@code linger.ms} that will be recommended; default
+	 * {@link #DEFAULT_MAX_LINGER_MS}.
+	 * @param maxLingerMs the maximum.
+	 */
+	public void setMaxLingerMs(int maxLingerMs) {
+		Assert.isTrue(maxLingerMs >= 0, "'maxLingerMs' cannot be negative");
+		this.maxLingerMs = maxLingerMs;
+	}
+
+	/**
+	 * Set the record send rate (records/second, across all producers) at or above which
+	 * small batches cause an increase in {@code linger.ms} to be recommended; below this
+	 * rate, nearly empty batches cause a decrease to be recommended; default
+	 * {@link #DEFAULT_HIGH_RECORD_RATE}.
+	 * @param highRecordRate the rate.
+	 */
+	public void setHighRecordRate(double highRecordRate) {
+		this.highRecordRate = highRecordRate;
+	}
+
+	/**
+	 * Set the record send rate (records/second, across all producers) at or below which
+	 * the producers are considered quiet; no recommendations are derived from quiet
+	 * samples; default {@link #DEFAULT_QUIET_RECORD_RATE}.
+	 * @param quietRecordRate the rate.
+	 */
+	public void setQuietRecordRate(double quietRecordRate) {
+		this.quietRecordRate = quietRecordRate;
+	}
+
+	/**
+	 * Return the most recent sample.
+	 * @return the sample, or null if no evaluation has been performed.
+	 */
+	@Nullable
+	public ProducerSample getLastSample() {
+		return this.lastSample;
+	}
+
+	/**
+	 * Return the most recent recommendation that contains changes.
+	 * @return the recommendation, or null if there is none.
+	 */
+	@Nullable
+	public Recommendation getLastRecommendation() {
+		return this.lastRecommendation;
+	}
+
+	/**
+	 * Return the number of recommendations that have been applied.
+	 * @return the number.
+	 */
+	public int getAppliedCount() {
+		return this.appliedCount.get();
+	}
+
+	@Override
+	public void producerAdded(String id, Producer<K, V> producer) {
+		this.producers.put(id, producer);
+	}
+
+	@Override
+	public void producerRemoved(String id, Producer<K, V> producer) {
+		this.producers.remove(id, producer);
+	}
+
+	@Override
+	public synchronized void start() {
+		if (!this.running) {
+			TaskScheduler scheduler = this.taskScheduler;
+			if (scheduler == null) {
+				ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
+				threadPoolTaskScheduler.setThreadNamePrefix("producer-tuning-");
+				threadPoolTaskScheduler.initialize();
+				this.createdScheduler = threadPoolTaskScheduler;
+				scheduler = threadPoolTaskScheduler;
+			}
+			this.task = scheduler.scheduleWithFixedDelay(this::scheduledEvaluation, this.interval);
+			this.running = true;
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (this.running) {
+			this.running = false;
+			if (this.task != null) {
+				this.task.cancel(false);
+				this.task = null;
+			}
+			if (this.createdScheduler != null) {
+				this.createdScheduler.destroy();
+				this.createdScheduler = null;
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	@Override
+	public void destroy() {
+		stop();
+		this.producerFactory.removeListener(this);
+		this.producers.clear();
+	}
+
+	private void scheduledEvaluation() {
+		try {
+			evaluate();
+		}
+		catch (RuntimeException ex) {
+			LOGGER.error(ex, "Failed to evaluate producer metrics");
+		}
+	}
+
+	/**
+	 * Sample the metrics; when the producers are busy, derive a recommendation; when they
+	 * are idle, apply the pending recommendation, if {@link #setAutoApply(boolean)
+	 * autoApply} is true.
+	 * @return the sample.
+	 */
+	public ProducerSample evaluate() {
+		ProducerSample sample = sample();
+		this.lastSample = sample;
+		if (sample.recordSendRate() > this.quietRecordRate) {
+			Recommendation recommendation = advise(sample);
+			if (!recommendation.configs().isEmpty()) {
+				LOGGER.info(() -> "Producer tuning recommendation: " + recommendation);
+				this.lastRecommendation = recommendation;
+				this.pending = recommendation;
+			}
+		}
+		else if (this.autoApply) {
+			Recommendation recommendation = this.pending;
+			if (recommendation != null
+					&& System.currentTimeMillis() - this.lastApplied >= this.minApplyInterval.toMillis()
+					&& sample.recordSendRate() == 0 && isIdle()) {
+
+				apply(recommendation);
+			}
+		}
+		return sample;
+	}
+
+	private void apply(Recommendation recommendation) {
+		LOGGER.info(() -> "Applying producer tuning recommendation: " + recommendation.configs());
+		this.producerFactory.updateConfigs(recommendation.configs());
+		this.producerFactory.reset();
+		this.pending = null;
+		this.lastApplied = System.currentTimeMillis();
+		this.appliedCount.incrementAndGet();
+	}
+
+	/*
+	 * Since reset() closes the producers, do not apply while a record is buffered, in
+	 * flight, or a sender is waiting for buffer memory.
+	 */
+	private boolean isIdle() {
+		for (Producer<K, V> producer : this.producers.values()) {
+			Map<String, Double> values = new HashMap<>();
+			try {
+				producer.metrics().forEach((name, metric) -> {
+					if (PRODUCER_METRICS.equals(name.group()) && metric.metricValue() instanceof Number number) {
+						values.put(name.name(), number.doubleValue());
+					}
+				});
+			}
+			catch (RuntimeException ex) {
+				continue; // closed
+			}
+			Double total = values.get(BUFFER_TOTAL_BYTES);
+			Double available = values.get(BUFFER_AVAILABLE_BYTES);
+			if ((total != null && available != null && available < total)
+					|| values.getOrDefault(REQUESTS_IN_FLIGHT, 0.0) > 0
+					|| values.getOrDefault(WAITING_THREADS, 0.0) > 0) {
+
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sample the metrics of the current producers. Average metrics are weighted by each
+	 * producer's (or topic's) record send rate; rates are summed.
+	 * @return the sample.
+	 */
+	public ProducerSample sample() {
+		Accumulator totals = new Accumulator();
+		Map<String, Accumulator> topics = new HashMap<>();
+		for (Producer<K, V> producer : this.producers.values()) {
+			Map<MetricName, ? extends Metric> metrics;
+			try {
+				metrics = producer.metrics();
+			}
+			catch (RuntimeException ex) {
+				continue; // closed
+			}
+			Map<String, Double> producerValues = new HashMap<>();
+			Map<String, Map<String, Double>> topicValues = new HashMap<>();
+			metrics.forEach((name, metric) -> {
+				Object value = metric.metricValue();
+				if (!(value instanceof Number number) || !Double.isFinite(number.doubleValue())) {
+					return;
+				}
+				if (PRODUCER_METRICS.equals(name.group())) {
+					producerValues.put(name.name(), number.doubleValue());
+				}
+				else if (TOPIC_METRICS.equals(name.group()) && name.tags().containsKey("topic")) {
+					topicValues.computeIfAbsent(name.tags().get("topic"), t -> new HashMap<>())
+							.put(name.name(), number.doubleValue());
+				}
+			});
+			totals.add(producerValues.getOrDefault(RECORD_SEND_RATE, 0.0),
+					producerValues.getOrDefault("outgoing-byte-rate", 0.0), producerValues);
+			topicValues.forEach((topic, values) -> topics.computeIfAbsent(topic, t -> new Accumulator())
+					.add(values.getOrDefault(RECORD_SEND_RATE, 0.0), values.getOrDefault("byte-rate", 0.0), values));
+		}
+		Map<String, TopicSample> topicSamples = new HashMap<>();
+		topics.forEach((topic, acc) -> topicSamples.put(topic,
+				new TopicSample(acc.rate, acc.bytes, acc.average("compression-rate"))));
+		return new ProducerSample(totals.rate, totals.bytes, totals.average("batch-size-avg"),
+				totals.average("record-queue-time-avg"), totals.average("compression-rate-avg"),
+				totals.average("request-latency-avg"), Collections.unmodifiableMap(topicSamples));
+	}
+
+	/**
+	 * Derive a recommendation from the sample and the factory's current configuration.
+	 * Override to change the policy.
+	 * @param sample the sample.
+	 * @return the recommendation; its configs are empty if no change is recommended.
+	 */
+	protected Recommendation advise(ProducerSample sample) {
+		Map<String, Object> configs = this.producerFactory.getConfigurationProperties();
+		int batchSize = intConfig(configs.get(ProducerConfig.BATCH_SIZE_CONFIG), DEFAULT_BATCH_SIZE);
+		int lingerMs = intConfig(configs.get(ProducerConfig.LINGER_MS_CONFIG), 0);
+		Object compression = configs.get(ProducerConfig.COMPRESSION_TYPE_CONFIG);
+		Map<String, Object> updates = new LinkedHashMap<>();
+		List<String> reasons = new ArrayList<>();
+		if (batchSize > 0 && !Double.isNaN(sample.batchSizeAvg())) {
+			double fill = sample.batchSizeAvg() / batchSize;
+			if (fill >= FULL_BATCH_RATIO && batchSize < this.maxBatchSize) {
+				updates.put(ProducerConfig.BATCH_SIZE_CONFIG, (int) Math.min(2L * batchSize, this.maxBatchSize));
+				reasons.add(String.format("batches are %.0f%% full", fill * PERCENT));
+			}
+			else if (fill < SMALL_BATCH_RATIO && sample.recordSendRate() >= this.highRecordRate
+					&& lingerMs < this.maxLingerMs) {
+
+				updates.put(ProducerConfig.LINGER_MS_CONFIG,
+						Math.min(Math.max(2 * lingerMs, MIN_LINGER_INCREMENT), this.maxLingerMs));
+				reasons.add(String.format("batches are %.0f%% full at %.0f records/second", fill * PERCENT,
+						sample.recordSendRate()));
+			}
+			else if (fill < EMPTY_BATCH_RATIO && sample.recordSendRate() < this.highRecordRate && lingerMs > 0) {
+				updates.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs / 2);
+				reasons.add(String.format("batches are %.0f%% full at %.0f records/second; linger.ms adds latency",
+						fill * PERCENT, sample.recordSendRate()));
+			}
+		}
+		if (compression != null && !NO_COMPRESSION.equals(compression.toString())
+				&& sample.compressionRateAvg() >= INCOMPRESSIBLE_RATIO) {
+
+			updates.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, NO_COMPRESSION);
+			reasons.add(String.format("%s compression only reduces the size to %.0f%%", compression,
+					sample.compressionRateAvg() * PERCENT));
+		}
+		return new Recommendation(Collections.unmodifiableMap(updates), Collections.unmodifiableList(reasons),
+				sample);
+	}
+
+	private static int intConfig(@Nullable Object value, int defaultValue) {
+		if (value instanceof Number number) {
+			return number.intValue();
+		}
+		else if (value instanceof String string) {
+			return Integer.parseInt(string.trim());
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Aggregated producer metrics.
+	 *
+	 * @param recordSendRate the records sent per second.
+	 * @param byteRate the bytes sent per second.
+	 * @param batchSizeAvg the average batch size (bytes).
+	 * @param recordQueueTimeAvg the average time (ms) records spend in the accumulator.
+	 * @param compressionRateAvg the average ratio of compressed to uncompressed batch size.
+	 * @param requestLatencyAvg the average request latency (ms).
+	 * @param topics the per-topic metrics.
+	 */
+	public record ProducerSample(double recordSendRate, double byteRate, double batchSizeAvg,
+			double recordQueueTimeAvg, double compressionRateAvg, double requestLatencyAvg,
+			Map<String, TopicSample> topics) {
+	}
+
+	/**
+	 * Aggregated per-topic producer metrics.
+	 *
+	 * @param recordSendRate the records sent per second.
+	 * @param byteRate the bytes sent per second.
+	 * @param compressionRate the average ratio of compressed to uncompressed batch size.
+	 */
+	public record TopicSample(double recordSendRate, double byteRate, double compressionRate) {
+	}
+
+	/**
+	 * A recommended configuration change.
+	 *
+	 * @param configs the producer properties to change.
+	 * @param reasons the reasons for the changes.
+	 * @param sample the sample the recommendation was derived from.
+	 */
+	public record Recommendation(Map<String, Object> configs, List<String> reasons, ProducerSample sample) {
+	}
+
+	private static final class Accumulator {
+
+		private final Map<String, Double> weighted = new HashMap<>();
+
+		private double rate;
+
+		private double bytes;
+
+		void add(double recordRate, double byteRate, Map<String, Double> values) {
+			this.rate += recordRate;
+			this.bytes += byteRate;
+			values.forEach((name, value) -> this.weighted.merge(name, value * recordRate, Double::sum));
+		}
+
+		double average(String name) {
+			Double total = this.weighted.get(name);
+			return total == null || this.rate == 0 ? Double.NaN : total / this.rate;
+		}
+
+	}
+
+}
@@ -18,9 +18,6 @@ package org.springframework.kafka.core;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
@@ -29,6 +26,7 @@ import org.apache.kafka.common.Metric;
 import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.TopicPartition;
 
+import org.springframework.kafka.support.TopicRouter;
 import org.springframework.util.Assert;
 
 /**
@@ -39,6 +37,7 @@ import org.springframework.util.Assert;
  *
  * @author Gary Russell
  * @author Nathan Xu
+ * @author agent
  * @since 2.5
  *
  */
@@ -46,9 +45,7 @@ public class RoutingKafkaTemplate extends KafkaTemplate<Object, Object> {
 
 	private static final String THIS_METHOD_IS_NOT_SUPPORTED = "This method is not supported";
 
-	private final Map<Pattern, ProducerFactory<Object, Object>> factoryMatchers;
-
-	private final ConcurrentMap<String, ProducerFactory<Object, Object>> factoryMap = new ConcurrentHashMap<>();
+	private final TopicRouter<ProducerFactory<Object, Object>> router;
 
 	/**
 	 * Construct an instance with the provided properties. The topic patterns will be
@@ -57,12 +54,36 @@ public class RoutingKafkaTemplate extends KafkaTemplate<Object, Object> {
 	 * @param factories the factories.
 	 */
 	public RoutingKafkaTemplate(Map<Pattern, ProducerFactory<Object, Object>> factories) {
+		this(factories, TopicRouter.DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Construct an instance with the provided properties. The topic patterns will be
+	 * traversed in order so an ordered map, such as {@link LinkedHashMap} should be used
+	 * with more specific patterns declared first.
+	 * @param factories the factories.
+	 * @param cacheSize the maximum number of topics for which the selected factory is
+	 * cached.
+	 * @since 3.1
+	 * @see TopicRouter
+	 */
+	public RoutingKafkaTemplate(Map<Pattern, ProducerFactory<Object, Object>> factories, int cacheSize) {
 		super(() -> {
 			throw new UnsupportedOperationException();
 		});
 		Assert.isTrue(factories.values().stream().noneMatch(ProducerFactory::transactionCapable),
 					"Transactional factories are not supported");
-		this.factoryMatchers = new LinkedHashMap<>(factories);
+		this.router = new TopicRouter<>(new LinkedHashMap<>(factories), cacheSize);
+	}
+
+	/**
+	 * Return the router used to select the factory for a topic; it can be used to monitor
+	 * the cache hit rate.
+	 * @return the router.
+	 * @since 3.1
+	 */
+	public TopicRouter<ProducerFactory<Object, Object>> getTopicRouter() {
+		return this.router;
 	}
 
 	@Override
@@ -72,14 +93,7 @@ public class RoutingKafkaTemplate extends KafkaTemplate<Object, Object> {
 
 	@Override
 	public ProducerFactory<Object, Object> getProducerFactory(String topic) {
-		ProducerFactory<Object, Object> producerFactory = this.factoryMap.computeIfAbsent(topic, key -> {
-			for (Entry<Pattern, ProducerFactory<Object, Object>> entry : this.factoryMatchers.entrySet()) {
-				if (entry.getKey().matcher(topic).matches()) {
-					return entry.getValue();
-				}
-			}
-			return null;
-		});
+		ProducerFactory<Object, Object> producerFactory = this.router.route(topic);
 		Assert.state(producerFactory != null, "No producer factory found for topic: " + topic);
 		return producerFactory;
 	}
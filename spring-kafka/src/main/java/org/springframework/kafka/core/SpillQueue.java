@@ -0,0 +1,143 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.core;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.kafka.support.SendResult;
+
+/**
+ * A bounded queue of records that could not be sent without blocking the caller; the
+ * records are sent, in order, by a dedicated thread, which may block.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+final class SpillQueue<K, V> {
+
+	private final BlockingQueue<Spilled<K, V>> queue;
+
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private final Function<ProducerRecord<K, V>, CompletableFuture<SendResult<K, V>>> sender;
+
+	private volatile boolean running = true;
+
+	SpillQueue(int capacity, Function<ProducerRecord<K, V>, CompletableFuture<SendResult<K, V>>> sender,
+			TaskExecutor executor) {
+
+		this.queue = new LinkedBlockingQueue<>(capacity);
+		this.sender = sender;
+		executor.execute(this::drain);
+	}
+
+	/**
+	 * Add a record to the queue.
+	 * @param record the record.
+	 * @param future the future to complete when the record has been sent.
+	 * @return false if the queue is full or stopped.
+	 */
+	boolean offer(ProducerRecord<K, V> record, CompletableFuture<SendResult<K, V>> future) {
+		if (!this.running) {
+			return false;
+		}
+		this.pending.incrementAndGet();
+		if (this.queue.offer(new Spilled<>(record, future))) {
+			return true;
+		}
+		this.pending.decrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Return the number of records queued or being sent.
+	 * @return the number.
+	 */
+	int size() {
+		return this.pending.get();
+	}
+
+	boolean isEmpty() {
+		return this.pending.get() == 0;
+	}
+
+	/**
+	 * Stop the sending thread and fail the futures of records that have not been sent.
+	 */
+	void stop() {
+		this.running = false;
+		Spilled<K, V> spilled = this.queue.poll();
+		while (spilled != null) {
+			spilled.future().completeExceptionally(new KafkaProducerException(spilled.record(),
+					"Template destroyed before the record was sent", null));
+			this.pending.decrementAndGet();
+			spilled = this.queue.poll();
+		}
+	}
+
+	private void drain() {
+		while (this.running) {
+			try {
+				Spilled<K, V> spilled = this.queue.poll(1, TimeUnit.SECONDS);
+				if (spilled != null) {
+					send(spilled);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				stop();
+			}
+		}
+	}
+
+	private void send(Spilled<K, V> spilled) {
+		CompletableFuture<SendResult<K, V>> sent;
+		try {
+			sent = this.sender.apply(spilled.record());
+		}
+		catch (RuntimeException ex) {
+			this.pending.decrementAndGet();
+			spilled.future().completeExceptionally(ex);
+			return;
+		}
+		this.pending.decrementAndGet();
+		sent.whenComplete((result, ex) -> {
+			if (ex == null) {
+				spilled.future().complete(result);
+			}
+			else {
+				spilled.future().completeExceptionally(ex);
+			}
+		});
+	}
+
+	private record Spilled<K, V>(ProducerRecord<K, V> record, CompletableFuture<SendResult<K, V>> future) {
+	}
+
+}
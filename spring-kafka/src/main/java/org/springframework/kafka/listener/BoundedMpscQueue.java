@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * A lock-free, bounded, multi-producer, single-consumer queue backed by a ring buffer;
+ * no objects are allocated when elements are added. Each slot carries a sequence number
+ * that tells producers when it is free and the consumer when it has been published.
+ * <p>
+ * Only one thread may call {@link #poll()} and {@link #drain(Consumer)}.
+ *
+ * @param <E> the element type.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+final class BoundedMpscQueue<E> {
+
+	private static final int SPINS = 100;
+
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private final Object[] buffer;
+
+	private final AtomicLongArray sequences;
+
+	private final int mask;
+
+	private final AtomicLong tail = new AtomicLong();
+
+	private volatile long head;
+
+	/**
+	 * Construct an instance with the provided capacity, rounded up to a power of two.
+	 * @param capacity the capacity.
+	 */
+	BoundedMpscQueue(int capacity) {
+		Assert.isTrue(capacity > 0 && capacity <= 1 << 30, "'capacity' must be between 1 and 2^30");
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.buffer = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			this.sequences.set(i, i);
+		}
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Add the element if there is space.
+	 * @param element the element.
+	 * @return true if added, false if the queue is full.
+	 */
+	boolean offer(E element) {
+		Assert.notNull(element, "'element' cannot be null");
+		long position = this.tail.get();
+		while (true) {
+			int index = (int) position & this.mask;
+			long available = this.sequences.get(index) - position;
+			if (available == 0) {
+				if (this.tail.compareAndSet(position, position + 1)) {
+					this.buffer[index] = element;
+					this.sequences.set(index, position + 1);
+					return true;
+				}
+			}
+			else if (available < 0) {
+				return false;
+			}
+			position = this.tail.get();
+		}
+	}
+
+	/**
+	 * Add the element, waiting for space if necessary.
+	 * @param element the element.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	void put(E element) throws InterruptedException {
+		int spins = 0;
+		while (!offer(element)) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			if (spins++ < SPINS) {
+				Thread.onSpinWait();
+			}
+			else {
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+		}
+	}
+
+	/**
+	 * Remove the oldest element; consumer thread only.
+	 * @return the element or null if the queue is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	E poll() {
+		long position = this.head;
+		int index = (int) position & this.mask;
+		if (this.sequences.get(index) != position + 1) {
+			return null;
+		}
+		E element = (E) this.buffer[index];
+		this.buffer[index] = null;
+		this.sequences.set(index, position + this.buffer.length);
+		this.head = position + 1;
+		return element;
+	}
+
+	/**
+	 * Remove all the available elements, passing each to the consumer; consumer thread
+	 * only.
+	 * @param consumer the consumer.
+	 * @return the number of elements removed.
+	 */
+	int drain(Consumer<? super E> consumer) {
+		int count = 0;
+		E element = poll();
+		while (element != null) {
+			consumer.accept(element);
+			count++;
+			element = poll();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the (approximate, if producers are active) number of elements.
+	 * @return the size.
+	 */
+	int size() {
+		long size = this.tail.get() - this.head;
+		return (int) Math.max(0, Math.min(size, this.buffer.length));
+	}
+
+	/**
+	 * Return true if there are no elements.
+	 * @return true if empty.
+	 */
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Return the capacity.
+	 * @return the capacity.
+	 */
+	int capacity() {
+		return this.buffer.length;
+	}
+
+}
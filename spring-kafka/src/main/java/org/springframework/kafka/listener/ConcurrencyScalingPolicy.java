@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+/**
+ * A policy to determine the number of consumers a
+ * {@link ConcurrentMessageListenerContainer} should run, based on the current consumer
+ * metrics. The container invokes the policy periodically and adds or removes child
+ * containers, one at a time, to move towards the result, within the configured bounds.
+ *
+ * @author agent
+ * @since 3.1
+ * @see ConcurrentMessageListenerContainer#setConcurrencyScalingPolicy(ConcurrencyScalingPolicy)
+ */
+@FunctionalInterface
+public interface ConcurrencyScalingPolicy {
+
+	/**
+	 * Determine the desired number of consumers.
+	 * @param metrics the current metrics.
+	 * @return the desired number of consumers; the container clamps it to the
+	 * configured minimum and maximum and to the number of assigned partitions.
+	 */
+	int determineConcurrency(ScalingMetrics metrics);
+
+	/**
+	 * A snapshot of the container's consumer metrics.
+	 *
+	 * @param concurrency the current number of consumers.
+	 * @param partitions the number of partitions assigned to the consumers.
+	 * @param lag the total lag across the assigned partitions.
+	 * @param busyRatio the average fraction of time the consumer threads spend outside
+	 * {@code poll()} (processing records), between 0 and 1.
+	 * @param timeBetweenPolls the average time between polls, in milliseconds.
+	 */
+	record ScalingMetrics(int concurrency, int partitions, long lag, double busyRatio, double timeBetweenPolls) {
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.kafka.listener;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -23,7 +24,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -37,8 +43,13 @@ import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.event.ConsumerStoppedEvent.Reason;
+import org.springframework.kafka.listener.ConcurrencyScalingPolicy.ScalingMetrics;
+import org.springframework.kafka.support.KafkaUtils;
 import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.micrometer.MicrometerHolder;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.Assert;
 
 /**
@@ -58,14 +69,35 @@ import org.springframework.util.Assert;
  * @author Artem Bilan
  * @author Vladimir Tsanev
  * @author Tomaz Fernandes
+ * @author agent
  */
 public class ConcurrentMessageListenerContainer<K, V> extends AbstractMessageListenerContainer<K, V> {
 
-	private final List<KafkaMessageListenerContainer<K, V>> containers = new ArrayList<>();
+	/**
+	 * The default {@link #setScalingInterval(Duration) scalingInterval}.
+	 */
+	public static final Duration DEFAULT_SCALING_INTERVAL = Duration.ofSeconds(30);
+
+	/**
+	 * The default {@link #setScalingCooldown(Duration) scalingCooldown}.
+	 */
+	public static final Duration DEFAULT_SCALING_COOLDOWN = Duration.ofMinutes(1);
+
+	private static final String RECORDS_LAG = "records-lag";
+
+	private static final String POLL_IDLE_RATIO = "poll-idle-ratio-avg";
+
+	private static final String TIME_BETWEEN_POLLS = "time-between-poll-avg";
+
+	private final List<KafkaMessageListenerContainer<K, V>> containers = new CopyOnWriteArrayList<>();
 
 	private final List<AsyncTaskExecutor> executors = new ArrayList<>();
 
-	private final AtomicInteger stoppedContainers = new AtomicInteger();
+	private final Set<MessageListenerContainer> stoppedContainers = ConcurrentHashMap.newKeySet();
+
+	private final Set<MessageListenerContainer> retiredContainers = ConcurrentHashMap.newKeySet();
+
+	private final Map<MessageListenerContainer, Integer> childIndexes = new ConcurrentHashMap<>();
 
 	private int concurrency = 1;
 
@@ -73,6 +105,30 @@ public class ConcurrentMessageListenerContainer<K, V> extends AbstractMessageLis
 
 	private volatile Reason reason;
 
+	@Nullable
+	private ConcurrencyScalingPolicy concurrencyScalingPolicy;
+
+	private int minConcurrency = 1;
+
+	private int maxConcurrency;
+
+	private Duration scalingInterval = DEFAULT_SCALING_INTERVAL;
+
+	private Duration scalingCooldown = DEFAULT_SCALING_COOLDOWN;
+
+	@Nullable
+	private ScheduledFuture<?> scalingTask;
+
+	@Nullable
+	private ThreadPoolTaskScheduler createdScalingScheduler;
+
+	@Nullable
+	private MicrometerHolder scalingMicrometerHolder;
+
+	private volatile int desiredConcurrency;
+
+	private long lastScaled;
+
 	/**
 	 * Construct an instance with the supplied configuration properties.
 	 * The topic partitions are distributed evenly across the delegate
@@ -95,12 +151,100 @@ public class ConcurrentMessageListenerContainer<K, V> extends AbstractMessageLis
 	 * The maximum number of concurrent {@link KafkaMessageListenerContainer}s running.
 	 * Messages from within the same partition will be processed sequentially.
 	 * @param concurrency the concurrency.
+	 * @see #scaleConcurrency(int)
 	 */
 	public void setConcurrency(int concurrency) {
 		Assert.isTrue(concurrency > 0, "concurrency must be greater than 0");
 		this.concurrency = concurrency;
 	}
 
+	/**
+	 * Change the number of concurrent {@link KafkaMessageListenerContainer}s. When the
+	 * container is running and the partitions are assigned by the group coordinator,
+	 * consumers are added or removed immediately; otherwise this is the same as
+	 * {@link #setConcurrency(int)} and the change takes effect when the container is
+	 * next started.
+	 * @param concurrency the concurrency.
+	 * @since 3.1
+	 */
+	public void scaleConcurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0, "concurrency must be greater than 0");
+		this.lifecycleLock.lock();
+		try {
+			if (isRunning() && getContainerProperties().getTopicPartitions() == null) {
+				scaleTo(concurrency);
+			}
+			else {
+				this.concurrency = concurrency;
+			}
+		}
+		finally {
+			this.lifecycleLock.unlock();
+		}
+	}
+
+	/**
+	 * Set a policy to adjust the number of consumers while the container is running,
+	 * based on the consumer lag, busy ratio and time between polls. Ignored when
+	 * specific partitions are assigned.
+	 * @param concurrencyScalingPolicy the policy.
+	 * @since 3.1
+	 * @see LagConcurrencyScalingPolicy
+	 */
+	public void setConcurrencyScalingPolicy(@Nullable ConcurrencyScalingPolicy concurrencyScalingPolicy) {
+		this.concurrencyScalingPolicy = concurrencyScalingPolicy;
+	}
+
+	/**
+	 * Set the minimum number of consumers when a
+	 * {@link #setConcurrencyScalingPolicy(ConcurrencyScalingPolicy) scaling policy} is
+	 * provided; default 1.
+	 * @param minConcurrency the minimum.
+	 * @since 3.1
+	 */
+	public void setMinConcurrency(int minConcurrency) {
+		Assert.isTrue(minConcurrency > 0, "'minConcurrency' must be greater than 0");
+		this.minConcurrency = minConcurrency;
+	}
+
+	/**
+	 * Set the maximum number of consumers when a
+	 * {@link #setConcurrencyScalingPolicy(ConcurrencyScalingPolicy) scaling policy} is
+	 * provided; default 0, meaning the number of assigned partitions. The number of
+	 * consumers never exceeds the number of assigned partitions.
+	 * @param maxConcurrency the maximum.
+	 * @since 3.1
+	 */
+	public void setMaxConcurrency(int maxConcurrency) {
+		Assert.isTrue(maxConcurrency >= 0, "'maxConcurrency' cannot be negative");
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	/**
+	 * Set the interval between invocations of the
+	 * {@link #setConcurrencyScalingPolicy(ConcurrencyScalingPolicy) scaling policy};
+	 * default {@link #DEFAULT_SCALING_INTERVAL}. The container's
+	 * {@link ContainerProperties#setScheduler(TaskScheduler) scheduler} is used, if
+	 * provided.
+	 * @param scalingInterval the interval.
+	 * @since 3.1
+	 */
+	public void setScalingInterval(Duration scalingInterval) {
+		Assert.notNull(scalingInterval, "'scalingInterval' cannot be null");
+		this.scalingInterval = scalingInterval;
+	}
+
+	/**
+	 * Set the minimum time between adding or removing consumers, to allow the group to
+	 * rebalance and the metrics to settle; default {@link #DEFAULT_SCALING_COOLDOWN}.
+	 * @param scalingCooldown the cooldown.
+	 * @since 3.1
+	 */
+	public void setScalingCooldown(Duration scalingCooldown) {
+		Assert.notNull(scalingCooldown, "'scalingCooldown' cannot be null");
+		this.scalingCooldown = scalingCooldown;
+	}
+
 	/**
 	 * Set to false to suppress adding a suffix to the child container's client.id when
 	 * the concurrency is only 1.
@@ -255,14 +399,207 @@ public class ConcurrentMessageListenerContainer<K, V> extends AbstractMessageLis
 				container.start();
 				this.containers.add(container);
 			}
+			if (this.concurrencyScalingPolicy != null && topicPartitions == null) {
+				startScaling();
+			}
 		}
 	}
 
+	private void startScaling() {
+		TaskScheduler scheduler = getContainerProperties().getScheduler();
+		if (scheduler == null) {
+			ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
+			String beanName = getBeanName();
+			threadPoolTaskScheduler.setThreadNamePrefix((beanName == null ? "consumer" : beanName) + "-scaler-");
+			threadPoolTaskScheduler.initialize();
+			this.createdScalingScheduler = threadPoolTaskScheduler;
+			scheduler = threadPoolTaskScheduler;
+		}
+		this.desiredConcurrency = this.concurrency;
+		this.lastScaled = System.currentTimeMillis();
+		this.scalingMicrometerHolder = obtainScalingMicrometerHolder();
+		this.scalingTask = scheduler.scheduleWithFixedDelay(this::evaluateConcurrency, this.scalingInterval);
+	}
+
+	@Nullable
+	private MicrometerHolder obtainScalingMicrometerHolder() {
+		ContainerProperties containerProperties = getContainerProperties();
+		if (KafkaUtils.MICROMETER_PRESENT && containerProperties.isMicrometerEnabled()) {
+			try {
+				String beanName = getBeanName();
+				MicrometerHolder holder = new MicrometerHolder(getApplicationContext(),
+						beanName == null ? "consumer" : beanName, "spring.kafka.listener.scaling",
+						"Kafka Listener Concurrency Scaling", cr -> containerProperties.getMicrometerTags());
+				holder.gauge("spring.kafka.listener.concurrency", "Current number of consumers", this,
+						container -> container.containers.size());
+				holder.gauge("spring.kafka.listener.concurrency.desired",
+						"Number of consumers determined by the scaling policy", this,
+						container -> container.desiredConcurrency);
+				return holder;
+			}
+			catch (@SuppressWarnings("unused") IllegalStateException ex) {
+				// NOSONAR - no micrometer or meter registry
+			}
+		}
+		return null;
+	}
+
+	private void stopScaling() {
+		if (this.scalingTask != null) {
+			this.scalingTask.cancel(false);
+			this.scalingTask = null;
+		}
+		if (this.createdScalingScheduler != null) {
+			this.createdScalingScheduler.destroy();
+			this.createdScalingScheduler = null;
+		}
+		if (this.scalingMicrometerHolder != null) {
+			this.scalingMicrometerHolder.destroy();
+			this.scalingMicrometerHolder = null;
+		}
+	}
+
+	/**
+	 * Invoke the scaling policy and add or remove one consumer, if needed, unless the
+	 * cooldown has not elapsed since the last change.
+	 */
+	void evaluateConcurrency() {
+		ConcurrencyScalingPolicy policy = this.concurrencyScalingPolicy;
+		MicrometerHolder holder = this.scalingMicrometerHolder;
+		Object sample = holder == null ? null : holder.start();
+		this.lifecycleLock.lock();
+		try {
+			if (policy == null || !isRunning() || isPaused()) {
+				return;
+			}
+			ScalingMetrics metrics = scalingMetrics();
+			if (metrics.partitions() == 0) {
+				return;
+			}
+			int max = this.maxConcurrency > 0
+					? Math.min(this.maxConcurrency, metrics.partitions())
+					: metrics.partitions();
+			int desired = Math.max(this.minConcurrency, Math.min(policy.determineConcurrency(metrics), max));
+			this.desiredConcurrency = desired;
+			int current = this.containers.size();
+			long now = System.currentTimeMillis();
+			if (desired != current && now - this.lastScaled >= this.scalingCooldown.toMillis()) {
+				this.logger.info(() -> "Scaling from " + current + " to " + desired + " consumers: " + metrics);
+				scaleTo(desired > current ? current + 1 : current - 1);
+				this.lastScaled = now;
+			}
+			if (sample != null) {
+				holder.success(sample);
+			}
+		}
+		catch (RuntimeException ex) {
+			this.logger.error(ex, "Failed to evaluate the concurrency");
+			if (sample != null) {
+				holder.failure(sample, ex.getClass().getSimpleName());
+			}
+		}
+		finally {
+			this.lifecycleLock.unlock();
+		}
+	}
+
+	/*
+	 * Under lifecycle lock.
+	 */
+	private ScalingMetrics scalingMetrics() {
+		int partitions = 0;
+		long lag = 0;
+		double busy = 0;
+		double timeBetweenPolls = 0;
+		int reporting = 0;
+		for (KafkaMessageListenerContainer<K, V> container : this.containers) {
+			Collection<TopicPartition> assigned = container.getAssignedPartitions();
+			if (assigned != null) {
+				partitions += assigned.size();
+			}
+			double idleRatio = Double.NaN;
+			double between = Double.NaN;
+			for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+				for (Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+					String name = entry.getKey().name();
+					if (RECORDS_LAG.equals(name) && entry.getKey().tags().containsKey("partition")) {
+						double value = metricValue(entry.getValue());
+						if (!Double.isNaN(value)) {
+							lag += (long) value;
+						}
+					}
+					else if (POLL_IDLE_RATIO.equals(name)) {
+						idleRatio = metricValue(entry.getValue());
+					}
+					else if (TIME_BETWEEN_POLLS.equals(name)) {
+						between = metricValue(entry.getValue());
+					}
+				}
+			}
+			if (!Double.isNaN(idleRatio) && !Double.isNaN(between)) {
+				busy += 1 - idleRatio;
+				timeBetweenPolls += between;
+				reporting++;
+			}
+		}
+		if (reporting > 0) {
+			busy /= reporting;
+			timeBetweenPolls /= reporting;
+		}
+		return new ScalingMetrics(this.containers.size(), partitions, lag, busy, timeBetweenPolls);
+	}
+
+	private static double metricValue(Metric metric) {
+		Object value = metric.metricValue();
+		return value instanceof Number number ? number.doubleValue() : Double.NaN;
+	}
+
+	/*
+	 * Under lifecycle lock; add or remove consumers; with the cooperative sticky
+	 * assignor, only the partitions of added or removed consumers are moved. An added
+	 * consumer gets the lowest index (used for the bean name, client.id and
+	 * group.instance.id suffixes) that is not used by a running or stopping consumer.
+	 */
+	private void scaleTo(int target) {
+		int current = this.containers.size();
+		this.concurrency = target;
+		ContainerProperties containerProperties = getContainerProperties();
+		for (int i = current; i < target; i++) {
+			int index = nextChildIndex();
+			KafkaMessageListenerContainer<K, V> container = constructContainer(containerProperties, null, index);
+			configureChildContainer(index, container);
+			if (isPaused()) {
+				container.pause();
+			}
+			container.start();
+			this.containers.add(container);
+		}
+		for (int i = current - 1; i >= target; i--) {
+			KafkaMessageListenerContainer<K, V> container = this.containers.remove(i);
+			this.stoppedContainers.remove(container);
+			this.retiredContainers.add(container);
+			container.stop(() -> {
+				this.retiredContainers.remove(container);
+				this.childIndexes.remove(container);
+			});
+		}
+	}
+
+	private int nextChildIndex() {
+		Collection<Integer> used = this.childIndexes.values();
+		int index = 0;
+		while (used.contains(index)) {
+			index++;
+		}
+		return index;
+	}
+
 	@SuppressWarnings("deprecation")
 	private void configureChildContainer(int index, KafkaMessageListenerContainer<K, V> container) {
 		String beanName = getBeanName();
 		beanName = (beanName == null ? "consumer" : beanName) + "-" + index;
 		container.setBeanName(beanName);
+		this.childIndexes.put(container, index);
 		ApplicationContext applicationContext = getApplicationContext();
 		if (applicationContext != null) {
 			container.setApplicationContext(applicationContext);
@@ -366,22 +703,31 @@ public class ConcurrentMessageListenerContainer<K, V> extends AbstractMessageLis
 					}
 				}
 			}
+			this.containers.forEach(this.childIndexes::remove);
 			this.containers.clear();
+			stopScaling();
 			setStoppedNormally(normal);
 		}
 	}
 
 	@Override
 	public void childStopped(MessageListenerContainer child, Reason reason) {
+		if (this.retiredContainers.remove(child)) {
+			return; // removed by scaling
+		}
 		if (this.reason == null || reason.equals(Reason.AUTH)) {
 			this.reason = reason;
 		}
+		if (this.containers.contains(child)) {
+			this.stoppedContainers.add(child);
+		}
 		if (Reason.AUTH.equals(this.reason)
 				&& getContainerProperties().isRestartAfterAuthExceptions()
-				&& this.concurrency == this.stoppedContainers.incrementAndGet()) {
+				&& !this.containers.isEmpty()
+				&& this.stoppedContainers.containsAll(this.containers)) {
 
 			this.reason = null;
-			this.stoppedContainers.set(0);
+			this.stoppedContainers.clear();
 
 			// This has to run on another thread to avoid a deadlock on lifecycleMonitor
 			AsyncTaskExecutor exec = getContainerProperties().getListenerTaskExecutor();
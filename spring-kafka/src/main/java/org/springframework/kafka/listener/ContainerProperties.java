@@ -51,6 +51,7 @@ import org.springframework.util.CollectionUtils;
  * @author Johnny Lim
  * @author Lukasz Kaminski
  * @author Kyuhyeok Park
+ * @author agent
  */
 public class ContainerProperties extends ConsumerProperties {
 
@@ -156,6 +157,27 @@ public class ContainerProperties extends ConsumerProperties {
 
 	}
 
+	/**
+	 * How records are assigned to worker threads when
+	 * {@link ContainerProperties#setParallelism(int) parallelism} is greater than one.
+	 *
+	 * @since 3.1
+	 */
+	public enum ParallelOrdering {
+
+		/**
+		 * Records with the same key are processed in order, on the same worker; records
+		 * with a {@code null} key are ordered by partition.
+		 */
+		KEY,
+
+		/**
+		 * Records from the same partition are processed in order, on the same worker.
+		 */
+		PARTITION
+
+	}
+
 	/**
 	 * The default {@link #setShutdownTimeout(long) shutDownTimeout} (ms).
 	 */
@@ -171,6 +193,12 @@ public class ContainerProperties extends ConsumerProperties {
 	 */
 	public static final float DEFAULT_NO_POLL_THRESHOLD = 3f;
 
+	/**
+	 * The default {@link #setAckQueueCapacity(int) ackQueueCapacity}.
+	 * @since 3.1
+	 */
+	public static final int DEFAULT_ACK_QUEUE_CAPACITY = 8192;
+
 	private static final Duration DEFAULT_CONSUMER_START_TIMEOUT = Duration.ofSeconds(30);
 
 	private static final int DEFAULT_ACK_TIME = 5000;
@@ -300,6 +328,38 @@ public class ContainerProperties extends ConsumerProperties {
 
 	private boolean restartAfterAuthExceptions;
 
+	private int parallelism = 1;
+
+	private ParallelOrdering parallelOrdering = ParallelOrdering.KEY;
+
+	private AsyncTaskExecutor parallelTaskExecutor;
+
+	private boolean virtualThreads;
+
+	private Duration commitCoalesceInterval;
+
+	private int commitCoalesceCount;
+
+	private long commitCoalesceBytes;
+
+	private int maxInFlightAsyncCommits;
+
+	private int pipelineDepth;
+
+	private int ackQueueCapacity = DEFAULT_ACK_QUEUE_CAPACITY;
+
+	private Duration revocationDrainTimeout;
+
+	private boolean deferredDeserialization;
+
+	private boolean phaseMetricsEnabled;
+
+	private boolean phaseEventsEnabled;
+
+	private int transactionBatchSize = 1;
+
+	private Duration transactionBatchTimeout;
+
 	/**
 	 * Create properties for a container that will subscribe to the specified topics.
 	 * @param topics the topics.
@@ -1031,6 +1091,427 @@ public class ContainerProperties extends ConsumerProperties {
 		this.restartAfterAuthExceptions = restartAfterAuthExceptions;
 	}
 
+	/**
+	 * Return the number of workers used to process the records returned by each poll.
+	 * @return the parallelism.
+	 * @since 3.1
+	 * @see #setParallelism(int)
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Set to a value greater than one to dispatch the records returned by each poll to
+	 * this number of workers, instead of invoking a record listener serially on the
+	 * consumer thread. Ordering is preserved according to the
+	 * {@link #setParallelOrdering(ParallelOrdering) parallelOrdering}. Completions are
+	 * tracked as with {@link #setAsyncAcks(boolean) asyncAcks}; offsets are only committed
+	 * up to the lowest contiguous completed offset in each partition and the consumer is
+	 * paused until all the records from the previous poll have been processed. Not
+	 * supported with batch listeners, transactions, {@link AckMode#RECORD} or auto
+	 * commit. The listener and error handler are invoked on the worker threads so must
+	 * not perform operations on the {@code Consumer}. Default 1.
+	 * @param parallelism the parallelism.
+	 * @since 3.1
+	 * @see #setParallelOrdering(ParallelOrdering)
+	 * @see #setParallelTaskExecutor(AsyncTaskExecutor)
+	 */
+	public void setParallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0, "'parallelism' must be greater than 0");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Return how records are assigned to workers when the
+	 * {@link #setParallelism(int) parallelism} is greater than one.
+	 * @return the ordering.
+	 * @since 3.1
+	 */
+	public ParallelOrdering getParallelOrdering() {
+		return this.parallelOrdering;
+	}
+
+	/**
+	 * Set how records are assigned to workers when the {@link #setParallelism(int)
+	 * parallelism} is greater than one. Default {@link ParallelOrdering#KEY}.
+	 * @param parallelOrdering the ordering.
+	 * @since 3.1
+	 */
+	public void setParallelOrdering(ParallelOrdering parallelOrdering) {
+		Assert.notNull(parallelOrdering, "'parallelOrdering' cannot be null");
+		this.parallelOrdering = parallelOrdering;
+	}
+
+	/**
+	 * Return the executor used to run the workers when the {@link #setParallelism(int)
+	 * parallelism} is greater than one.
+	 * @return the executor.
+	 * @since 3.1
+	 */
+	@Nullable
+	public AsyncTaskExecutor getParallelTaskExecutor() {
+		return this.parallelTaskExecutor;
+	}
+
+	/**
+	 * Set the executor used to run the workers when the {@link #setParallelism(int)
+	 * parallelism} is greater than one; no more than {@code parallelism} tasks are
+	 * submitted concurrently by each consumer. When not provided, each consumer creates
+	 * (and destroys) its own thread pool.
+	 * @param parallelTaskExecutor the executor.
+	 * @since 3.1
+	 */
+	public void setParallelTaskExecutor(@Nullable AsyncTaskExecutor parallelTaskExecutor) {
+		this.parallelTaskExecutor = parallelTaskExecutor;
+	}
+
+	/**
+	 * Return true if the listener is invoked on virtual threads.
+	 * @return true for virtual threads.
+	 * @since 3.1
+	 * @see #setVirtualThreads(boolean)
+	 */
+	public boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	/**
+	 * Set to true to invoke the listener on virtual threads (requires Java 21 or later)
+	 * while the consumer continues to poll on its own (platform) thread; blocking
+	 * listeners then do not tie up a platform thread for each consumer. The records are
+	 * dispatched as described in {@link #setParallelism(int)}, even when the
+	 * parallelism is one, with the same restrictions. Ignored if a
+	 * {@link #setParallelTaskExecutor(AsyncTaskExecutor) parallelTaskExecutor} is
+	 * provided. Default false.
+	 * @param virtualThreads true to use virtual threads.
+	 * @since 3.1
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * Return the maximum time that acknowledged offsets are held before being committed
+	 * when commit coalescing is enabled.
+	 * @return the interval.
+	 * @since 3.1
+	 * @see #setCommitCoalesceInterval(Duration)
+	 */
+	@Nullable
+	public Duration getCommitCoalesceInterval() {
+		return this.commitCoalesceInterval;
+	}
+
+	/**
+	 * When using {@link AckMode#RECORD} or {@link AckMode#MANUAL_IMMEDIATE}, instead of
+	 * committing the offset for each acknowledged record, hold the offsets for up to this
+	 * time and commit the latest offset for each partition in one request. The window is
+	 * checked on each pass of the consumer loop, so the actual delay can be up to the
+	 * {@link #setPollTimeout(long) pollTimeout} longer. Offsets are still committed
+	 * before partitions are revoked and when the container stops, so at least once
+	 * semantics are retained, but more records might be redelivered after a failure.
+	 * Not applied with transactions. Setting any of this, the
+	 * {@link #setCommitCoalesceCount(int) commitCoalesceCount} or the
+	 * {@link #setCommitCoalesceBytes(long) commitCoalesceBytes} enables coalescing; the
+	 * offsets are committed when the first limit is reached.
+	 * @param commitCoalesceInterval the interval.
+	 * @since 3.1
+	 */
+	public void setCommitCoalesceInterval(@Nullable Duration commitCoalesceInterval) {
+		Assert.isTrue(commitCoalesceInterval == null || !commitCoalesceInterval.isNegative(),
+				"'commitCoalesceInterval' cannot be negative");
+		this.commitCoalesceInterval = commitCoalesceInterval;
+	}
+
+	/**
+	 * Return the number of acknowledged records after which coalesced offsets are
+	 * committed.
+	 * @return the count.
+	 * @since 3.1
+	 * @see #setCommitCoalesceCount(int)
+	 */
+	public int getCommitCoalesceCount() {
+		return this.commitCoalesceCount;
+	}
+
+	/**
+	 * Set the number of acknowledged records after which coalesced offsets are committed;
+	 * 0 for no count limit. Default 0.
+	 * @param commitCoalesceCount the count.
+	 * @since 3.1
+	 * @see #setCommitCoalesceInterval(Duration)
+	 */
+	public void setCommitCoalesceCount(int commitCoalesceCount) {
+		Assert.isTrue(commitCoalesceCount >= 0, "'commitCoalesceCount' cannot be negative");
+		this.commitCoalesceCount = commitCoalesceCount;
+	}
+
+	/**
+	 * Return the serialized size of the acknowledged records (keys and values) after
+	 * which coalesced offsets are committed.
+	 * @return the number of bytes.
+	 * @since 3.1
+	 * @see #setCommitCoalesceBytes(long)
+	 */
+	public long getCommitCoalesceBytes() {
+		return this.commitCoalesceBytes;
+	}
+
+	/**
+	 * Set the serialized size of the acknowledged records (keys and values) after which
+	 * coalesced offsets are committed; 0 for no size limit. Default 0.
+	 * @param commitCoalesceBytes the number of bytes.
+	 * @since 3.1
+	 * @see #setCommitCoalesceInterval(Duration)
+	 */
+	public void setCommitCoalesceBytes(long commitCoalesceBytes) {
+		Assert.isTrue(commitCoalesceBytes >= 0, "'commitCoalesceBytes' cannot be negative");
+		this.commitCoalesceBytes = commitCoalesceBytes;
+	}
+
+	/**
+	 * Return the maximum number of outstanding asynchronous commits.
+	 * @return the maximum.
+	 * @since 3.1
+	 * @see #setMaxInFlightAsyncCommits(int)
+	 */
+	public int getMaxInFlightAsyncCommits() {
+		return this.maxInFlightAsyncCommits;
+	}
+
+	/**
+	 * When {@link #setSyncCommits(boolean) syncCommits} is false, the maximum number of
+	 * asynchronous commits that can be awaiting a result; when this number is reached,
+	 * the next commit is performed synchronously, blocking the consumer thread until the
+	 * broker catches up. 0 for no limit. Default 0.
+	 * @param maxInFlightAsyncCommits the maximum.
+	 * @since 3.1
+	 */
+	public void setMaxInFlightAsyncCommits(int maxInFlightAsyncCommits) {
+		Assert.isTrue(maxInFlightAsyncCommits >= 0, "'maxInFlightAsyncCommits' cannot be negative");
+		this.maxInFlightAsyncCommits = maxInFlightAsyncCommits;
+	}
+
+	/**
+	 * Return the number of polled batches that can be waiting for, or being processed
+	 * by, the listener in pipelined mode.
+	 * @return the depth.
+	 * @since 3.1
+	 * @see #setPipelineDepth(int)
+	 */
+	public int getPipelineDepth() {
+		return this.pipelineDepth;
+	}
+
+	/**
+	 * Set to a positive number to enable pipelined polling for a batch listener; the
+	 * consumer thread keeps polling while a processing thread invokes the listener, so
+	 * fetching and deserialization overlap with processing. This is the maximum number
+	 * of polled batches that can be waiting for, or being processed by, the listener;
+	 * when it is reached, the consumer is paused (and continues to poll) until the
+	 * listener catches up. Commits, seeks and error handling are still performed on the
+	 * consumer thread. Not supported with transactions, auto commit, or record
+	 * listeners. Default 0 (disabled).
+	 * @param pipelineDepth the depth.
+	 * @since 3.1
+	 */
+	public void setPipelineDepth(int pipelineDepth) {
+		Assert.isTrue(pipelineDepth >= 0, "'pipelineDepth' cannot be negative");
+		this.pipelineDepth = pipelineDepth;
+	}
+
+	/**
+	 * Return the maximum time to wait for outstanding work on revoked partitions.
+	 * @return the timeout.
+	 * @since 3.1
+	 * @see #setRevocationDrainTimeout(Duration)
+	 */
+	@Nullable
+	public Duration getRevocationDrainTimeout() {
+		return this.revocationDrainTimeout;
+	}
+
+	/**
+	 * Set the maximum time to wait, when partitions are revoked, for records from those
+	 * partitions that are being processed on other threads (out of order
+	 * {@link #setAsyncAcks(boolean) async acks}, {@link #setParallelism(int)
+	 * parallelism}, {@link #setVirtualThreads(boolean) virtual threads} or a
+	 * {@link #setPipelineDepth(int) pipeline}), so their offsets can be committed before
+	 * the partitions are reassigned. Records from the revoked partitions that have not
+	 * yet been passed to the listener are discarded; work on the retained partitions
+	 * continues while waiting. Default {@code null}, meaning the
+	 * {@link #setShutdownTimeout(long) shutdownTimeout}; {@link Duration#ZERO} to not
+	 * wait.
+	 * @param revocationDrainTimeout the timeout.
+	 * @since 3.1
+	 */
+	public void setRevocationDrainTimeout(@Nullable Duration revocationDrainTimeout) {
+		this.revocationDrainTimeout = revocationDrainTimeout;
+	}
+
+	/**
+	 * Return the capacity of the queue that hands acknowledgments to the consumer thread.
+	 * @return the capacity.
+	 * @since 3.1
+	 * @see #setAckQueueCapacity(int)
+	 */
+	public int getAckQueueCapacity() {
+		return this.ackQueueCapacity;
+	}
+
+	/**
+	 * Set the capacity (rounded up to a power of two) of the queue that hands
+	 * acknowledgments made on other threads ({@link #setParallelism(int) parallelism},
+	 * {@link #setVirtualThreads(boolean) virtual threads}, a
+	 * {@link #setPipelineDepth(int) pipeline}, or a listener that acknowledges on its own
+	 * threads) to the consumer thread. When the queue is full, the acknowledging thread
+	 * wakes the consumer and waits for space, so it should be at least
+	 * {@code max.poll.records} multiplied by the number of threads acknowledging; the
+	 * queue is allocated when the container starts, so a larger capacity uses more
+	 * memory for each consumer. Default {@link #DEFAULT_ACK_QUEUE_CAPACITY}.
+	 * @param ackQueueCapacity the capacity.
+	 * @since 3.1
+	 */
+	public void setAckQueueCapacity(int ackQueueCapacity) {
+		Assert.isTrue(ackQueueCapacity > 0 && ackQueueCapacity <= 1 << 30,
+				"'ackQueueCapacity' must be between 1 and 2^30");
+		this.ackQueueCapacity = ackQueueCapacity;
+	}
+
+	/**
+	 * Return true if records are deserialized just before the listener is invoked,
+	 * instead of by the consumer.
+	 * @return true for deferred deserialization.
+	 * @since 3.1
+	 * @see #setDeferredDeserialization(boolean)
+	 */
+	public boolean isDeferredDeserialization() {
+		return this.deferredDeserialization;
+	}
+
+	/**
+	 * Set to true to poll the keys and values as {@code byte[]} and deserialize each
+	 * record, using the deserializers configured in the consumer properties, just before
+	 * the listener is invoked. With {@link #setParallelism(int) parallelism},
+	 * {@link #setVirtualThreads(boolean) virtual threads} or a
+	 * {@link #setPipelineDepth(int) pipeline}, deserialization is performed on the
+	 * processing threads, in parallel, instead of on the consumer thread; each thread
+	 * that deserializes concurrently uses its own deserializer instances, so the
+	 * deserializers do not need to be thread-safe. A failure to
+	 * deserialize is handled as if the deserializer was wrapped in an
+	 * {@link org.springframework.kafka.support.serializer.ErrorHandlingDeserializer}.
+	 * The deserializers must be configured by class (or class name), not provided to the
+	 * consumer factory as objects.
+	 * @param deferredDeserialization true to defer deserialization.
+	 * @since 3.1
+	 */
+	public void setDeferredDeserialization(boolean deferredDeserialization) {
+		this.deferredDeserialization = deferredDeserialization;
+	}
+
+	/**
+	 * Return true if the time spent in each phase of the poll loop is recorded with
+	 * Micrometer timers.
+	 * @return true if enabled.
+	 * @since 3.1
+	 * @see #setPhaseMetricsEnabled(boolean)
+	 */
+	public boolean isPhaseMetricsEnabled() {
+		return this.phaseMetricsEnabled;
+	}
+
+	/**
+	 * Set to true to record the time spent in each phase of the poll loop (commits,
+	 * ack processing, seeks, idle between polls, poll, deferred deserialization and
+	 * listener invocation) with Micrometer timers, and the number of records returned by
+	 * each poll with a distribution summary. Requires {@link #isMicrometerEnabled()
+	 * micrometerEnabled} and a {@code MeterRegistry}; ignored when observation is
+	 * enabled. Default false.
+	 * @param phaseMetricsEnabled true to enable.
+	 * @since 3.1
+	 */
+	public void setPhaseMetricsEnabled(boolean phaseMetricsEnabled) {
+		this.phaseMetricsEnabled = phaseMetricsEnabled;
+	}
+
+	/**
+	 * Return true if a Java Flight Recorder event is emitted for each phase of the poll
+	 * loop.
+	 * @return true if enabled.
+	 * @since 3.1
+	 * @see #setPhaseEventsEnabled(boolean)
+	 */
+	public boolean isPhaseEventsEnabled() {
+		return this.phaseEventsEnabled;
+	}
+
+	/**
+	 * Set to true to emit a Java Flight Recorder event
+	 * ({@code org.springframework.kafka.ListenerPhase}) for each phase of the poll loop,
+	 * when a recording is in progress. Default false.
+	 * @param phaseEventsEnabled true to enable.
+	 * @since 3.1
+	 * @see #setPhaseMetricsEnabled(boolean)
+	 */
+	public void setPhaseEventsEnabled(boolean phaseEventsEnabled) {
+		this.phaseEventsEnabled = phaseEventsEnabled;
+	}
+
+	/**
+	 * Return the maximum number of records processed in each transaction by a record
+	 * listener.
+	 * @return the batch size.
+	 * @since 3.1
+	 * @see #setTransactionBatchSize(int)
+	 */
+	public int getTransactionBatchSize() {
+		return this.transactionBatchSize;
+	}
+
+	/**
+	 * Set the maximum number of consecutive records, from the same poll, that a record
+	 * listener processes in a single transaction when a
+	 * {@link #setTransactionManager(PlatformTransactionManager) transaction manager} is
+	 * configured. The offsets of all the records are sent to the transaction once, before
+	 * it is committed. If the listener throws an exception, the transaction is rolled back
+	 * and the records in the group are processed again, each in its own transaction, so
+	 * that a record that fails again is handled as it is with a transaction for each
+	 * record (for example, by the {@link AfterRollbackProcessor}).
+	 * Default 1 (a transaction for each record).
+	 * @param transactionBatchSize the batch size.
+	 * @since 3.1
+	 * @see #setTransactionBatchTimeout(Duration)
+	 */
+	public void setTransactionBatchSize(int transactionBatchSize) {
+		Assert.isTrue(transactionBatchSize > 0, "'transactionBatchSize' must be greater than 0");
+		this.transactionBatchSize = transactionBatchSize;
+	}
+
+	/**
+	 * Return the maximum time a transaction for a group of records remains open.
+	 * @return the timeout.
+	 * @since 3.1
+	 * @see #setTransactionBatchTimeout(Duration)
+	 */
+	@Nullable
+	public Duration getTransactionBatchTimeout() {
+		return this.transactionBatchTimeout;
+	}
+
+	/**
+	 * When the {@link #setTransactionBatchSize(int) transactionBatchSize} is greater than
+	 * 1, set the time after which no more records are added to a transaction; the
+	 * transaction is committed after the listener has processed the current record.
+	 * Default {@code null} (the group is only bounded by the batch size and the records
+	 * returned by the poll).
+	 * @param transactionBatchTimeout the timeout.
+	 * @since 3.1
+	 */
+	public void setTransactionBatchTimeout(@Nullable Duration transactionBatchTimeout) {
+		this.transactionBatchTimeout = transactionBatchTimeout;
+	}
+
 	@Override
 	public String toString() {
 		return "ContainerProperties ["
@@ -1069,6 +1550,41 @@ public class ContainerProperties extends ConsumerProperties {
 						? "\n observationConvention=" + this.observationConvention
 						: "")
 				+ "\n restartAfterAuthExceptions=" + this.restartAfterAuthExceptions
+				+ "\n parallelism=" + this.parallelism
+				+ (this.parallelism > 1
+						? "\n parallelOrdering=" + this.parallelOrdering
+						: "")
+				+ (this.parallelTaskExecutor != null
+						? "\n parallelTaskExecutor=" + this.parallelTaskExecutor
+						: "")
+				+ "\n virtualThreads=" + this.virtualThreads
+				+ (this.commitCoalesceInterval != null
+						? "\n commitCoalesceInterval=" + this.commitCoalesceInterval
+						: "")
+				+ (this.commitCoalesceCount > 0
+						? "\n commitCoalesceCount=" + this.commitCoalesceCount
+						: "")
+				+ (this.commitCoalesceBytes > 0
+						? "\n commitCoalesceBytes=" + this.commitCoalesceBytes
+						: "")
+				+ (this.maxInFlightAsyncCommits > 0
+						? "\n maxInFlightAsyncCommits=" + this.maxInFlightAsyncCommits
+						: "")
+				+ (this.pipelineDepth > 0
+						? "\n pipelineDepth=" + this.pipelineDepth
+						: "")
+				+ (this.revocationDrainTimeout != null
+						? "\n revocationDrainTimeout=" + this.revocationDrainTimeout
+						: "")
+				+ (this.ackQueueCapacity != DEFAULT_ACK_QUEUE_CAPACITY
+						? "\n ackQueueCapacity=" + this.ackQueueCapacity
+						: "")
+				+ (this.transactionBatchSize > 1
+						? "\n transactionBatchSize=" + this.transactionBatchSize
+						: "")
+				+ (this.transactionBatchTimeout != null
+						? "\n transactionBatchTimeout=" + this.transactionBatchTimeout
+						: "")
 				+ "\n]";
 	}
 
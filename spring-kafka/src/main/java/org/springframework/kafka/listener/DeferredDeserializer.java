@@ -0,0 +1,268 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Deserializes records polled as {@code byte[]} using the deserializers configured in
+ * the consumer properties, so that deserialization can be performed on the thread that
+ * invokes the listener instead of the consumer thread. Failures are reported in the
+ * same way as the
+ * {@link org.springframework.kafka.support.serializer.ErrorHandlingDeserializer}; the
+ * key or value is {@code null} and the exception is added to a header.
+ * <p>
+ * Since the {@link Deserializer} contract does not require thread safety (the consumer
+ * only uses its deserializers on the consumer thread), each thread that deserializes
+ * concurrently uses its own deserializer instances, taken from a pool that grows to the
+ * number of threads deserializing at the same time.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+final class DeferredDeserializer<K, V> {
+
+	private final Queue<Deserializers> pool = new ConcurrentLinkedQueue<>();
+
+	private final Queue<Deserializers> created = new ConcurrentLinkedQueue<>();
+
+	private final Map<String, Object> configs;
+
+	private final ClassLoader classLoader;
+
+	/**
+	 * Create an instance using the deserializers configured in the consumer factory
+	 * properties and overrides.
+	 * @param consumerFactory the consumer factory.
+	 * @param consumerOverrides the consumer property overrides.
+	 * @param classLoader the class loader to load the deserializer classes.
+	 */
+	DeferredDeserializer(ConsumerFactory<?, ?> consumerFactory, Properties consumerOverrides,
+			ClassLoader classLoader) {
+
+		Assert.state(consumerFactory.getKeyDeserializer() == null && consumerFactory.getValueDeserializer() == null,
+				"Deferred deserialization requires the deserializers to be configured by class or class name, "
+						+ "not provided to the consumer factory");
+		Map<String, Object> configs = new HashMap<>(consumerFactory.getConfigurationProperties());
+		consumerOverrides.stringPropertyNames()
+				.forEach(name -> configs.put(name, consumerOverrides.getProperty(name)));
+		consumerOverrides.forEach((key, value) -> {
+			if (key instanceof String name && !configs.containsKey(name)) {
+				configs.put(name, value);
+			}
+		});
+		this.configs = configs;
+		this.classLoader = classLoader;
+		this.pool.add(createDeserializers()); // fail fast if misconfigured
+	}
+
+	private Deserializers createDeserializers() {
+		Deserializers deserializers = new Deserializers(
+				createDeserializer(this.configs, ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, true, this.classLoader),
+				createDeserializer(this.configs, ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, false,
+						this.classLoader));
+		this.created.add(deserializers);
+		return deserializers;
+	}
+
+	private Deserializers borrow() {
+		Deserializers deserializers = this.pool.poll();
+		return deserializers == null ? createDeserializers() : deserializers;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Deserializer<Object> createDeserializer(Map<String, Object> configs, String property,
+			boolean isKey, ClassLoader classLoader) {
+
+		Object deser = configs.get(property);
+		Assert.state(deser != null, () -> "'" + property + "' is required for deferred deserialization");
+		Class<?> clazz;
+		if (deser instanceof Class<?> deserClass) {
+			clazz = deserClass;
+		}
+		else if (deser instanceof String str) {
+			try {
+				clazz = ClassUtils.forName(str.trim(), classLoader);
+			}
+			catch (ClassNotFoundException | LinkageError e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		else {
+			throw new IllegalStateException("Deserializer must be a class or class name, not a " + deser.getClass());
+		}
+		Assert.state(Deserializer.class.isAssignableFrom(clazz), () -> clazz.getName() + " is not a Deserializer");
+		Deserializer<Object> deserializer = (Deserializer<Object>) BeanUtils.instantiateClass(clazz);
+		deserializer.configure(configs, isKey);
+		return deserializer;
+	}
+
+	/**
+	 * Deserialize the key and value of a record polled as {@code byte[]}.
+	 * @param raw the record.
+	 * @return the deserialized record.
+	 */
+	ConsumerRecord<K, V> deserialize(ConsumerRecord<K, V> raw) {
+		Deserializers deserializers = borrow();
+		try {
+			return deserialize(raw, deserializers);
+		}
+		finally {
+			this.pool.add(deserializers);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private ConsumerRecord<K, V> deserialize(ConsumerRecord<K, V> raw, Deserializers deserializers) {
+		Headers headers = raw.headers();
+		Object key = deserialize(deserializers.key(), raw.topic(), headers, (byte[]) raw.key(), true);
+		Object value = deserialize(deserializers.value(), raw.topic(), headers, (byte[]) raw.value(), false);
+		return new ConsumerRecord<>(raw.topic(), raw.partition(), raw.offset(), raw.timestamp(),
+				raw.timestampType(), raw.serializedKeySize(), raw.serializedValueSize(), (K) key, (V) value,
+				headers, raw.leaderEpoch());
+	}
+
+	/**
+	 * Deserialize the keys and values of records polled as {@code byte[]}; records that
+	 * were returned by this method, or marked with {@link #deserialized(ConsumerRecords)},
+	 * are returned as-is.
+	 * @param raw the records.
+	 * @return the deserialized records.
+	 */
+	ConsumerRecords<K, V> deserialize(ConsumerRecords<K, V> raw) {
+		if (raw instanceof Deserialized) {
+			return raw;
+		}
+		Map<TopicPartition, List<ConsumerRecord<K, V>>> records = new LinkedHashMap<>();
+		Deserializers deserializers = borrow();
+		try {
+			for (TopicPartition tp : raw.partitions()) {
+				List<ConsumerRecord<K, V>> partitionRecords = raw.records(tp);
+				List<ConsumerRecord<K, V>> deserialized = new ArrayList<>(partitionRecords.size());
+				for (ConsumerRecord<K, V> rec : partitionRecords) {
+					deserialized.add(deserialize(rec, deserializers));
+				}
+				records.put(tp, deserialized);
+			}
+		}
+		finally {
+			this.pool.add(deserializers);
+		}
+		return new Deserialized<>(records);
+	}
+
+	/**
+	 * Mark records that have already been deserialized (for example, the records
+	 * remaining after an error, which are redelivered without polling) so that they are
+	 * not deserialized again.
+	 * @param <K> the key type.
+	 * @param <V> the value type.
+	 * @param records the records.
+	 * @return the marked records.
+	 */
+	static <K, V> ConsumerRecords<K, V> deserialized(ConsumerRecords<K, V> records) {
+		if (records instanceof Deserialized) {
+			return records;
+		}
+		Map<TopicPartition, List<ConsumerRecord<K, V>>> map = new LinkedHashMap<>();
+		records.partitions().forEach(tp -> map.put(tp, records.records(tp)));
+		return new Deserialized<>(map);
+	}
+
+	/**
+	 * Return true if the records are already deserialized.
+	 * @param records the records.
+	 * @return true if deserialized.
+	 */
+	static boolean isDeserialized(ConsumerRecords<?, ?> records) {
+		return records instanceof Deserialized;
+	}
+
+	@Nullable
+	private static Object deserialize(Deserializer<Object> deserializer, String topic, Headers headers,
+			@Nullable byte[] data, boolean isKey) {
+
+		if (data == null) {
+			return null;
+		}
+		try {
+			return deserializer.deserialize(topic, headers, data);
+		}
+		catch (Exception ex) {
+			SerializationUtils.deserializationException(headers, data, ex, isKey);
+			return null;
+		}
+	}
+
+	/**
+	 * Close the deserializers.
+	 */
+	void close() {
+		Deserializers deserializers = this.created.poll();
+		while (deserializers != null) {
+			deserializers.key().close();
+			deserializers.value().close();
+			deserializers = this.created.poll();
+		}
+		this.pool.clear();
+	}
+
+	/**
+	 * Return the number of key/value deserializer pairs created so far.
+	 * @return the number.
+	 */
+	int getDeserializerCount() {
+		return this.created.size();
+	}
+
+	private record Deserializers(Deserializer<Object> key, Deserializer<Object> value) {
+	}
+
+	private static final class Deserialized<K, V> extends ConsumerRecords<K, V> {
+
+		Deserialized(Map<TopicPartition, List<ConsumerRecord<K, V>>> records) {
+			super(records);
+		}
+
+	}
+
+}
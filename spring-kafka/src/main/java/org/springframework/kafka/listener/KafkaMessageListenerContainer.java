@@ -33,17 +33,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -71,6 +78,9 @@ import org.apache.kafka.common.errors.RebalanceInProgressException;
 import org.apache.kafka.common.errors.WakeupException;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.ObjectProvider;
@@ -104,6 +114,7 @@ import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback
 import org.springframework.kafka.listener.ContainerProperties.AckMode;
 import org.springframework.kafka.listener.ContainerProperties.AssignmentCommitOption;
 import org.springframework.kafka.listener.ContainerProperties.EOSMode;
+import org.springframework.kafka.listener.ListenerPhaseMonitor.Phase;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.kafka.support.KafkaUtils;
@@ -120,6 +131,7 @@ import org.springframework.kafka.transaction.KafkaAwareTransactionManager;
 import org.springframework.lang.Nullable;
 import org.springframework.scheduling.SchedulingAwareRunnable;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
@@ -129,8 +141,11 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.CompositeIterator;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.util.backoff.BackOffExecution;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
@@ -159,6 +174,7 @@ import io.micrometer.observation.ObservationRegistry;
  * @author Tomaz Fernandes
  * @author Francois Rosiere
  * @author Daniel Gentes
+ * @author agent
  */
 public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		extends AbstractMessageListenerContainer<K, V> implements ConsumerPauseResumeEventPublisher {
@@ -619,6 +635,14 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		private static final String ERROR_HANDLER_THREW_AN_EXCEPTION = "Error handler threw an exception";
 
+		private static final long PIPELINE_POLL_TIMEOUT = 100L;
+
+		private static final long PARALLEL_RETRY_INITIAL_INTERVAL = 10L;
+
+		private static final long PARALLEL_RETRY_MAX_INTERVAL = 10_000L;
+
+		private static final long PIPELINE_QUIESCE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
 		private final LogAccessor logger = KafkaMessageListenerContainer.this.logger; // NOSONAR hide
 
 		private final ContainerProperties containerProperties = getContainerProperties();
@@ -673,9 +697,16 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		private final boolean isRecordAck;
 
-		private final BlockingQueue<ConsumerRecord<K, V>> acks = new LinkedBlockingQueue<>();
+		private final BoundedMpscQueue<ConsumerRecord<K, V>> acks =
+				new BoundedMpscQueue<>(this.containerProperties.getAckQueueCapacity());
 
-		private final BlockingQueue<TopicPartitionOffset> seeks = new LinkedBlockingQueue<>();
+		/*
+		 * In-order acks released while the acks queue is full; only added to while holding
+		 * the asyncAcksLock, which the consumer thread also needs, so we must not block there.
+		 */
+		private final Queue<ConsumerRecord<K, V>> ackBacklog = new ConcurrentLinkedQueue<>();
+
+		private final Queue<TopicPartitionOffset> seeks = new ConcurrentLinkedQueue<>();
 
 		private final CommonErrorHandler commonErrorHandler;
 
@@ -741,6 +772,9 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		private final MicrometerHolder micrometerHolder;
 
+		@Nullable
+		private final ListenerPhaseMonitor phaseMonitor;
+
 		private final AtomicBoolean polling = new AtomicBoolean();
 
 		private final boolean subBatchPerPartition;
@@ -764,11 +798,60 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		private final boolean stopImmediate = this.containerProperties.isStopImmediate();
 
+		private final int transactionBatchSize = this.containerProperties.getTransactionBatchSize();
+
+		private final long transactionBatchTimeout = this.containerProperties.getTransactionBatchTimeout() == null
+				? 0
+				: this.containerProperties.getTransactionBatchTimeout().toMillis();
+
 		private final Set<TopicPartition> pausedPartitions = new HashSet<>();
 
-		private final Map<TopicPartition, List<Long>> offsetsInThisBatch;
+		private final Map<TopicPartition, OffsetTracker> offsetsInThisBatch;
+
+		/*
+		 * Guards offsetsInThisBatch; a lock rather than synchronized so
+		 * that listener threads (which may be virtual) are not pinned while waiting.
+		 */
+		private final ReentrantLock asyncAcksLock = new ReentrantLock();
+
+		private final int parallelism = this.containerProperties.getParallelism();
+
+		private final boolean virtualThreads = this.containerProperties.isVirtualThreads();
+
+		private final boolean dispatchToWorkers = this.parallelism > 1 || this.virtualThreads;
+
+		@Nullable
+		private final ParallelRecordDispatcher parallelDispatcher;
+
+		@Nullable
+		private final ThreadPoolTaskExecutor createdParallelExecutor;
+
+		@Nullable
+		private final DeferredDeserializer<K, V> deferredDeserializer;
+
+		@Nullable
+		private final Duration commitCoalesceInterval = this.containerProperties.getCommitCoalesceInterval();
+
+		private final int commitCoalesceCount = this.containerProperties.getCommitCoalesceCount();
+
+		private final long commitCoalesceBytes = this.containerProperties.getCommitCoalesceBytes();
+
+		private final int maxInFlightAsyncCommits = this.containerProperties.getMaxInFlightAsyncCommits();
+
+		private final int pipelineDepth = this.containerProperties.getPipelineDepth();
+
+		/*
+		 * Polled batches waiting for the pipeline processing thread.
+		 */
+		@Nullable
+		private final BlockingQueue<ConsumerRecords<K, V>> pipeline;
+
+		/*
+		 * Batches queued in, or being processed by, the pipeline.
+		 */
+		private final AtomicInteger pipelineInFlight = new AtomicInteger();
 
-		private final Map<TopicPartition, List<ConsumerRecord<K, V>>> deferredOffsets;
+		private final boolean coalesceCommits;
 
 		private final Map<TopicPartition, Long> lastReceivePartition;
 
@@ -825,6 +908,8 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		private boolean commitRecovered;
 
+		private boolean inTransactionBatch;
+
 		private boolean wasIdle;
 
 		private boolean batchFailed;
@@ -839,12 +924,30 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		private boolean firstPoll;
 
+		private int coalescedCount;
+
+		private long coalescedBytes;
+
+		private long lastCoalescedCommit = System.currentTimeMillis();
+
+		private int inFlightAsyncCommits;
+
 		private volatile boolean consumerPaused;
 
 		private volatile Thread consumerThread;
 
 		private volatile long lastPoll = System.currentTimeMillis();
 
+		private volatile boolean pipelineRunning;
+
+		@Nullable
+		private volatile PipelineFailure<K, V> pipelineFailure;
+
+		private volatile boolean pipelineRecovered;
+
+		@Nullable
+		private volatile ConsumerRecords<K, V> pipelineCurrent;
+
 		@SuppressWarnings(UNCHECKED)
 		ListenerConsumer(GenericMessageListener<?> listener, ListenerType listenerType,
 				ObservationRegistry observationRegistry) {
@@ -859,11 +962,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			this.isAnyManualAck = this.isManualAck || this.isManualImmediateAck;
 			this.isRecordAck = ackMode.equals(AckMode.RECORD);
 			this.offsetsInThisBatch =
-					this.isAnyManualAck && this.containerProperties.isAsyncAcks()
-							? new HashMap<>()
-							: null;
-			this.deferredOffsets =
-					this.isAnyManualAck && this.containerProperties.isAsyncAcks()
+					(this.isAnyManualAck && this.containerProperties.isAsyncAcks()) || this.dispatchToWorkers
 							? new HashMap<>()
 							: null;
 
@@ -871,6 +970,21 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			Properties consumerProperties = propertiesFromConsumerPropertyOverrides();
 			checkGroupInstance(consumerProperties, KafkaMessageListenerContainer.this.consumerFactory);
 			this.autoCommit = determineAutoCommit(consumerProperties);
+			ApplicationContext applicationContext = getApplicationContext();
+			ClassLoader classLoader = applicationContext == null
+					? getClass().getClassLoader()
+					: applicationContext.getClassLoader();
+			if (this.containerProperties.isDeferredDeserialization()) {
+				this.deferredDeserializer = new DeferredDeserializer<>(KafkaMessageListenerContainer.this.consumerFactory,
+						consumerProperties, classLoader);
+				consumerProperties.setProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
+						ByteArrayDeserializer.class.getName());
+				consumerProperties.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+						ByteArrayDeserializer.class.getName());
+			}
+			else {
+				this.deferredDeserializer = null;
+			}
 			this.consumer =
 					KafkaMessageListenerContainer.this.consumerFactory.createConsumer(
 							this.consumerGroupId,
@@ -912,6 +1026,52 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			this.commonErrorHandler = determineCommonErrorHandler();
 			Assert.state(!this.isBatchListener || !this.isRecordAck,
 					"Cannot use AckMode.RECORD with a batch listener");
+			this.coalesceCommits = (this.isRecordAck || this.isManualImmediateAck) && this.transactionManager == null
+					&& (this.commitCoalesceInterval != null || this.commitCoalesceCount > 0
+							|| this.commitCoalesceBytes > 0);
+			if (this.dispatchToWorkers) {
+				Assert.state(!this.isBatchListener,
+						"Cannot use 'parallelism' or 'virtualThreads' with a batch listener");
+				Assert.state(this.transactionManager == null,
+						"Cannot use 'parallelism' or 'virtualThreads' with transactions");
+				Assert.state(!this.isRecordAck, "Cannot use 'parallelism' or 'virtualThreads' with AckMode.RECORD");
+				Assert.state(!this.autoCommit,
+						"Cannot use 'parallelism' or 'virtualThreads' with 'enable.auto.commit'");
+				String prefix = (getBeanName() == null ? "" : getBeanName()) + "-P-";
+				AsyncTaskExecutor parallelExecutor = this.containerProperties.getParallelTaskExecutor();
+				if (parallelExecutor == null && this.virtualThreads) {
+					SimpleAsyncTaskExecutor virtualThreadExecutor = new SimpleAsyncTaskExecutor(prefix);
+					virtualThreadExecutor.setVirtualThreads(true);
+					this.createdParallelExecutor = null;
+					parallelExecutor = virtualThreadExecutor;
+				}
+				else if (parallelExecutor == null) {
+					ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+					threadPoolTaskExecutor.setCorePoolSize(this.parallelism);
+					threadPoolTaskExecutor.setThreadNamePrefix(prefix);
+					threadPoolTaskExecutor.initialize();
+					this.createdParallelExecutor = threadPoolTaskExecutor;
+					parallelExecutor = threadPoolTaskExecutor;
+				}
+				else {
+					this.createdParallelExecutor = null;
+				}
+				this.parallelDispatcher = new ParallelRecordDispatcher(parallelExecutor, this.parallelism,
+						this.containerProperties.getParallelOrdering(), this.logger);
+			}
+			else {
+				this.parallelDispatcher = null;
+				this.createdParallelExecutor = null;
+			}
+			if (this.pipelineDepth > 0) {
+				Assert.state(this.isBatchListener, "'pipelineDepth' is only supported with a batch listener");
+				Assert.state(this.transactionManager == null, "Cannot use 'pipelineDepth' with transactions");
+				Assert.state(!this.autoCommit, "Cannot use 'pipelineDepth' with 'enable.auto.commit'");
+				this.pipeline = new LinkedBlockingQueue<>();
+			}
+			else {
+				this.pipeline = null;
+			}
 			if (this.containerProperties.getScheduler() != null) {
 				this.taskScheduler = this.containerProperties.getScheduler();
 				this.taskSchedulerExplicitlySet = true;
@@ -927,19 +1087,14 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				this.logger.info(toString());
 			}
 			Map<String, Object> props = KafkaMessageListenerContainer.this.consumerFactory.getConfigurationProperties();
-			ApplicationContext applicationContext = getApplicationContext();
 			this.checkNullKeyForExceptions = this.containerProperties.isCheckDeserExWhenKeyNull()
+					|| this.deferredDeserializer != null
 					|| ErrorHandlingUtils.checkDeserializer(KafkaMessageListenerContainer.this.consumerFactory,
-							consumerProperties, false,
-							applicationContext == null
-									? getClass().getClassLoader()
-									: applicationContext.getClassLoader());
+							consumerProperties, false, classLoader);
 			this.checkNullValueForExceptions = this.containerProperties.isCheckDeserExWhenValueNull()
+					|| this.deferredDeserializer != null
 					|| ErrorHandlingUtils.checkDeserializer(KafkaMessageListenerContainer.this.consumerFactory,
-							consumerProperties, true,
-							applicationContext == null
-									? getClass().getClassLoader()
-									: applicationContext.getClassLoader());
+							consumerProperties, true, classLoader);
 			this.syncCommitTimeout = determineSyncCommitTimeout();
 			if (this.containerProperties.getSyncCommitTimeout() == null) {
 				// update the property so we can use it directly from code elsewhere
@@ -952,6 +1107,13 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			}
 			this.maxPollInterval = obtainMaxPollInterval(consumerProperties);
 			this.micrometerHolder = obtainMicrometerHolder();
+			this.phaseMonitor = obtainPhaseMonitor();
+			if (this.micrometerHolder != null) {
+				this.micrometerHolder.gauge("spring.kafka.listener.acks.pending",
+						"Acks waiting for the consumer thread", this.acks, BoundedMpscQueue::size);
+				this.micrometerHolder.gauge("spring.kafka.listener.seeks.pending",
+						"Seeks waiting for the consumer thread", this.seeks, Queue::size);
+			}
 			this.deliveryAttemptAware = setupDeliveryAttemptAware();
 			this.subBatchPerPartition = setupSubBatchPerPartition();
 			this.lastReceivePartition = new HashMap<>();
@@ -1292,6 +1454,33 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			return holder;
 		}
 
+		@Nullable
+		private ListenerPhaseMonitor obtainPhaseMonitor() {
+			MicrometerHolder holder = this.containerProperties.isPhaseMetricsEnabled() ? this.micrometerHolder : null;
+			if (holder == null && !this.containerProperties.isPhaseEventsEnabled()) {
+				return null;
+			}
+			String id = getListenerId();
+			return new ListenerPhaseMonitor(id == null ? "" : id, holder,
+					this.containerProperties.isPhaseEventsEnabled());
+		}
+
+		private long phaseStart() {
+			return this.phaseMonitor == null ? 0L : this.phaseMonitor.start();
+		}
+
+		private void phaseEnd(Phase phase, long start) {
+			if (this.phaseMonitor != null) {
+				this.phaseMonitor.end(phase, start);
+			}
+		}
+
+		private void phaseEnd(Phase phase, long start, int records) {
+			if (this.phaseMonitor != null) {
+				this.phaseMonitor.end(phase, start, records);
+			}
+		}
+
 		private void seekPartitions(Collection<TopicPartition> partitions, boolean idle) {
 			this.consumerSeekAwareListener.registerSeekCallback(this);
 			Map<TopicPartition, Long> current = new HashMap<>();
@@ -1388,6 +1577,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			}
 			publishConsumerStartingEvent();
 			this.consumerThread = Thread.currentThread();
+			startPipelineIfNecessary();
 			setupSeeks();
 			KafkaUtils.setConsumerGroupId(this.consumerGroupId);
 			this.count = 0;
@@ -1415,10 +1605,17 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		protected void pollAndInvoke() {
 			doProcessCommits();
+			if (this.pipeline != null) {
+				checkPipeline();
+			}
 			fixTxOffsetsIfNeeded();
+			long start = phaseStart();
 			idleBetweenPollIfNecessary();
+			phaseEnd(Phase.IDLE, start);
 			if (!this.seeks.isEmpty()) {
+				start = phaseStart();
 				processSeeks();
+				phaseEnd(Phase.SEEK, start);
 			}
 			pauseConsumerIfNecessary();
 			pausePartitionsIfNecessary();
@@ -1484,7 +1681,9 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				savePositionsIfNeeded(records);
 				notIdle();
 				notIdlePartitions(records.partitions());
+				long start = phaseStart();
 				invokeListener(records);
+				phaseEnd(Phase.INVOKE, start, records.count());
 			}
 			else {
 				checkIdle();
@@ -1643,6 +1842,9 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 					this.logger.debug(() -> "First pending after error: " + firstPart + "; paused: " + isPaused);
 					if (!isPaused) {
 						records = this.remainingRecords;
+						if (this.deferredDeserializer != null) { // deserialized when first delivered
+							records = DeferredDeserializer.deserialized(records);
+						}
 						this.remainingRecords = null;
 					}
 				}
@@ -1654,11 +1856,17 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		private ConsumerRecords<K, V> pollConsumer() {
 			beforePoll();
+			long start = phaseStart();
+			ConsumerRecords<K, V> records = ConsumerRecords.empty();
 			try {
-				return this.consumer.poll(this.consumerPaused ? this.pollTimeoutWhilePaused : this.pollTimeout);
+				records = this.consumer.poll(this.consumerPaused ? this.pollTimeoutWhilePaused : this.pollTimeout);
+				return records;
 			}
 			catch (WakeupException ex) {
-				return ConsumerRecords.empty();
+				return records;
+			}
+			finally {
+				phaseEnd(Phase.POLL, start, records.count());
 			}
 		}
 
@@ -1668,16 +1876,21 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			}
 		}
 
-		private synchronized void captureOffsets(ConsumerRecords<K, V> records) {
+		private void captureOffsets(ConsumerRecords<K, V> records) {
+			this.asyncAcksLock.lock();
+			try {
+				doCaptureOffsets(records);
+			}
+			finally {
+				this.asyncAcksLock.unlock();
+			}
+		}
+
+		private void doCaptureOffsets(ConsumerRecords<K, V> records) {
 			if (this.offsetsInThisBatch != null && records.count() > 0) {
 				this.offsetsInThisBatch.clear();
-				this.deferredOffsets.clear();
-				records.partitions().forEach(part -> {
-					LinkedList<Long> offs = new LinkedList<>();
-					this.offsetsInThisBatch.put(part, offs);
-					this.deferredOffsets.put(part, new LinkedList<>());
-					records.records(part).forEach(rec -> offs.add(rec.offset()));
-				});
+				records.partitions().forEach(part ->
+						this.offsetsInThisBatch.put(part, OffsetTracker.forRecords(records.records(part))));
 			}
 		}
 
@@ -1740,9 +1953,13 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 		private void pauseConsumerIfNecessary() {
 			if (this.offsetsInThisBatch != null) {
-				synchronized (this) {
+				this.asyncAcksLock.lock();
+				try {
 					doPauseConsumerIfNecessary();
 				}
+				finally {
+					this.asyncAcksLock.unlock();
+				}
 			}
 			else {
 				doPauseConsumerIfNecessary();
@@ -1758,7 +1975,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				this.pausedForAsyncAcks = true;
 				this.logger.debug(() -> "Pausing for incomplete async acks: " + this.offsetsInThisBatch);
 			}
-			if (!this.consumerPaused && (isPaused() || this.pausedForAsyncAcks)
+			if (!this.consumerPaused && (isPaused() || this.pausedForAsyncAcks || isPipelineFull())
 					|| this.pauseForPending) {
 
 				Collection<TopicPartition> assigned = getAssignedPartitions();
@@ -1767,13 +1984,18 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 					this.consumerPaused = true;
 					this.pauseForPending = false;
 					this.logger.debug(() -> "Paused consumption from: " + this.consumer.paused());
-					publishConsumerPausedEvent(assigned, this.pausedForAsyncAcks
-							? "Incomplete out of order acks"
-							: "User requested");
+					publishConsumerPausedEvent(assigned, pauseReason());
 				}
 			}
 		}
 
+		private String pauseReason() {
+			if (this.pausedForAsyncAcks) {
+				return "Incomplete out of order acks";
+			}
+			return isPipelineFull() ? "Pipeline full" : "User requested";
+		}
+
 		private void resumeConsumerIfNeccessary() {
 			if (this.nackWakeTimeMillis > 0) {
 				if (System.currentTimeMillis() > this.nackWakeTimeMillis) {
@@ -1785,9 +2007,13 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				}
 			}
 			else if (this.offsetsInThisBatch != null) {
-				synchronized (this) {
+				this.asyncAcksLock.lock();
+				try {
 					doResumeConsumerIfNeccessary();
 				}
+				finally {
+					this.asyncAcksLock.unlock();
+				}
 			}
 			else {
 				doResumeConsumerIfNeccessary();
@@ -1799,7 +2025,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				this.pausedForAsyncAcks = false;
 				this.logger.debug("Resuming after manual async acks cleared");
 			}
-			if (this.consumerPaused && !isPaused() && !this.pausedForAsyncAcks) {
+			if (this.consumerPaused && !isPaused() && !this.pausedForAsyncAcks && !isPipelineFull()) {
 				this.logger.debug(() -> "Resuming consumption from: " + this.consumer.paused());
 				Collection<TopicPartition> paused = new LinkedList<>(this.consumer.paused());
 				paused.removeAll(this.pausedPartitions);
@@ -1894,6 +2120,15 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			}
 			publishConsumerStoppingEvent(this.consumer);
 			Collection<TopicPartition> partitions = getAssignedPartitions();
+			if (this.parallelDispatcher != null
+					&& !this.parallelDispatcher.awaitCompletion(this.containerProperties.getShutdownTimeout())) {
+				this.logger.warn(() -> "Parallel listener invocations did not complete within the shutdown timeout; "
+						+ "unacknowledged records will be redelivered");
+			}
+			if (this.pipeline != null) {
+				quiescePipeline();
+				this.pipelineRunning = false;
+			}
 			if (!this.fatalError) {
 				if (this.kafkaTxManager == null) {
 					commitPendingAcks();
@@ -1915,6 +2150,12 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			if (!this.taskSchedulerExplicitlySet) {
 				((ThreadPoolTaskScheduler) this.taskScheduler).destroy();
 			}
+			if (this.createdParallelExecutor != null) {
+				this.createdParallelExecutor.shutdown();
+			}
+			if (this.deferredDeserializer != null) {
+				this.deferredDeserializer.close();
+			}
 			this.consumer.close();
 			getAfterRollbackProcessor().clearThreadState();
 			if (this.commonErrorHandler != null) {
@@ -1970,6 +2211,53 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				processAck(cRecord);
 				cRecord = this.acks.poll();
 			}
+			if (!this.ackBacklog.isEmpty()) {
+				handleAckBacklog();
+			}
+		}
+
+		/**
+		 * Process acks that overflowed the queue; they were released after everything
+		 * already in the queue, so they are processed after it, in order.
+		 */
+		private void handleAckBacklog() {
+			List<ConsumerRecord<K, V>> backlog = new ArrayList<>();
+			this.asyncAcksLock.lock();
+			try {
+				ConsumerRecord<K, V> cRecord = this.ackBacklog.poll();
+				while (cRecord != null) {
+					backlog.add(cRecord);
+					cRecord = this.ackBacklog.poll();
+				}
+			}
+			finally {
+				this.asyncAcksLock.unlock();
+			}
+			backlog.forEach(this::processAck);
+		}
+
+		/**
+		 * Queue an ack on the consumer thread; if the queue is full, process the queued
+		 * acks to make space.
+		 * @param cRecord the record.
+		 */
+		private void addAck(ConsumerRecord<K, V> cRecord) {
+			while (!this.acks.offer(cRecord)) {
+				handleAcks();
+			}
+		}
+
+		/**
+		 * Queue an ack from a listener thread; if the queue is full, wake the consumer so
+		 * it can process the queued acks, and wait for space.
+		 * @param cRecord the record.
+		 * @throws InterruptedException if interrupted while waiting.
+		 */
+		private void putAck(ConsumerRecord<K, V> cRecord) throws InterruptedException {
+			if (!this.acks.offer(cRecord)) {
+				wakeIfNecessary();
+				this.acks.put(cRecord);
+			}
 		}
 
 		private void traceAck(ConsumerRecord<K, V> cRecord) {
@@ -1989,7 +2277,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		private void processAck(ConsumerRecord<K, V> cRecord) {
 			if (!Thread.currentThread().equals(this.consumerThread)) {
 				try {
-					this.acks.put(cRecord);
+					putAck(cRecord);
 					if (this.isManualImmediateAck || this.pausedForAsyncAcks) {  // NOSONAR (sync)
 						this.consumer.wakeup();
 					}
@@ -2000,7 +2288,10 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				}
 			}
 			else {
-				if (this.isManualImmediateAck) {
+				if (this.coalesceCommits) {
+					coalesceAck(cRecord);
+				}
+				else if (this.isManualImmediateAck) {
 					try {
 						ackImmediate(cRecord);
 					}
@@ -2018,7 +2309,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			if (!Thread.currentThread().equals(this.consumerThread)) {
 				try {
 					for (ConsumerRecord<K, V> cRecord : records) {
-						this.acks.put(cRecord);
+						putAck(cRecord);
 					}
 					if (this.isManualImmediateAck) {
 						this.consumer.wakeup();
@@ -2046,34 +2337,34 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			}
 		}
 
-		private synchronized void ackInOrder(ConsumerRecord<K, V> cRecord) {
+		private void ackInOrder(ConsumerRecord<K, V> cRecord) {
+			this.asyncAcksLock.lock();
+			try {
+				doAckInOrder(cRecord);
+			}
+			finally {
+				this.asyncAcksLock.unlock();
+			}
+		}
+
+		private void doAckInOrder(ConsumerRecord<K, V> cRecord) {
 			TopicPartition part = new TopicPartition(cRecord.topic(), cRecord.partition());
-			List<Long> offs = this.offsetsInThisBatch.get(part);
-			if (!ObjectUtils.isEmpty(offs)) {
-				List<ConsumerRecord<K, V>> deferred = this.deferredOffsets.get(part);
-				if (offs.get(0) == cRecord.offset()) {
-					offs.remove(0);
-					ConsumerRecord<K, V> recordToAck = cRecord;
-					if (!deferred.isEmpty()) {
-						Collections.sort(deferred, (a, b) -> Long.compare(a.offset(), b.offset()));
-						while (!ObjectUtils.isEmpty(deferred) && deferred.get(0).offset() == recordToAck.offset() + 1) {
-							recordToAck = deferred.remove(0);
-							offs.remove(0);
-						}
-					}
-					processAck(recordToAck);
-					if (offs.isEmpty()) {
-						this.deferredOffsets.remove(part);
+			OffsetTracker tracker = this.offsetsInThisBatch.get(part);
+			if (tracker != null) {
+				if (cRecord.offset() < tracker.getFirstPending()) {
+					throw new IllegalStateException("First remaining offset for this batch is "
+							+ tracker.getFirstPending() + "; you are acknowledging a stale record: "
+							+ KafkaUtils.format(cRecord));
+				}
+				long committable = tracker.complete(cRecord.offset());
+				if (committable >= 0) {
+					releaseAck(committable == cRecord.offset()
+							? cRecord
+							: committableRecord(cRecord, committable, tracker));
+					if (tracker.isComplete()) {
 						this.offsetsInThisBatch.remove(part);
 					}
 				}
-				else if (cRecord.offset() < offs.get(0)) {
-					throw new IllegalStateException("First remaining offset for this batch is " + offs.get(0)
-							+ "; you are acknowledging a stale record: " + KafkaUtils.format(cRecord));
-				}
-				else {
-					deferred.add(cRecord);
-				}
 			}
 			else {
 				throw new IllegalStateException("Unexpected ack for " + KafkaUtils.format(cRecord)
@@ -2081,6 +2372,37 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			}
 		}
 
+		/*
+		 * Called with the asyncAcksLock held, so it must not wait for space in the acks
+		 * queue; the consumer thread could be waiting for the lock and never drain it.
+		 */
+		private void releaseAck(ConsumerRecord<K, V> cRecord) {
+			if (Thread.currentThread().equals(this.consumerThread)) {
+				processAck(cRecord);
+			}
+			else {
+				if (!this.ackBacklog.isEmpty() || !this.acks.offer(cRecord)) {
+					this.ackBacklog.add(cRecord);
+					wakeIfNecessary();
+				}
+				if (this.isManualImmediateAck || this.pausedForAsyncAcks) {  // NOSONAR (sync)
+					this.consumer.wakeup();
+				}
+			}
+		}
+
+		/*
+		 * Stand-in for the record at the committable offset, which is not retained; it has
+		 * that record's leader epoch, so the epoch is not lost when it is acknowledged.
+		 */
+		private ConsumerRecord<K, V> committableRecord(ConsumerRecord<K, V> acked, long offset,
+				OffsetTracker tracker) {
+
+			return new ConsumerRecord<>(acked.topic(), acked.partition(), offset, ConsumerRecord.NO_TIMESTAMP,
+					TimestampType.NO_TIMESTAMP_TYPE, ConsumerRecord.NULL_SIZE, ConsumerRecord.NULL_SIZE, null, null,
+					new RecordHeaders(), tracker.getLeaderEpoch(offset));
+		}
+
 		private void ackImmediate(ConsumerRecord<K, V> cRecord) {
 			Map<TopicPartition, OffsetAndMetadata> commits = Collections.singletonMap(
 					new TopicPartition(cRecord.topic(), cRecord.partition()),
@@ -2116,7 +2438,15 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		}
 
 		private void commitAsync(Map<TopicPartition, OffsetAndMetadata> commits) {
+			if (this.maxInFlightAsyncCommits > 0 && this.inFlightAsyncCommits >= this.maxInFlightAsyncCommits) {
+				this.logger.debug(() -> this.inFlightAsyncCommits
+						+ " async commits are outstanding; committing synchronously: " + commits);
+				commitSync(commits);
+				return;
+			}
+			this.inFlightAsyncCommits++;
 			this.consumer.commitAsync(commits, (offsetsAttempted, exception) -> {
+				this.inFlightAsyncCommits--;
 				this.commitCallback.onComplete(offsetsAttempted, exception);
 				if (exception == null && this.fixTxOffsets) {
 					this.lastCommits.putAll(commits);
@@ -2125,7 +2455,11 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		}
 
 		private void invokeListener(final ConsumerRecords<K, V> records) {
-			if (this.isBatchListener) {
+			if (this.pipeline != null) {
+				this.pipelineInFlight.incrementAndGet();
+				this.pipeline.add(records);
+			}
+			else if (this.isBatchListener) {
 				invokeBatchListener(records);
 			}
 			else {
@@ -2134,7 +2468,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		}
 
 		private void invokeBatchListener(final ConsumerRecords<K, V> recordsArg) {
-			ConsumerRecords<K, V> records = checkEarlyIntercept(recordsArg);
+			ConsumerRecords<K, V> records = checkEarlyIntercept(deserializeIfDeferred(recordsArg));
 			if (records == null || records.count() == 0) {
 				return;
 			}
@@ -2307,7 +2641,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 					while (it.hasNext()) {
 						ConsumerRecord<K, V> next = it.next();
 						if (!next.equals(firstUncommitted)) {
-							this.acks.add(next);
+							addAck(next);
 						}
 						else {
 							break;
@@ -2315,7 +2649,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 					}
 				}
 				else {
-					this.acks.addAll(getHighestOffsetRecords(records));
+					getHighestOffsetRecords(records).forEach(this::addAck);
 				}
 				if (this.producer != null) {
 					sendOffsetsToTransaction();
@@ -2401,93 +2735,378 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		}
 
 		private void ackBatch(final ConsumerRecords<K, V> records) throws InterruptedException {
+			boolean onConsumerThread = Thread.currentThread().equals(this.consumerThread);
 			for (ConsumerRecord<K, V> cRecord : getHighestOffsetRecords(records)) {
-				this.acks.put(cRecord);
+				if (onConsumerThread) {
+					addAck(cRecord);
+				}
+				else {
+					putAck(cRecord);
+				}
 			}
 		}
 
-		private void invokeBatchOnMessageWithRecordsOrList(final ConsumerRecords<K, V> recordsArg,
-				@Nullable List<ConsumerRecord<K, V>> recordListArg) {
+		private boolean isPipelineFull() {
+			return this.pipeline != null && this.pipelineInFlight.get() >= this.pipelineDepth;
+		}
 
-			ConsumerRecords<K, V> records = recordsArg;
-			List<ConsumerRecord<K, V>> recordList = recordListArg;
-			if (this.listenerinfo != null) {
-				records.iterator().forEachRemaining(rec -> listenerInfo(rec));
+		private void startPipelineIfNecessary() {
+			if (this.pipeline != null) {
+				SimpleAsyncTaskExecutor pipelineExecutor = new SimpleAsyncTaskExecutor(
+						(getBeanName() == null ? "" : getBeanName()) + "-pipeline-");
+				pipelineExecutor.setVirtualThreads(this.virtualThreads);
+				this.pipelineRunning = true;
+				pipelineExecutor.execute(this::processPipeline);
 			}
-			if (this.batchInterceptor != null) {
-				records = this.batchInterceptor.intercept(recordsArg, this.consumer);
-				if (records == null) {
-					this.logger.debug(() -> "BatchInterceptor returned null, skipping: "
-							+ recordsArg + " with " + recordsArg.count() + " records");
+		}
+
+		/*
+		 * Runs on the pipeline processing thread; the consumer thread keeps polling until
+		 * the pipeline is full.
+		 */
+		private void processPipeline() {
+			while (this.pipelineRunning) {
+				try {
+					ConsumerRecords<K, V> records = this.pipeline.poll(PIPELINE_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+					if (records != null) {
+						this.pipelineCurrent = records;
+						try {
+							invokePipelinedBatch(records);
+						}
+						finally {
+							this.pipelineCurrent = null;
+							if (this.pipelineInFlight.decrementAndGet() == this.pipelineDepth - 1) {
+								wakeIfNecessary();
+							}
+						}
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
 					return;
 				}
-				else {
-					recordList = createRecordList(records);
+			}
+		}
+
+		private void invokePipelinedBatch(final ConsumerRecords<K, V> recordsArg) throws InterruptedException {
+			ConsumerRecords<K, V> records = checkEarlyIntercept(deserializeIfDeferred(recordsArg));
+			if (records == null || records.count() == 0) {
+				return;
+			}
+			List<ConsumerRecord<K, V>> recordList = null;
+			if (!this.wantsFullRecords) {
+				recordList = createRecordList(records);
+				if (recordList.isEmpty()) {
+					return;
 				}
 			}
-			if (this.wantsFullRecords) {
-				this.batchListener.onMessage(records, // NOSONAR
-						this.isAnyManualAck
-								? new ConsumerBatchAcknowledgment(records, recordList)
-								: null,
-						this.consumer);
+			Object sample = startMicrometerSample();
+			try {
+				invokeBatchOnMessage(records, recordList);
+				batchInterceptAfter(records, null);
+				successTimer(sample, null);
+				this.pipelineRecovered = true;
 			}
-			else {
-				doInvokeBatchOnMessage(records, recordList); // NOSONAR
+			catch (RuntimeException e) {
+				failureTimer(sample, null);
+				batchInterceptAfter(records, e);
+				PipelineFailure<K, V> failure = new PipelineFailure<>(records, recordList, e, new CountDownLatch(1));
+				this.pipelineFailure = failure;
+				wakeIfNecessary();
+				while (this.pipelineRunning && !failure.handled().await(PIPELINE_POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					// wait for the consumer thread to run the error handler
+				}
 			}
 		}
 
-		private void doInvokeBatchOnMessage(final ConsumerRecords<K, V> records,
-				@Nullable List<ConsumerRecord<K, V>> recordList) {
+		/*
+		 * Consumer thread; run the error handler for a failed pipelined batch and clear
+		 * any error handler state after a subsequent success.
+		 */
+		private void checkPipeline() {
+			PipelineFailure<K, V> failure = this.pipelineFailure;
+			if (failure != null) {
+				handlePipelineFailure(failure);
+			}
+			else if (this.batchFailed && this.pipelineRecovered) {
+				this.batchFailed = false;
+				this.commonErrorHandler.clearThreadState();
+				getAfterRollbackProcessor().clearThreadState();
+			}
+		}
 
+		/*
+		 * The batches polled after the failed batch are discarded and their partitions
+		 * repositioned, so the error handler sees the same consumer state as it would
+		 * without pipelining.
+		 */
+		private void handlePipelineFailure(PipelineFailure<K, V> failure) {
 			try {
-				switch (this.listenerType) {
-					case ACKNOWLEDGING_CONSUMER_AWARE ->
-						this.batchListener.onMessage(recordList,
-								this.isAnyManualAck
-										? new ConsumerBatchAcknowledgment(records, recordList)
-										: null, this.consumer);
-					case ACKNOWLEDGING ->
-						this.batchListener.onMessage(recordList,
-								this.isAnyManualAck
-										? new ConsumerBatchAcknowledgment(records, recordList)
-										: null);
-					case CONSUMER_AWARE -> this.batchListener.onMessage(recordList, this.consumer);
-					case SIMPLE -> this.batchListener.onMessage(recordList);
-				}
+				discardPipelinedBatches();
+				this.batchFailed = true;
+				invokeBatchErrorHandler(failure.records(), failure.recordList(), failure.exception());
+				commitOffsetsIfNeededAfterHandlingError(failure.records());
 			}
-			catch (Exception ex) { //  NOSONAR
-				throw decorateException(ex);
+			catch (KafkaException ke) {
+				ke.selfLog(ERROR_HANDLER_THREW_AN_EXCEPTION, this.logger);
+			}
+			catch (RuntimeException ee) {
+				this.logger.error(ee, ERROR_HANDLER_THREW_AN_EXCEPTION);
+			}
+			finally {
+				this.pipelineRecovered = false;
+				this.pipelineFailure = null;
+				failure.handled().countDown();
 			}
 		}
 
-		private void invokeBatchErrorHandler(final ConsumerRecords<K, V> records,
-				@Nullable List<ConsumerRecord<K, V>> list, RuntimeException rte) {
-
-			if (this.commonErrorHandler.seeksAfterHandling() || this.transactionManager != null
-					|| rte instanceof CommitFailedException) {
-
-				this.commonErrorHandler.handleBatch(rte, records, this.consumer,
-						KafkaMessageListenerContainer.this.thisOrParentContainer,
-						() -> invokeBatchOnMessageWithRecordsOrList(records, list));
+		private void discardPipelinedBatches() {
+			List<ConsumerRecords<K, V>> discarded = new ArrayList<>();
+			this.pipeline.drainTo(discarded);
+			if (discarded.isEmpty()) {
+				return;
 			}
-			else {
-				ConsumerRecords<K, V> afterHandling = this.commonErrorHandler.handleBatchAndReturnRemaining(rte,
-						records, this.consumer, KafkaMessageListenerContainer.this.thisOrParentContainer,
-						() -> invokeBatchOnMessageWithRecordsOrList(records, list));
-				if (afterHandling != null && !afterHandling.isEmpty()) {
-					this.remainingRecords = afterHandling;
-					this.pauseForPending = true;
+			this.pipelineInFlight.addAndGet(-discarded.size());
+			Map<TopicPartition, Long> toSeek = new HashMap<>();
+			for (ConsumerRecords<K, V> batch : discarded) {
+				for (TopicPartition tp : batch.partitions()) {
+					toSeek.merge(tp, batch.records(tp).get(0).offset(), Math::min);
 				}
 			}
+			Set<TopicPartition> assignment = this.consumer.assignment();
+			toSeek.forEach((tp, offset) -> {
+				if (assignment.contains(tp)) {
+					this.consumer.seek(tp, offset);
+				}
+			});
+			this.logger.debug(() -> "Discarded " + discarded.size() + " pipelined batch(es); repositioned " + toSeek);
 		}
 
-		private void invokeRecordListener(final ConsumerRecords<K, V> records) {
-			if (this.transactionTemplate != null) {
-				invokeRecordListenerInTx(records);
+		/*
+		 * Consumer thread (rebalance listener); stop passing records from the revoked
+		 * partitions to the listener and wait for those already being processed on other
+		 * threads, so that their offsets can be committed. Work on the retained
+		 * partitions continues.
+		 */
+		private void drainRevokedPartitions(Collection<TopicPartition> partitions) {
+			BooleanSupplier drained;
+			if (this.pipeline != null) {
+				removeFromPipeline(partitions);
+				drained = () -> {
+					ConsumerRecords<K, V> current = this.pipelineCurrent;
+					return current == null || Collections.disjoint(current.partitions(), partitions);
+				};
+			}
+			else if (this.parallelDispatcher != null) {
+				drained = this.parallelDispatcher.revoke(partitions)::isDone;
+			}
+			else if (this.offsetsInThisBatch != null) {
+				drained = () -> !hasPendingOffsets(partitions);
 			}
 			else {
-				doInvokeWithRecords(records);
+				return;
+			}
+			Duration timeout = this.containerProperties.getRevocationDrainTimeout();
+			long end = System.currentTimeMillis()
+					+ (timeout == null ? this.containerProperties.getShutdownTimeout() : timeout.toMillis());
+			while (!drained.getAsBoolean() && System.currentTimeMillis() < end) {
+				PipelineFailure<K, V> failure = this.pipelineFailure;
+				if (failure != null) {
+					handlePipelineFailure(failure);
+				}
+				else {
+					handleAcks(); // other threads might be waiting for space in the ack queue
+					LockSupport.parkNanos(PIPELINE_QUIESCE_NANOS);
+				}
+			}
+			if (!drained.getAsBoolean()) {
+				this.logger.warn(() -> "Records from revoked partitions " + partitions + " are still being processed; "
+						+ "unacknowledged records will be redelivered to the new owner");
+			}
+		}
+
+		/*
+		 * Consumer thread; records fetched ahead for partitions about to be sought must not
+		 * reach the listener. Reposition to the first of them, so that a seek relative to
+		 * the current position is relative to what the listener has seen.
+		 */
+		private void discardPipelinedForSeeks() {
+			Set<TopicPartition> partitions = new HashSet<>();
+			this.seeks.forEach(tpo -> partitions.add(tpo.getTopicPartition()));
+			Map<TopicPartition, Long> removed = removeFromPipeline(partitions);
+			removed.forEach(this.consumer::seek);
+			if (!removed.isEmpty()) {
+				this.logger.debug(() -> "Discarded pipelined records before seeking; repositioned " + removed);
+			}
+		}
+
+		/**
+		 * Remove the records for the partitions from the batches that are waiting for the
+		 * pipeline thread.
+		 * @param partitions the partitions.
+		 * @return the first removed offset for each partition with removed records.
+		 */
+		private Map<TopicPartition, Long> removeFromPipeline(Collection<TopicPartition> partitions) {
+			List<ConsumerRecords<K, V>> queued = new ArrayList<>();
+			this.pipeline.drainTo(queued);
+			Map<TopicPartition, Long> firstRemoved = new HashMap<>();
+			int removed = 0;
+			for (ConsumerRecords<K, V> batch : queued) {
+				Map<TopicPartition, List<ConsumerRecord<K, V>>> retained = new LinkedHashMap<>();
+				for (TopicPartition tp : batch.partitions()) {
+					if (!partitions.contains(tp)) {
+						retained.put(tp, batch.records(tp));
+					}
+					else {
+						firstRemoved.merge(tp, batch.records(tp).get(0).offset(), Math::min);
+					}
+				}
+				if (retained.isEmpty()) {
+					removed++;
+				}
+				else {
+					this.pipeline.add(retained.size() == batch.partitions().size()
+							? batch
+							: new ConsumerRecords<>(retained));
+				}
+			}
+			this.pipelineInFlight.addAndGet(-removed);
+			return firstRemoved;
+		}
+
+		private boolean hasPendingOffsets(Collection<TopicPartition> partitions) {
+			this.asyncAcksLock.lock();
+			try {
+				for (TopicPartition tp : partitions) {
+					if (this.offsetsInThisBatch.containsKey(tp)) {
+						return true;
+					}
+				}
+				return false;
+			}
+			finally {
+				this.asyncAcksLock.unlock();
+			}
+		}
+
+		/*
+		 * Consumer thread; discard the queued batches and wait for the batch being
+		 * processed, so its acks can be committed (stop).
+		 */
+		private void quiescePipeline() {
+			discardPipelinedBatches();
+			long end = System.currentTimeMillis() + this.containerProperties.getShutdownTimeout();
+			while (this.pipelineInFlight.get() > 0 && System.currentTimeMillis() < end) {
+				PipelineFailure<K, V> failure = this.pipelineFailure;
+				if (failure != null) {
+					handlePipelineFailure(failure);
+				}
+				else {
+					handleAcks(); // the processing thread might be waiting for space in the ack queue
+					LockSupport.parkNanos(PIPELINE_QUIESCE_NANOS);
+				}
+			}
+			if (this.pipelineInFlight.get() > 0) {
+				this.logger.warn(() -> "Pipelined listener invocation did not complete within the shutdown timeout; "
+						+ "unacknowledged records will be redelivered");
+			}
+		}
+
+		private void invokeBatchOnMessageWithRecordsOrList(final ConsumerRecords<K, V> recordsArg,
+				@Nullable List<ConsumerRecord<K, V>> recordListArg) {
+
+			ConsumerRecords<K, V> records = recordsArg;
+			List<ConsumerRecord<K, V>> recordList = recordListArg;
+			if (this.listenerinfo != null) {
+				records.iterator().forEachRemaining(rec -> listenerInfo(rec));
+			}
+			if (this.batchInterceptor != null) {
+				records = this.batchInterceptor.intercept(recordsArg, this.consumer);
+				if (records == null) {
+					this.logger.debug(() -> "BatchInterceptor returned null, skipping: "
+							+ recordsArg + " with " + recordsArg.count() + " records");
+					return;
+				}
+				else {
+					recordList = createRecordList(records);
+				}
+			}
+			if (this.wantsFullRecords) {
+				this.batchListener.onMessage(records, // NOSONAR
+						this.isAnyManualAck
+								? new ConsumerBatchAcknowledgment(records, recordList)
+								: null,
+						this.consumer);
+			}
+			else {
+				doInvokeBatchOnMessage(records, recordList); // NOSONAR
+			}
+		}
+
+		private void doInvokeBatchOnMessage(final ConsumerRecords<K, V> records,
+				@Nullable List<ConsumerRecord<K, V>> recordList) {
+
+			try {
+				switch (this.listenerType) {
+					case ACKNOWLEDGING_CONSUMER_AWARE ->
+						this.batchListener.onMessage(recordList,
+								this.isAnyManualAck
+										? new ConsumerBatchAcknowledgment(records, recordList)
+										: null, this.consumer);
+					case ACKNOWLEDGING ->
+						this.batchListener.onMessage(recordList,
+								this.isAnyManualAck
+										? new ConsumerBatchAcknowledgment(records, recordList)
+										: null);
+					case CONSUMER_AWARE -> this.batchListener.onMessage(recordList, this.consumer);
+					case SIMPLE -> this.batchListener.onMessage(recordList);
+				}
+			}
+			catch (Exception ex) { //  NOSONAR
+				throw decorateException(ex);
+			}
+		}
+
+		private void invokeBatchErrorHandler(final ConsumerRecords<K, V> records,
+				@Nullable List<ConsumerRecord<K, V>> list, RuntimeException rte) {
+
+			if (this.commonErrorHandler.seeksAfterHandling() || this.transactionManager != null
+					|| rte instanceof CommitFailedException) {
+
+				this.commonErrorHandler.handleBatch(rte, records, this.consumer,
+						KafkaMessageListenerContainer.this.thisOrParentContainer,
+						() -> invokeBatchOnMessageWithRecordsOrList(records, list));
+			}
+			else {
+				ConsumerRecords<K, V> afterHandling = this.commonErrorHandler.handleBatchAndReturnRemaining(rte,
+						records, this.consumer, KafkaMessageListenerContainer.this.thisOrParentContainer,
+						() -> invokeBatchOnMessageWithRecordsOrList(records, list));
+				if (afterHandling != null && !afterHandling.isEmpty()) {
+					this.remainingRecords = afterHandling;
+					this.pauseForPending = true;
+				}
+			}
+		}
+
+		private void invokeRecordListener(final ConsumerRecords<K, V> recordsArg) {
+			if (this.parallelDispatcher != null) {
+				dispatchRecordsInParallel(recordsArg);
+				return;
+			}
+			/*
+			 * Deserialize them all up front so that the error handler, the after rollback
+			 * processor, and any remaining records that are redelivered, get deserialized
+			 * records.
+			 */
+			ConsumerRecords<K, V> records = deserializeIfDeferred(recordsArg);
+			if (this.transactionTemplate != null && this.transactionBatchSize > 1) {
+				invokeRecordListenerInTxBatches(records);
+			}
+			else if (this.transactionTemplate != null) {
+				invokeRecordListenerInTx(records);
+			}
+			else {
+				doInvokeWithRecords(records);
 			}
 		}
 
@@ -2553,6 +3172,202 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			});
 		}
 
+		/**
+		 * Invoke the listener with groups of records, each group in a single transaction.
+		 * @param records the records.
+		 */
+		private void invokeRecordListenerInTxBatches(final ConsumerRecords<K, V> records) {
+			Iterator<ConsumerRecord<K, V>> iterator = records.iterator();
+			while (iterator.hasNext()) {
+				if (this.stopImmediate && !isRunning()) {
+					break;
+				}
+				List<ConsumerRecord<K, V>> group = new ArrayList<>();
+				try {
+					invokeBatchInTransaction(iterator, group);
+				}
+				catch (ProducerFencedException | FencedInstanceIdException e) {
+					this.logger.error(e, "Producer or 'group.instance.id' fenced during transaction");
+					if (this.containerProperties.isStopContainerWhenFenced()) {
+						throw new StopAfterFenceException("Container stopping due to fencing", e);
+					}
+					break;
+				}
+				catch (RuntimeException ex) {
+					this.logger.error(ex, "Transaction rolled back; retrying the records in separate transactions");
+					discardAcks(group);
+					if (replayInSeparateTransactions(records, group, iterator)) {
+						break;
+					}
+					continue;
+				}
+				if (this.commonRecordInterceptor != null) {
+					group.forEach(cRecord -> this.commonRecordInterceptor.afterRecord(cRecord, this.consumer));
+				}
+				if (this.nackSleepDurationMillis >= 0 && !group.isEmpty()) {
+					handleNack(records, group.get(group.size() - 1));
+					break;
+				}
+				if (checkImmediatePause(iterator)) {
+					break;
+				}
+			}
+		}
+
+		/*
+		 * The acks for the records in a rolled back group must not be sent with the next
+		 * transaction; acks for earlier records (e.g. from other threads) are retained.
+		 */
+		private void discardAcks(List<ConsumerRecord<K, V>> group) {
+			Map<TopicPartition, Long> firstInGroup = new HashMap<>();
+			group.forEach(rec -> firstInGroup.merge(new TopicPartition(rec.topic(), rec.partition()), rec.offset(),
+					Math::min));
+			Predicate<ConsumerRecord<K, V>> inGroup = rec -> {
+				Long first = firstInGroup.get(new TopicPartition(rec.topic(), rec.partition()));
+				return first != null && rec.offset() >= first;
+			};
+			List<ConsumerRecord<K, V>> retained = new ArrayList<>();
+			this.acks.drain(rec -> {
+				if (!inGroup.test(rec)) {
+					retained.add(rec);
+				}
+			});
+			retained.forEach(this::addAck);
+			firstInGroup.forEach((tp, first) -> {
+				Map<Integer, Long> partitions = this.offsets.get(tp.topic());
+				if (partitions != null) {
+					partitions.computeIfPresent(tp.partition(), (part, offset) -> offset >= first ? null : offset);
+					if (partitions.isEmpty()) {
+						this.offsets.remove(tp.topic());
+					}
+				}
+			});
+			if (this.offsets.isEmpty()) {
+				resetCoalescing();
+			}
+		}
+
+		/**
+		 * Invoke the listener with each record of a rolled back group in a separate
+		 * transaction, so that the after rollback processor (or error handler) gets the
+		 * record that actually failed, followed by the remaining records.
+		 * @param records the records.
+		 * @param group the records of the rolled back group.
+		 * @param iterator the iterator positioned after the group.
+		 * @return true if the remaining records must not be processed now.
+		 */
+		private boolean replayInSeparateTransactions(ConsumerRecords<K, V> records, List<ConsumerRecord<K, V>> group,
+				Iterator<ConsumerRecord<K, V>> iterator) {
+
+			CompositeIterator<ConsumerRecord<K, V>> replay = new CompositeIterator<>();
+			replay.add(group.iterator());
+			replay.add(iterator);
+			for (int i = 0; i < group.size() && replay.hasNext(); i++) {
+				final ConsumerRecord<K, V> cRecord = replay.next();
+				this.logger.trace(() -> "Retrying " + KafkaUtils.format(cRecord));
+				try {
+					invokeInTransaction(replay, cRecord);
+				}
+				catch (ProducerFencedException | FencedInstanceIdException e) {
+					this.logger.error(e, "Producer or 'group.instance.id' fenced during transaction");
+					if (this.containerProperties.isStopContainerWhenFenced()) {
+						throw new StopAfterFenceException("Container stopping due to fencing", e);
+					}
+					return true;
+				}
+				catch (RuntimeException ex) {
+					this.logger.error(ex, "Transaction rolled back");
+					recordAfterRollback(replay, cRecord, ex);
+				}
+				if (this.commonRecordInterceptor != null) {
+					this.commonRecordInterceptor.afterRecord(cRecord, this.consumer);
+				}
+				if (this.nackSleepDurationMillis >= 0) {
+					handleNack(records, cRecord);
+					return true;
+				}
+				if (checkImmediatePause(replay)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@SuppressWarnings(RAWTYPES)
+		private void invokeBatchInTransaction(Iterator<ConsumerRecord<K, V>> iterator,
+				List<ConsumerRecord<K, V>> group) {
+
+			this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+				@Override
+				public void doInTransactionWithoutResult(TransactionStatus s) {
+					if (ListenerConsumer.this.kafkaTxManager != null) {
+						ListenerConsumer.this.producer = ((KafkaResourceHolder) TransactionSynchronizationManager
+								.getResource(ListenerConsumer.this.kafkaTxManager.getProducerFactory()))
+										.getProducer(); // NOSONAR
+					}
+					invokeTransactionBatch(iterator, group);
+				}
+
+			});
+		}
+
+		private void invokeTransactionBatch(Iterator<ConsumerRecord<K, V>> iterator, List<ConsumerRecord<K, V>> group) {
+			long end = this.transactionBatchTimeout > 0
+					? System.currentTimeMillis() + this.transactionBatchTimeout
+					: Long.MAX_VALUE;
+			this.inTransactionBatch = true;
+			try {
+				while (iterator.hasNext() && group.size() < this.transactionBatchSize
+						&& System.currentTimeMillis() < end) {
+
+					final ConsumerRecord<K, V> cRecord = checkEarlyIntercept(iterator.next());
+					if (cRecord == null) {
+						continue;
+					}
+					group.add(cRecord);
+					this.logger.trace(() -> "Processing " + KafkaUtils.format(cRecord));
+					doInvokeRecordListenerInBatch(cRecord);
+					if (this.nackSleepDurationMillis >= 0 || (this.stopImmediate && !isRunning())
+							|| (isPaused() && this.pauseImmediate)) {
+						break;
+					}
+				}
+			}
+			finally {
+				this.inTransactionBatch = false;
+			}
+			if (this.producer != null) {
+				sendOffsetsToTransaction();
+			}
+		}
+
+		/**
+		 * Invoke the listener for a record in a transaction batch; exceptions are not
+		 * passed to the error handler, so the whole batch is rolled back.
+		 * @param cRecord the record.
+		 */
+		private void doInvokeRecordListenerInBatch(final ConsumerRecord<K, V> cRecord) {
+			Object sample = startMicrometerSample();
+			Observation observation = KafkaListenerObservation.LISTENER_OBSERVATION.observation(
+					this.containerProperties.getObservationConvention(),
+					DefaultKafkaListenerObservationConvention.INSTANCE,
+					() -> new KafkaRecordReceiverContext(cRecord, getListenerId(), this::clusterId),
+					this.observationRegistry);
+			observation.observe(() -> {
+				try {
+					invokeOnMessage(cRecord);
+					successTimer(sample, cRecord);
+					recordInterceptAfter(cRecord, null);
+				}
+				catch (RuntimeException e) {
+					failureTimer(sample, cRecord);
+					recordInterceptAfter(cRecord, e);
+					throw e;
+				}
+			});
+		}
+
 		private void recordAfterRollback(Iterator<ConsumerRecord<K, V>> iterator, final ConsumerRecord<K, V> cRecord,
 				RuntimeException e) {
 
@@ -2561,6 +3376,10 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			while (iterator.hasNext()) {
 				unprocessed.add(iterator.next());
 			}
+			afterRollback(unprocessed, e);
+		}
+
+		private void afterRollback(List<ConsumerRecord<K, V>> unprocessed, RuntimeException e) {
 			@SuppressWarnings(UNCHECKED)
 			AfterRollbackProcessor<K, V> afterRollbackProcessorToUse =
 					(AfterRollbackProcessor<K, V>) getAfterRollbackProcessor();
@@ -2615,6 +3434,148 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			}
 		}
 
+		/**
+		 * Hand off each record to the parallel dispatcher; records with the same key (or
+		 * from the same partition) are processed in order, on the same lane. The
+		 * consumer remains paused until all the records have been acknowledged.
+		 * @param records the records.
+		 */
+		private void dispatchRecordsInParallel(final ConsumerRecords<K, V> records) {
+			boolean deserialize = !DeferredDeserializer.isDeserialized(records);
+			for (ConsumerRecord<K, V> cRecord : records) {
+				internalHeaders(cRecord);
+				this.logger.trace(() -> "Dispatching " + KafkaUtils.format(cRecord));
+				this.parallelDispatcher.dispatch(cRecord,
+						() -> invokeRecordListenerInParallel(deserialize ? deserializeIfDeferred(cRecord) : cRecord));
+			}
+		}
+
+		/**
+		 * Invoke the listener on a parallel worker thread; the error handler is invoked on
+		 * the same thread and the invocation is retried until the error handler reports
+		 * that the record is recovered, or the container is stopped, in which case the
+		 * record is not acknowledged and will be redelivered. Successive attempts are
+		 * separated by at least an exponentially increasing interval (from 10ms up to 10
+		 * seconds), so that a worker does not spin when the error handler does not back off
+		 * itself (for example, when there is no error handler or it throws an exception).
+		 * @param cRecord the record.
+		 */
+		private void invokeRecordListenerInParallel(final ConsumerRecord<K, V> cRecord) {
+			if (this.stopImmediate && !isRunning()) {
+				return;
+			}
+			this.logger.trace(() -> "Processing " + KafkaUtils.format(cRecord));
+			try {
+				BackOffExecution backOff = null;
+				boolean done = false;
+				while (!done) {
+					RuntimeException exception = doInvokeRecordListenerInParallel(cRecord);
+					if (exception == null) {
+						if (!this.isAnyManualAck) {
+							ackInParallel(cRecord);
+						}
+						done = true;
+					}
+					else {
+						long failed = System.currentTimeMillis();
+						if (handleParallelException(cRecord, exception)) {
+							ackInParallel(cRecord);
+							done = true;
+						}
+						else if (isRunning()) {
+							if (backOff == null) {
+								backOff = parallelRetryBackOff();
+							}
+							done = !backOffParallelRetry(backOff, System.currentTimeMillis() - failed);
+						}
+						else {
+							done = true;
+						}
+					}
+				}
+			}
+			finally {
+				if (this.commonRecordInterceptor != null) {
+					this.commonRecordInterceptor.afterRecord(cRecord, this.consumer);
+				}
+			}
+		}
+
+		@Nullable
+		private RuntimeException doInvokeRecordListenerInParallel(final ConsumerRecord<K, V> cRecord) {
+			Object sample = startMicrometerSample();
+			Observation observation = KafkaListenerObservation.LISTENER_OBSERVATION.observation(
+					this.containerProperties.getObservationConvention(),
+					DefaultKafkaListenerObservationConvention.INSTANCE,
+					() -> new KafkaRecordReceiverContext(cRecord, getListenerId(), this::clusterId),
+					this.observationRegistry);
+			return observation.observe(() -> {
+				try {
+					checkDeserializationExceptions(cRecord);
+					doInvokeOnMessage(cRecord);
+					successTimer(sample, cRecord);
+					recordInterceptAfter(cRecord, null);
+				}
+				catch (RuntimeException e) {
+					failureTimer(sample, cRecord);
+					recordInterceptAfter(cRecord, e);
+					return e;
+				}
+				return null;
+			});
+		}
+
+		private boolean handleParallelException(final ConsumerRecord<K, V> cRecord, RuntimeException exception) {
+			if (this.commonErrorHandler == null) {
+				this.logger.error(exception, () -> "Listener failed for " + KafkaUtils.format(cRecord));
+				return false;
+			}
+			try {
+				return this.commonErrorHandler.handleOne(exception, cRecord, this.consumer,
+						KafkaMessageListenerContainer.this.thisOrParentContainer);
+			}
+			catch (KafkaException ke) {
+				ke.selfLog(ERROR_HANDLER_THREW_AN_EXCEPTION, this.logger);
+			}
+			catch (RuntimeException ee) {
+				this.logger.error(ee, ERROR_HANDLER_THREW_AN_EXCEPTION);
+			}
+			return false;
+		}
+
+		private BackOffExecution parallelRetryBackOff() {
+			ExponentialBackOff backOff = new ExponentialBackOff(PARALLEL_RETRY_INITIAL_INTERVAL,
+					ExponentialBackOff.DEFAULT_MULTIPLIER);
+			backOff.setMaxInterval(PARALLEL_RETRY_MAX_INTERVAL);
+			return backOff.start();
+		}
+
+		private boolean backOffParallelRetry(BackOffExecution backOff, long elapsed) {
+			long interval = backOff.nextBackOff() - elapsed;
+			try {
+				if (interval > 0) {
+					ListenerUtils.stoppableSleep(KafkaMessageListenerContainer.this.thisOrParentContainer, interval);
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			return isRunning();
+		}
+
+		private void ackInParallel(final ConsumerRecord<K, V> cRecord) {
+			try {
+				traceAck(cRecord);
+				ackInOrder(cRecord);
+			}
+			catch (IllegalStateException ex) {
+				// the partition was revoked while the record was being processed
+				this.logger.debug(() -> "Could not acknowledge " + KafkaUtils.format(cRecord) + ": "
+						+ ex.getMessage());
+			}
+		}
+
 		private boolean checkImmediatePause(Iterator<ConsumerRecord<K, V>> iterator) {
 			if (isPaused() && this.pauseImmediate) {
 				Map<TopicPartition, List<ConsumerRecord<K, V>>> remaining = new LinkedHashMap<>();
@@ -2631,6 +3592,26 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			return false;
 		}
 
+		private ConsumerRecords<K, V> deserializeIfDeferred(ConsumerRecords<K, V> records) {
+			if (this.deferredDeserializer == null || DeferredDeserializer.isDeserialized(records)) {
+				return records;
+			}
+			long start = phaseStart();
+			ConsumerRecords<K, V> deserialized = this.deferredDeserializer.deserialize(records);
+			phaseEnd(Phase.DESERIALIZE, start, records.count());
+			return deserialized;
+		}
+
+		private ConsumerRecord<K, V> deserializeIfDeferred(ConsumerRecord<K, V> cRecord) {
+			if (this.deferredDeserializer == null) {
+				return cRecord;
+			}
+			long start = phaseStart();
+			ConsumerRecord<K, V> deserialized = this.deferredDeserializer.deserialize(cRecord);
+			phaseEnd(Phase.DESERIALIZE, start, 1);
+			return deserialized;
+		}
+
 		@Nullable
 		private ConsumerRecords<K, V> checkEarlyIntercept(ConsumerRecords<K, V> nextArg) {
 			ConsumerRecords<K, V> next = nextArg;
@@ -2819,7 +3800,17 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		}
 
 		private void invokeOnMessage(final ConsumerRecord<K, V> cRecord) {
+			checkDeserializationExceptions(cRecord);
+			doInvokeOnMessage(cRecord);
+			if (this.nackSleepDurationMillis < 0 && !this.isManualImmediateAck) {
+				ackCurrent(cRecord);
+			}
+			if (this.isCountAck || this.isTimeOnlyAck) {
+				doProcessCommits();
+			}
+		}
 
+		private void checkDeserializationExceptions(final ConsumerRecord<K, V> cRecord) {
 			if (cRecord.value() instanceof DeserializationException ex) {
 				throw ex;
 			}
@@ -2832,13 +3823,6 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			if (cRecord.key() == null && this.checkNullKeyForExceptions) {
 				checkDeser(cRecord, SerializationUtils.KEY_DESERIALIZER_EXCEPTION_HEADER);
 			}
-			doInvokeOnMessage(cRecord);
-			if (this.nackSleepDurationMillis < 0 && !this.isManualImmediateAck) {
-				ackCurrent(cRecord);
-			}
-			if (this.isCountAck || this.isTimeOnlyAck) {
-				doProcessCommits();
-			}
 		}
 
 		private void doInvokeOnMessage(final ConsumerRecord<K, V> recordArg) {
@@ -2982,6 +3966,10 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		public void ackCurrent(final ConsumerRecord<K, V> cRecord) {
 
 			if (this.isRecordAck) {
+				if (this.coalesceCommits && this.producer == null) {
+					coalesceAck(cRecord);
+					return;
+				}
 				Map<TopicPartition, OffsetAndMetadata> offsetsToCommit =
 						Collections.singletonMap(new TopicPartition(cRecord.topic(), cRecord.partition()),
 								createOffsetAndMetadata(cRecord.offset() + 1));
@@ -2995,14 +3983,14 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 					}
 				}
 				else {
-					this.acks.add(cRecord);
+					addAck(cRecord);
 				}
 			}
 			else if (this.producer != null
 					|| ((!this.isAnyManualAck || this.commitRecovered) && !this.autoCommit)) {
-				this.acks.add(cRecord);
+				addAck(cRecord);
 			}
-			if (this.producer != null) {
+			if (this.producer != null && !this.inTransactionBatch) {
 				sendOffsetsToTransaction();
 			}
 		}
@@ -3023,8 +4011,24 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		}
 
 		private void processCommits() {
-			this.count += this.acks.size();
+			this.count += this.acks.size() + this.ackBacklog.size();
+			long start = phaseStart();
 			handleAcks();
+			phaseEnd(Phase.ACKS, start);
+			start = phaseStart();
+			try {
+				commitAckedOffsets();
+			}
+			finally {
+				phaseEnd(Phase.COMMIT, start);
+			}
+		}
+
+		private void commitAckedOffsets() {
+			if (this.coalesceCommits) {
+				commitCoalescedIfNecessary();
+				return;
+			}
 			AckMode ackMode = this.containerProperties.getAckMode();
 			if (!this.isManualImmediateAck) {
 				if (!this.isManualAck) {
@@ -3046,6 +4050,44 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			}
 		}
 
+		/**
+		 * Hold the offset until the coalescing window closes.
+		 * @param cRecord the acknowledged record.
+		 */
+		private void coalesceAck(ConsumerRecord<K, V> cRecord) {
+			addOffset(cRecord);
+			this.coalescedCount++;
+			this.coalescedBytes += Math.max(0, cRecord.serializedKeySize())
+					+ Math.max(0, cRecord.serializedValueSize());
+			commitCoalescedIfNecessary();
+		}
+
+		private void commitCoalescedIfNecessary() {
+			if (this.offsets.isEmpty()) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if ((this.commitCoalesceCount > 0 && this.coalescedCount >= this.commitCoalesceCount)
+					|| (this.commitCoalesceBytes > 0 && this.coalescedBytes >= this.commitCoalesceBytes)
+					|| (this.commitCoalesceInterval != null
+							&& now - this.lastCoalescedCommit >= this.commitCoalesceInterval.toMillis())) {
+
+				this.logger.debug(() -> "Committing coalesced offsets for " + this.coalescedCount + " records ("
+						+ this.coalescedBytes + " bytes)");
+				commitIfNecessary();
+			}
+		}
+
+		/**
+		 * Start a new coalescing window; called whenever the pending offsets are committed
+		 * or discarded, for whatever reason.
+		 */
+		private void resetCoalescing() {
+			this.coalescedCount = 0;
+			this.coalescedBytes = 0;
+			this.lastCoalescedCommit = System.currentTimeMillis();
+		}
+
 		private void timedAcks(AckMode ackMode) {
 			long now;
 			now = System.currentTimeMillis();
@@ -3068,6 +4110,9 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 		}
 
 		private void processSeeks() {
+			if (this.pipeline != null) {
+				discardPipelinedForSeeks();
+			}
 			processTimestampSeeks();
 			TopicPartitionOffset offset = this.seeks.poll();
 			while (offset != null) {
@@ -3292,6 +4337,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				}
 			}
 			this.offsets.clear();
+			resetCoalescing();
 			return commits;
 		}
 
@@ -3433,13 +4479,11 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 					acknowledge(this.partial + 1);
 					return;
 				}
-				Map<TopicPartition, List<Long>> offs = ListenerConsumer.this.offsetsInThisBatch;
+				Map<TopicPartition, OffsetTracker> offs = ListenerConsumer.this.offsetsInThisBatch;
 				if (!this.acked) {
-					Map<TopicPartition, List<ConsumerRecord<K, V>>> deferred = ListenerConsumer.this.deferredOffsets;
 					for (ConsumerRecord<K, V> cRecord : getHighestOffsetRecords(this.records)) {
 						if (offs != null) {
 							offs.remove(new TopicPartition(cRecord.topic(), cRecord.partition()));
-							deferred.remove(new TopicPartition(cRecord.topic(), cRecord.partition()));
 						}
 					}
 					processAcks(this.records);
@@ -3524,6 +4568,7 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 			@Override
 			public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
 				this.revoked.addAll(partitions);
+				drainRevokedPartitions(partitions);
 				removeRevocationsFromPending(partitions);
 				if (this.consumerAwareListener != null) {
 					this.consumerAwareListener.onPartitionsRevokedBeforeCommit(ListenerConsumer.this.consumer,
@@ -3554,18 +4599,19 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 				}
 				ListenerConsumer.this.pausedForNack.removeAll(partitions);
 				partitions.forEach(ListenerConsumer.this.lastCommits::remove);
-				synchronized (ListenerConsumer.this) {
-					Map<TopicPartition, List<Long>> pendingOffsets = ListenerConsumer.this.offsetsInThisBatch;
+				ListenerConsumer.this.asyncAcksLock.lock();
+				try {
+					Map<TopicPartition, OffsetTracker> pendingOffsets = ListenerConsumer.this.offsetsInThisBatch;
 					if (pendingOffsets != null) {
-						partitions.forEach(tp -> {
-							pendingOffsets.remove(tp);
-							ListenerConsumer.this.deferredOffsets.remove(tp);
-						});
+						partitions.forEach(pendingOffsets::remove);
 						if (pendingOffsets.isEmpty()) {
 							ListenerConsumer.this.consumerPaused = false;
 						}
 					}
 				}
+				finally {
+					ListenerConsumer.this.asyncAcksLock.unlock();
+				}
 			}
 
 			private void removeRevocationsFromPending(Collection<TopicPartition> partitions) {
@@ -3617,12 +4663,16 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 
 			private void repauseIfNeeded(Collection<TopicPartition> partitions) {
 				boolean pending = false;
-				synchronized (ListenerConsumer.this) {
-					Map<TopicPartition, List<Long>> pendingOffsets = ListenerConsumer.this.offsetsInThisBatch;
+				ListenerConsumer.this.asyncAcksLock.lock();
+				try {
+					Map<TopicPartition, OffsetTracker> pendingOffsets = ListenerConsumer.this.offsetsInThisBatch;
 					if (!ObjectUtils.isEmpty(pendingOffsets)) {
 						pending = true;
 					}
 				}
+				finally {
+					ListenerConsumer.this.asyncAcksLock.unlock();
+				}
 				if ((pending || isPaused() || ListenerConsumer.this.remainingRecords != null)
 						&& !partitions.isEmpty()) {
 
@@ -3851,6 +4901,10 @@ public class KafkaMessageListenerContainer<K, V> // NOSONAR line count
 	}
 
 
+	private record PipelineFailure<K, V>(ConsumerRecords<K, V> records, @Nullable List<ConsumerRecord<K, V>> recordList,
+			RuntimeException exception, CountDownLatch handled) {
+	}
+
 	private static final class OffsetMetadata {
 
 		final Long offset; // NOSONAR
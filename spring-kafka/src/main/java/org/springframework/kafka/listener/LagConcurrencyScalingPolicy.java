@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import java.time.Duration;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ConcurrencyScalingPolicy} that adds a consumer when the lag per consumer, the
+ * busy ratio, or the time between polls is above its threshold, and removes a consumer
+ * when both the lag per consumer and the busy ratio are below their thresholds.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class LagConcurrencyScalingPolicy implements ConcurrencyScalingPolicy {
+
+	/**
+	 * The default lag per consumer above which a consumer is added.
+	 */
+	public static final long DEFAULT_SCALE_UP_LAG = 1000L;
+
+	/**
+	 * The default lag per consumer below which a consumer may be removed.
+	 */
+	public static final long DEFAULT_SCALE_DOWN_LAG = 100L;
+
+	/**
+	 * The default busy ratio above which a consumer is added.
+	 */
+	public static final double DEFAULT_SCALE_UP_BUSY_RATIO = 0.8;
+
+	/**
+	 * The default busy ratio below which a consumer may be removed.
+	 */
+	public static final double DEFAULT_SCALE_DOWN_BUSY_RATIO = 0.3;
+
+	private long scaleUpLag = DEFAULT_SCALE_UP_LAG;
+
+	private long scaleDownLag = DEFAULT_SCALE_DOWN_LAG;
+
+	private double scaleUpBusyRatio = DEFAULT_SCALE_UP_BUSY_RATIO;
+
+	private double scaleDownBusyRatio = DEFAULT_SCALE_DOWN_BUSY_RATIO;
+
+	@Nullable
+	private Duration maxTimeBetweenPolls;
+
+	/**
+	 * Set the lag per consumer above which a consumer is added; default
+	 * {@value #DEFAULT_SCALE_UP_LAG}.
+	 * @param scaleUpLag the lag.
+	 */
+	public void setScaleUpLag(long scaleUpLag) {
+		Assert.isTrue(scaleUpLag > 0, "'scaleUpLag' must be greater than 0");
+		this.scaleUpLag = scaleUpLag;
+	}
+
+	/**
+	 * Set the lag per consumer below which a consumer may be removed; default
+	 * {@value #DEFAULT_SCALE_DOWN_LAG}.
+	 * @param scaleDownLag the lag.
+	 */
+	public void setScaleDownLag(long scaleDownLag) {
+		Assert.isTrue(scaleDownLag >= 0, "'scaleDownLag' cannot be negative");
+		this.scaleDownLag = scaleDownLag;
+	}
+
+	/**
+	 * Set the busy ratio above which a consumer is added; default
+	 * {@value #DEFAULT_SCALE_UP_BUSY_RATIO}.
+	 * @param scaleUpBusyRatio the ratio.
+	 */
+	public void setScaleUpBusyRatio(double scaleUpBusyRatio) {
+		Assert.isTrue(scaleUpBusyRatio > 0 && scaleUpBusyRatio <= 1, "'scaleUpBusyRatio' must be > 0 and <= 1");
+		this.scaleUpBusyRatio = scaleUpBusyRatio;
+	}
+
+	/**
+	 * Set the busy ratio below which a consumer may be removed; default
+	 * {@value #DEFAULT_SCALE_DOWN_BUSY_RATIO}.
+	 * @param scaleDownBusyRatio the ratio.
+	 */
+	public void setScaleDownBusyRatio(double scaleDownBusyRatio) {
+		Assert.isTrue(scaleDownBusyRatio >= 0 && scaleDownBusyRatio < 1, "'scaleDownBusyRatio' must be >= 0 and < 1");
+		this.scaleDownBusyRatio = scaleDownBusyRatio;
+	}
+
+	/**
+	 * Set the average time between polls above which a consumer is added, for example,
+	 * a fraction of {@code max.poll.interval.ms}; default none.
+	 * @param maxTimeBetweenPolls the time.
+	 */
+	public void setMaxTimeBetweenPolls(@Nullable Duration maxTimeBetweenPolls) {
+		this.maxTimeBetweenPolls = maxTimeBetweenPolls;
+	}
+
+	@Override
+	public int determineConcurrency(ScalingMetrics metrics) {
+		int concurrency = metrics.concurrency();
+		long lagPerConsumer = metrics.lag() / Math.max(1, concurrency);
+		if (lagPerConsumer > this.scaleUpLag
+				|| metrics.busyRatio() > this.scaleUpBusyRatio
+				|| (this.maxTimeBetweenPolls != null
+						&& metrics.timeBetweenPolls() > this.maxTimeBetweenPolls.toMillis())) {
+
+			return concurrency + 1;
+		}
+		if (lagPerConsumer < this.scaleDownLag && metrics.busyRatio() < this.scaleDownBusyRatio) {
+			return concurrency - 1;
+		}
+		return concurrency;
+	}
+
+}
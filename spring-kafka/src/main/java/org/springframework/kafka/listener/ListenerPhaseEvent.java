@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for one phase of a listener container's poll loop.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+@Name("org.springframework.kafka.ListenerPhase")
+@Label("Kafka Listener Phase")
+@Category({ "Spring Kafka", "Listener Container" })
+@Description("A phase of the listener container poll loop")
+@StackTrace(false)
+class ListenerPhaseEvent extends Event {
+
+	@Label("Listener Id")
+	String listenerId;
+
+	@Label("Phase")
+	String phase;
+
+	@Label("Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long elapsed;
+
+	@Label("Records")
+	int records;
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.kafka.support.micrometer.MicrometerHolder;
+import org.springframework.lang.Nullable;
+
+/**
+ * Records the time spent in each phase of a listener container's poll loop as
+ * Micrometer timers and/or Java Flight Recorder events.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+final class ListenerPhaseMonitor {
+
+	/**
+	 * The poll loop phases.
+	 */
+	enum Phase {
+
+		/**
+		 * Committing the offsets of acknowledged records.
+		 */
+		COMMIT,
+
+		/**
+		 * Draining the queue of acks performed on other threads.
+		 */
+		ACKS,
+
+		/**
+		 * Performing seeks requested by the listener.
+		 */
+		SEEK,
+
+		/**
+		 * Sleeping for the {@code idleBetweenPolls}.
+		 */
+		IDLE,
+
+		/**
+		 * {@code Consumer.poll()}, including deserialization (unless deferred).
+		 */
+		POLL,
+
+		/**
+		 * Deferred deserialization; when performed on the consumer thread, this time is
+		 * also included in {@link #INVOKE}.
+		 */
+		DESERIALIZE,
+
+		/**
+		 * Invoking the listener (or handing off the records to the processing threads).
+		 */
+		INVOKE
+
+	}
+
+	private final String listenerId;
+
+	private final boolean events;
+
+	@Nullable
+	private final MicrometerHolder micrometerHolder;
+
+	private final Map<Phase, Object> timers = new EnumMap<>(Phase.class);
+
+	@Nullable
+	private final Object recordsPerPoll;
+
+	ListenerPhaseMonitor(String listenerId, @Nullable MicrometerHolder micrometerHolder, boolean events) {
+		this.listenerId = listenerId;
+		this.micrometerHolder = micrometerHolder;
+		this.events = events;
+		if (micrometerHolder != null) {
+			for (Phase phase : Phase.values()) {
+				this.timers.put(phase, micrometerHolder.timer("spring.kafka.listener.phase",
+						"Kafka Listener Poll Loop Phase", "phase", phase.name().toLowerCase(Locale.ROOT)));
+			}
+			this.recordsPerPoll = micrometerHolder.summary("spring.kafka.listener.poll.records",
+					"Records returned by each poll");
+		}
+		else {
+			this.recordsPerPoll = null;
+		}
+	}
+
+	/**
+	 * Return the start time of a phase.
+	 * @return the start time in nanoseconds.
+	 */
+	long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Record the end of a phase.
+	 * @param phase the phase.
+	 * @param start the start time returned by {@link #start()}.
+	 */
+	void end(Phase phase, long start) {
+		end(phase, start, 0);
+	}
+
+	/**
+	 * Record the end of a phase that processed records.
+	 * @param phase the phase.
+	 * @param start the start time returned by {@link #start()}.
+	 * @param records the number of records.
+	 */
+	void end(Phase phase, long start, int records) {
+		long elapsed = System.nanoTime() - start;
+		if (this.micrometerHolder != null) {
+			this.micrometerHolder.recordTime(this.timers.get(phase), elapsed);
+			if (Phase.POLL.equals(phase)) {
+				this.micrometerHolder.recordAmount(this.recordsPerPoll, records);
+			}
+		}
+		if (this.events) {
+			ListenerPhaseEvent event = new ListenerPhaseEvent();
+			if (event.isEnabled()) {
+				event.listenerId = this.listenerId;
+				event.phase = phase.name();
+				event.elapsed = elapsed;
+				event.records = records;
+				event.commit();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Tracks the completion of the records for one partition from a poll, when records
+ * can be completed out of order; the offsets are held in a primitive array and the
+ * completions in a bit set, so no boxing or record retention is needed. The leader epoch
+ * of each record is also kept, so that it is not lost when acknowledging a record that
+ * is not retained. Offsets in the batch need not be contiguous (e.g. with compacted
+ * topics or transaction markers).
+ * <p>
+ * Not thread-safe; callers must synchronize.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+final class OffsetTracker {
+
+	private static final int WORD_SHIFT = 6;
+
+	private static final long NOT_COMMITTABLE = -1L;
+
+	private static final int NO_LEADER_EPOCH = -1;
+
+	private final long[] offsets;
+
+	@Nullable
+	private final int[] leaderEpochs;
+
+	private final long[] completions;
+
+	private final long base;
+
+	private final boolean contiguous;
+
+	private int next;
+
+	private int completedAhead;
+
+	/**
+	 * Construct an instance for the provided offsets, which must be in ascending order.
+	 * @param offsets the offsets.
+	 */
+	OffsetTracker(long[] offsets) {
+		this(offsets, null);
+	}
+
+	/**
+	 * Construct an instance for the provided offsets, which must be in ascending order,
+	 * and the leader epochs of the records at those offsets (negative if unknown).
+	 * @param offsets the offsets.
+	 * @param leaderEpochs the leader epochs, or null if unknown.
+	 */
+	OffsetTracker(long[] offsets, @Nullable int[] leaderEpochs) {
+		Assert.isTrue(offsets.length > 0, "'offsets' cannot be empty");
+		Assert.isTrue(leaderEpochs == null || leaderEpochs.length == offsets.length,
+				"'leaderEpochs' must be the same length as 'offsets'");
+		this.offsets = offsets;
+		this.leaderEpochs = leaderEpochs;
+		this.completions = new long[((offsets.length - 1) >>> WORD_SHIFT) + 1];
+		this.base = offsets[0];
+		this.contiguous = offsets[offsets.length - 1] - this.base == offsets.length - 1;
+	}
+
+	/**
+	 * Create an instance for the records from one partition returned by a poll.
+	 * @param records the records.
+	 * @return the tracker.
+	 */
+	static OffsetTracker forRecords(List<? extends ConsumerRecord<?, ?>> records) {
+		long[] offsets = new long[records.size()];
+		int[] leaderEpochs = null;
+		int i = 0;
+		for (ConsumerRecord<?, ?> rec : records) {
+			Optional<Integer> leaderEpoch = rec.leaderEpoch();
+			if (leaderEpoch.isPresent()) {
+				if (leaderEpochs == null) {
+					leaderEpochs = new int[offsets.length];
+					Arrays.fill(leaderEpochs, NO_LEADER_EPOCH);
+				}
+				leaderEpochs[i] = leaderEpoch.get();
+			}
+			offsets[i++] = rec.offset();
+		}
+		return new OffsetTracker(offsets, leaderEpochs);
+	}
+
+	/**
+	 * Record the completion of the offset.
+	 * @param offset the offset.
+	 * @return the highest offset that can now be committed (all lower offsets in the
+	 * batch are complete), or a negative number if the committable offset has not
+	 * advanced.
+	 * @throws IllegalStateException if the offset is not part of this batch.
+	 */
+	long complete(long offset) {
+		int index = indexOf(offset);
+		if (index < 0) {
+			throw new IllegalStateException("Offset " + offset + " is not part of this batch; "
+					+ this);
+		}
+		if (index < this.next || isComplete(index)) {
+			return NOT_COMMITTABLE;
+		}
+		this.completions[index >>> WORD_SHIFT] |= 1L << index;
+		if (index != this.next) {
+			this.completedAhead++;
+			return NOT_COMMITTABLE;
+		}
+		this.next++;
+		while (this.next < this.offsets.length && isComplete(this.next)) {
+			this.next++;
+			this.completedAhead--;
+		}
+		return this.offsets[this.next - 1];
+	}
+
+	/**
+	 * Return the leader epoch of the record at the offset.
+	 * @param offset the offset.
+	 * @return the leader epoch, or empty if unknown or the offset is not part of this
+	 * batch.
+	 */
+	Optional<Integer> getLeaderEpoch(long offset) {
+		int index = indexOf(offset);
+		if (this.leaderEpochs == null || index < 0 || this.leaderEpochs[index] < 0) {
+			return Optional.empty();
+		}
+		return Optional.of(this.leaderEpochs[index]);
+	}
+
+	/**
+	 * Return true if all the offsets are complete.
+	 * @return true if complete.
+	 */
+	boolean isComplete() {
+		return this.next == this.offsets.length;
+	}
+
+	/**
+	 * Return the lowest offset that is not yet complete, or a negative number if all the
+	 * offsets are complete; the committed offset cannot advance past this offset.
+	 * @return the offset.
+	 */
+	long getFirstPending() {
+		return isComplete() ? NOT_COMMITTABLE : this.offsets[this.next];
+	}
+
+	/**
+	 * Return the number of offsets that are not yet complete.
+	 * @return the number.
+	 */
+	int getPendingCount() {
+		return this.offsets.length - this.next - this.completedAhead;
+	}
+
+	/**
+	 * Return the number of offsets that are complete but cannot be committed yet
+	 * because a lower offset is still pending.
+	 * @return the number.
+	 */
+	int getCompletedAheadCount() {
+		return this.completedAhead;
+	}
+
+	private int indexOf(long offset) {
+		if (this.contiguous) {
+			long index = offset - this.base;
+			return index >= 0 && index < this.offsets.length ? (int) index : -1;
+		}
+		int index = Arrays.binarySearch(this.offsets, offset);
+		return index >= 0 ? index : -1;
+	}
+
+	private boolean isComplete(int index) {
+		return (this.completions[index >>> WORD_SHIFT] & (1L << index)) != 0;
+	}
+
+	@Override
+	public String toString() {
+		return "OffsetTracker [firstPending=" + getFirstPending()
+				+ ", pending=" + getPendingCount()
+				+ ", completedAhead=" + this.completedAhead
+				+ ", lastOffset=" + this.offsets[this.offsets.length - 1]
+				+ "]";
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.listener.ContainerProperties.ParallelOrdering;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Dispatches records to a fixed number of lanes; the tasks for each lane run serially,
+ * in dispatch order, on the supplied executor, so no more than one task per lane is
+ * running at any time. Records are assigned to a lane by key or by partition, according
+ * to the {@link ParallelOrdering}.
+ * <p>
+ * Only the consumer thread may call {@link #dispatch(ConsumerRecord, Runnable)}.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+class ParallelRecordDispatcher {
+
+	private final Executor executor;
+
+	private final ParallelOrdering ordering;
+
+	private final LogAccessor logger;
+
+	private final CompletableFuture<?>[] lanes;
+
+	private final Map<TopicPartition, PartitionTasks> partitionTasks = new ConcurrentHashMap<>();
+
+	ParallelRecordDispatcher(Executor executor, int parallelism, ParallelOrdering ordering, LogAccessor logger) {
+		Assert.notNull(executor, "'executor' cannot be null");
+		Assert.isTrue(parallelism > 0, "'parallelism' must be greater than 0");
+		Assert.notNull(ordering, "'ordering' cannot be null");
+		this.executor = executor;
+		this.ordering = ordering;
+		this.logger = logger;
+		this.lanes = new CompletableFuture<?>[parallelism];
+		Arrays.fill(this.lanes, CompletableFuture.completedFuture(null));
+	}
+
+	/**
+	 * Run the task after all previously dispatched tasks for the same lane, unless the
+	 * record's partition is {@link #revoke(Collection) revoked} before it starts.
+	 * @param record the record.
+	 * @param task the task; must not throw exceptions.
+	 */
+	void dispatch(ConsumerRecord<?, ?> record, Runnable task) {
+		int lane = laneFor(record);
+		PartitionTasks tasks = this.partitionTasks.computeIfAbsent(
+				new TopicPartition(record.topic(), record.partition()), tp -> new PartitionTasks(this.lanes.length));
+		CompletableFuture<?> future = this.lanes[lane]
+				.thenRunAsync(() -> {
+					if (!tasks.revoked) {
+						task.run();
+					}
+				}, this.executor)
+				.exceptionally(ex -> {
+					this.logger.error(ex, () -> "Failed to process " + KafkaUtils.format(record));
+					return null;
+				});
+		this.lanes[lane] = future;
+		tasks.tails[lane] = future;
+	}
+
+	/**
+	 * Prevent tasks for the partitions that have not yet started from running.
+	 * @param partitions the partitions.
+	 * @return a future that completes when the tasks for the partitions that have
+	 * already started are complete.
+	 */
+	CompletableFuture<Void> revoke(Collection<TopicPartition> partitions) {
+		List<CompletableFuture<?>> pending = new ArrayList<>();
+		for (TopicPartition partition : partitions) {
+			PartitionTasks tasks = this.partitionTasks.remove(partition);
+			if (tasks != null) {
+				tasks.revoked = true;
+				for (CompletableFuture<?> tail : tasks.tails) {
+					if (tail != null) {
+						pending.add(tail);
+					}
+				}
+			}
+		}
+		return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+	}
+
+	/**
+	 * Return the lane for this record.
+	 * @param record the record.
+	 * @return the lane.
+	 */
+	int laneFor(ConsumerRecord<?, ?> record) {
+		int hash;
+		if (ParallelOrdering.KEY.equals(this.ordering) && record.key() != null) {
+			hash = ObjectUtils.nullSafeHashCode(record.key());
+		}
+		else {
+			hash = 31 * record.topic().hashCode() + record.partition(); // NOSONAR magic #
+		}
+		return Math.floorMod(hash, this.lanes.length);
+	}
+
+	/**
+	 * Return the number of lanes.
+	 * @return the number of lanes.
+	 */
+	int getLaneCount() {
+		return this.lanes.length;
+	}
+
+	/**
+	 * Wait for all the dispatched tasks to complete.
+	 * @param timeout the maximum time to wait.
+	 * @return true if all the tasks completed.
+	 */
+	boolean awaitCompletion(Duration timeout) {
+		try {
+			CompletableFuture.allOf(this.lanes).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		catch (@SuppressWarnings("unused") ExecutionException | TimeoutException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * The last task dispatched to each lane for a partition; since the tasks in a lane
+	 * run serially, all the partition's tasks are complete when these are.
+	 */
+	private static final class PartitionTasks {
+
+		private final CompletableFuture<?>[] tails;
+
+		private volatile boolean revoked;
+
+		PartitionTasks(int lanes) {
+			this.tails = new CompletableFuture<?>[lanes];
+		}
+
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener.adapter;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.lang.reflect.WildcardType;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.KotlinDetector;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.support.KafkaNull;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.ValueConstants;
+import org.springframework.messaging.handler.invocation.InvocableHandlerMethod;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Invokes a listener method through a {@link MethodHandle}, with argument extractors
+ * computed once for each parameter, instead of resolving the arguments with the
+ * argument resolvers of the {@link InvocableHandlerMethod} for each record. Supported
+ * parameters are those matched by a provided argument (such as the
+ * {@code ConsumerRecord}, {@code Acknowledgment} and {@code Consumer}), the payload,
+ * {@link Message}, {@link MessageHeaders}, {@link Headers @Headers} maps and
+ * {@link Header @Header} values that do not need conversion. When an argument cannot
+ * be extracted for a particular message (for example, when the payload or a header
+ * requires conversion), that invocation is delegated to the
+ * {@link InvocableHandlerMethod}.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+final class CompiledHandlerInvoker {
+
+	private static final LogAccessor LOGGER = new LogAccessor(LogFactory.getLog(CompiledHandlerInvoker.class));
+
+	private static final Object UNRESOLVED = new Object();
+
+	private static final String NULLABILITY_PACKAGE = "org.springframework.lang";
+
+	private final InvocableHandlerMethod handlerMethod;
+
+	private final MethodHandle handle;
+
+	private final Class<?>[] parameterTypes;
+
+	private final ArgumentExtractor[] extractors;
+
+	private final LongAdder delegated = new LongAdder();
+
+	private CompiledHandlerInvoker(InvocableHandlerMethod handlerMethod, MethodHandle handle,
+			ArgumentExtractor[] extractors) {
+
+		this.handlerMethod = handlerMethod;
+		this.handle = handle;
+		this.parameterTypes = handlerMethod.getBridgedMethod().getParameterTypes();
+		this.extractors = extractors;
+	}
+
+	/**
+	 * Create an invoker for the handler method, if all its parameters are supported.
+	 * @param handlerMethod the handler method.
+	 * @return the invoker, or null if the method is not supported.
+	 */
+	@Nullable
+	static CompiledHandlerInvoker compile(InvocableHandlerMethod handlerMethod) {
+		Method method = handlerMethod.getBridgedMethod();
+		if (KotlinDetector.isKotlinType(method.getDeclaringClass())) {
+			LOGGER.debug(() -> "Kotlin listener methods are not compiled: " + method);
+			return null;
+		}
+		MethodParameter[] parameters = handlerMethod.getMethodParameters();
+		ArgumentExtractor[] extractors = new ArgumentExtractor[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			extractors[i] = extractor(parameters[i]);
+			if (extractors[i] == null) {
+				MethodParameter parameter = parameters[i];
+				LOGGER.debug(() -> "Unsupported parameter " + parameter + "; listener method is not compiled");
+				return null;
+			}
+		}
+		try {
+			ReflectionUtils.makeAccessible(method);
+			MethodHandle handle = MethodHandles.lookup().unreflect(method);
+			if (!Modifier.isStatic(method.getModifiers())) {
+				handle = handle.bindTo(handlerMethod.getBean());
+			}
+			handle = handle.asSpreader(Object[].class, parameters.length)
+					.asType(MethodType.methodType(Object.class, Object[].class));
+			return new CompiledHandlerInvoker(handlerMethod, handle, extractors);
+		}
+		catch (IllegalAccessException | RuntimeException ex) {
+			LOGGER.debug(ex, () -> "Could not create a method handle for " + method);
+			return null;
+		}
+	}
+
+	@Nullable
+	private static ArgumentExtractor extractor(MethodParameter parameter) {
+		Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(parameter.getParameterType());
+		boolean primitive = parameter.getParameterType().isPrimitive();
+		Annotation annotation = null;
+		for (Annotation candidate : parameter.getParameterAnnotations()) {
+			if (!candidate.annotationType().getPackageName().equals(NULLABILITY_PACKAGE)) {
+				if (annotation != null) {
+					return null;
+				}
+				annotation = candidate;
+			}
+		}
+		if (annotation == null) {
+			if (Message.class.equals(parameter.getParameterType())) {
+				return anyPayload(parameter.getGenericParameterType()) ? message -> message : null;
+			}
+			if (MessageHeaders.class.equals(parameter.getParameterType())) {
+				return Message::getHeaders;
+			}
+			return payload(type);
+		}
+		if (annotation instanceof Payload payload) {
+			return StringUtils.hasText(payload.expression()) || StringUtils.hasText(payload.value())
+					? null
+					: payload(type);
+		}
+		if (annotation instanceof Headers) {
+			return Map.class.isAssignableFrom(type) && type.isAssignableFrom(MessageHeaders.class)
+					? Message::getHeaders
+					: null;
+		}
+		if (annotation instanceof Header header) {
+			String name = StringUtils.hasText(header.name()) ? header.name() : header.value();
+			if (!StringUtils.hasText(name) || !ValueConstants.DEFAULT_NONE.equals(header.defaultValue())
+					|| name.startsWith("nativeHeaders.")) {
+				return null;
+			}
+			boolean required = header.required();
+			return message -> {
+				Object value = message.getHeaders().get(name);
+				if (value == null) {
+					return required || primitive ? UNRESOLVED : null;
+				}
+				return type.isInstance(value) ? value : UNRESOLVED;
+			};
+		}
+		return null;
+	}
+
+	private static ArgumentExtractor payload(Class<?> type) {
+		return message -> {
+			Object payload = message.getPayload();
+			return type.isInstance(payload) && !(payload instanceof KafkaNull) ? payload : UNRESOLVED;
+		};
+	}
+
+	private static boolean anyPayload(Type type) {
+		if (type instanceof ParameterizedType parameterized) {
+			Type payloadType = parameterized.getActualTypeArguments()[0];
+			return Object.class.equals(payloadType) || (payloadType instanceof WildcardType wildcard
+					&& wildcard.getLowerBounds().length == 0
+					&& Object.class.equals(wildcard.getUpperBounds()[0]));
+		}
+		return true;
+	}
+
+	/**
+	 * Invoke the method; arguments are matched first against the provided arguments, in
+	 * the same way as {@link InvocableHandlerMethod#invoke(Message, Object...)}.
+	 * @param message the message.
+	 * @param providedArgs the provided arguments.
+	 * @return the result.
+	 * @throws Exception any exception thrown by the method.
+	 */
+	@Nullable
+	Object invoke(Message<?> message, Object... providedArgs) throws Exception { // NOSONAR
+		Object[] args = new Object[this.extractors.length];
+		for (int i = 0; i < args.length; i++) {
+			Object arg = provided(this.parameterTypes[i], providedArgs);
+			if (arg == null) {
+				arg = this.extractors[i].extract(message);
+				if (arg == UNRESOLVED) {
+					this.delegated.increment();
+					return this.handlerMethod.invoke(message, providedArgs);
+				}
+			}
+			args[i] = arg;
+		}
+		try {
+			return (Object) this.handle.invokeExact(args);
+		}
+		catch (Exception | Error ex) {
+			throw ex;
+		}
+		catch (Throwable ex) { // NOSONAR
+			throw new UndeclaredThrowableException(ex);
+		}
+	}
+
+	/**
+	 * Return the number of invocations that were delegated to the handler method because
+	 * an argument could not be extracted.
+	 * @return the count.
+	 */
+	long getDelegatedCount() {
+		return this.delegated.sum();
+	}
+
+	@Nullable
+	private static Object provided(Class<?> type, Object[] providedArgs) {
+		for (Object providedArg : providedArgs) {
+			if (type.isInstance(providedArg)) {
+				return providedArg;
+			}
+		}
+		return null;
+	}
+
+	@FunctionalInterface
+	private interface ArgumentExtractor {
+
+		Object extract(Message<?> message);
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015-2021 the original author or authors.
+ * Copyright 2015-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.kafka.listener.adapter;
 
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.handler.invocation.InvocableHandlerMethod;
 
@@ -25,6 +26,7 @@ import org.springframework.messaging.handler.invocation.InvocableHandlerMethod;
  * underlying handler.
  *
  * @author Gary Russell
+ * @author agent
  *
  */
 public class HandlerAdapter {
@@ -33,13 +35,31 @@ public class HandlerAdapter {
 
 	private final DelegatingInvocableHandler delegatingHandler;
 
+	@Nullable
+	private final CompiledHandlerInvoker compiledInvoker;
+
 	/**
 	 * Construct an instance with the provided method.
 	 * @param invokerHandlerMethod the method.
 	 */
 	public HandlerAdapter(InvocableHandlerMethod invokerHandlerMethod) {
+		this(invokerHandlerMethod, false);
+	}
+
+	/**
+	 * Construct an instance with the provided method, optionally invoking it through a
+	 * method handle with argument extractors prepared once for each parameter, rather
+	 * than resolving each argument for each invocation. Methods with unsupported
+	 * parameters are always invoked through the handler method; so are individual
+	 * invocations where an argument needs to be converted.
+	 * @param invokerHandlerMethod the method.
+	 * @param compile true to create a method handle invoker, if possible.
+	 * @since 3.1
+	 */
+	public HandlerAdapter(InvocableHandlerMethod invokerHandlerMethod, boolean compile) {
 		this.invokerHandlerMethod = invokerHandlerMethod;
 		this.delegatingHandler = null;
+		this.compiledInvoker = compile ? CompiledHandlerInvoker.compile(invokerHandlerMethod) : null;
 	}
 
 	/**
@@ -49,10 +69,24 @@ public class HandlerAdapter {
 	public HandlerAdapter(DelegatingInvocableHandler delegatingHandler) {
 		this.invokerHandlerMethod = null;
 		this.delegatingHandler = delegatingHandler;
+		this.compiledInvoker = null;
+	}
+
+	/**
+	 * Return true if the method is invoked through a method handle.
+	 * @return true if compiled.
+	 * @since 3.1
+	 * @see #HandlerAdapter(InvocableHandlerMethod, boolean)
+	 */
+	public boolean isCompiled() {
+		return this.compiledInvoker != null;
 	}
 
 	public Object invoke(Message<?> message, Object... providedArgs) throws Exception { //NOSONAR
-		if (this.invokerHandlerMethod != null) {
+		if (this.compiledInvoker != null) {
+			return this.compiledInvoker.invoke(message, providedArgs);
+		}
+		else if (this.invokerHandlerMethod != null) {
 			return this.invokerHandlerMethod.invoke(message, providedArgs); // NOSONAR
 		}
 		else if (this.delegatingHandler.hasDefaultHandler()) {
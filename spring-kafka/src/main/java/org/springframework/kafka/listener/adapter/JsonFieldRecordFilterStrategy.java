@@ -0,0 +1,117 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener.adapter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.support.JsonFieldExtractor;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A {@link RecordFilterStrategy} that decides whether to discard a record using only a
+ * few fields of its JSON value, which are extracted with a streaming parser by a
+ * {@link JsonFieldExtractor}, rather than converting the whole value. The value must be
+ * a {@code byte[]}, {@code Bytes} or {@code String}. Records with a value that is not
+ * valid JSON are not discarded, so that they are handled by the normal conversion error
+ * handling.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class JsonFieldRecordFilterStrategy<K, V> implements RecordFilterStrategy<K, V> {
+
+	private static final LogAccessor LOGGER = new LogAccessor(LogFactory.getLog(JsonFieldRecordFilterStrategy.class));
+
+	private final JsonFieldExtractor extractor;
+
+	private final Predicate<Map<String, JsonNode>> discard;
+
+	@Nullable
+	private RecordFilterStrategy<K, V> recordFilter;
+
+	/**
+	 * Construct an instance that extracts the provided pointers from the record value.
+	 * @param discard a predicate, called with a map of pointer to value, that returns
+	 * true if the record should be discarded; pointers that are not present in the value
+	 * (or when the value is null) have no entry.
+	 * @param pointers the JSON pointers, e.g. {@code /customer/id}.
+	 */
+	public JsonFieldRecordFilterStrategy(Predicate<Map<String, JsonNode>> discard, String... pointers) {
+		this(new JsonFieldExtractor(pointers), discard);
+	}
+
+	/**
+	 * Construct an instance with the provided extractor.
+	 * @param extractor the extractor.
+	 * @param discard a predicate, called with a map of pointer to value, that returns
+	 * true if the record should be discarded; pointers that are not present in the value
+	 * (or when the value is null) have no entry.
+	 */
+	public JsonFieldRecordFilterStrategy(JsonFieldExtractor extractor, Predicate<Map<String, JsonNode>> discard) {
+		Assert.notNull(extractor, "'extractor' cannot be null");
+		Assert.notNull(discard, "'discard' cannot be null");
+		this.extractor = extractor;
+		this.discard = discard;
+	}
+
+	/**
+	 * Set a filter that is evaluated before the value is parsed, for example a predicate
+	 * on the key or headers; when it returns true, the record is discarded without
+	 * parsing the value.
+	 * @param recordFilter the filter.
+	 */
+	public void setRecordFilter(@Nullable RecordFilterStrategy<K, V> recordFilter) {
+		this.recordFilter = recordFilter;
+	}
+
+	@Override
+	public boolean filter(ConsumerRecord<K, V> consumerRecord) {
+		if (this.recordFilter != null && this.recordFilter.filter(consumerRecord)) {
+			return true;
+		}
+		V value = consumerRecord.value();
+		if (value == null) {
+			return this.discard.test(Collections.emptyMap());
+		}
+		Map<String, JsonNode> fields;
+		try {
+			fields = this.extractor.extract(value);
+		}
+		catch (IOException ex) {
+			LOGGER.debug(ex, () -> "Could not parse the value of "
+					+ KafkaUtils.format(consumerRecord) + "; not discarded");
+			return false;
+		}
+		return this.discard.test(fields);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2018-2022 the original author or authors.
+ * Copyright 2018-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.LogFactory;
@@ -43,16 +44,21 @@ import org.springframework.util.PatternMatchUtils;
  *
  * @author Gary Russell
  * @author Artem Bilan
+ * @author agent
  *
  * @since 2.1.3
  *
  */
 public abstract class AbstractKafkaHeaderMapper implements KafkaHeaderMapper {
 
+	private static final int MAX_CACHED_MATCHES = 1000;
+
 	protected final LogAccessor logger = new LogAccessor(LogFactory.getLog(getClass())); // NOSONAR
 
 	private final List<HeaderMatcher> matchers = new ArrayList<>();
 
+	private final Map<String, Boolean> matchCache = new ConcurrentHashMap<>();
+
 	private final Map<String, Boolean> rawMappedHeaders = new HashMap<>();
 
 	{
@@ -120,6 +126,7 @@ public abstract class AbstractKafkaHeaderMapper implements KafkaHeaderMapper {
 		Assert.notNull(matchersToAdd, "'matchersToAdd' cannot be null");
 		Assert.noNullElements(matchersToAdd, "'matchersToAdd' cannot have null elements");
 		Collections.addAll(this.matchers, matchersToAdd);
+		this.matchCache.clear();
 	}
 
 	/**
@@ -211,6 +218,18 @@ public abstract class AbstractKafkaHeaderMapper implements KafkaHeaderMapper {
 	}
 
 	private boolean doesMatch(String header) {
+		Boolean cached = this.matchCache.get(header);
+		if (cached != null) {
+			return cached;
+		}
+		boolean match = evaluateMatchers(header);
+		if (this.matchCache.size() < MAX_CACHED_MATCHES) {
+			this.matchCache.put(header, match);
+		}
+		return match;
+	}
+
+	private boolean evaluateMatchers(String header) {
 		for (HeaderMatcher matcher : this.matchers) {
 			if (matcher.matchHeader(header)) {
 				return !matcher.isNegated();
@@ -273,7 +292,8 @@ public abstract class AbstractKafkaHeaderMapper implements KafkaHeaderMapper {
 
 
 	/**
-	 * A matcher for headers.
+	 * A matcher for headers. Since 3.1, the mapper caches the outcome of matching each
+	 * header name, so a matcher must always return the same result for a given name.
 	 * @since 2.3
 	 */
 	protected interface HeaderMatcher {
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Result for a {@link java.util.concurrent.CompletableFuture} after a batch send. The
+ * results are in the same order as the records that were sent; the result for a record
+ * that could not be sent is {@code null} and its index is a key in the
+ * {@link #getFailures() failures}.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class BatchSendResult<K, V> {
+
+	private final List<SendResult<K, V>> results;
+
+	private final Map<Integer, Exception> failures;
+
+	public BatchSendResult(List<SendResult<K, V>> results, Map<Integer, Exception> failures) {
+		this.results = Collections.unmodifiableList(results);
+		this.failures = Collections.unmodifiableMap(failures);
+	}
+
+	/**
+	 * Return the results, in the order the records were sent.
+	 * @return the results; elements are null for records that failed.
+	 */
+	public List<SendResult<K, V>> getResults() {
+		return this.results;
+	}
+
+	/**
+	 * Return the result for the record at the index.
+	 * @param index the index.
+	 * @return the result, or null if the record failed.
+	 */
+	@Nullable
+	public SendResult<K, V> getResult(int index) {
+		return this.results.get(index);
+	}
+
+	/**
+	 * Return the exceptions for the records that failed, keyed by the record index, in
+	 * index order.
+	 * @return the failures.
+	 */
+	public Map<Integer, Exception> getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * Return true if all the records were sent successfully.
+	 * @return true if no failures.
+	 */
+	public boolean isSuccessful() {
+		return this.failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "BatchSendResult [results=" + this.results.size() + ", failures=" + this.failures + "]";
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2022 the original author or authors.
+ * Copyright 2017-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,12 +20,14 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
@@ -55,6 +57,7 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
  *
  * @author Gary Russell
  * @author Artem Bilan
+ * @author agent
  *
  * @since 1.3
  *
@@ -63,6 +66,8 @@ public class DefaultKafkaHeaderMapper extends AbstractKafkaHeaderMapper {
 
 	private static final String JAVA_LANG_STRING = "java.lang.String";
 
+	private static final int MAX_CACHE_SIZE = 256;
+
 	private static final Set<String> TRUSTED_ARRAY_TYPES =
 			new HashSet<>(Arrays.asList(
 					"[B",
@@ -98,6 +103,10 @@ public class DefaultKafkaHeaderMapper extends AbstractKafkaHeaderMapper {
 
 	private final Set<String> toStringClasses = new LinkedHashSet<>(DEFAULT_TO_STRING_CLASSES);
 
+	private final Map<ByteBuffer, Map<String, String>> jsonTypesCache = new ConcurrentHashMap<>();
+
+	private final Map<String, Class<?>> classCache = new ConcurrentHashMap<>();
+
 	private boolean encodeStrings;
 
 	/**
@@ -338,7 +347,7 @@ public class DefaultKafkaHeaderMapper extends AbstractKafkaHeaderMapper {
 		try {
 			trusted = trusted(requestedType);
 			if (trusted) {
-				type = ClassUtils.forName(requestedType, null);
+				type = loadClass(requestedType);
 			}
 		}
 		catch (Exception e) {
@@ -366,6 +375,17 @@ public class DefaultKafkaHeaderMapper extends AbstractKafkaHeaderMapper {
 		}
 	}
 
+	private Class<?> loadClass(String className) throws ClassNotFoundException {
+		Class<?> clazz = this.classCache.get(className);
+		if (clazz == null) {
+			clazz = ClassUtils.forName(className, null);
+			if (this.classCache.size() < MAX_CACHE_SIZE) {
+				this.classCache.put(className, clazz);
+			}
+		}
+		return clazz;
+	}
+
 	private Object decodeValue(Header h, Class<?> type) throws IOException, LinkageError {
 		ObjectMapper headerObjectMapper = getObjectMapper();
 		Object value = headerObjectMapper.readValue(h.value(), type);
@@ -375,7 +395,7 @@ public class DefaultKafkaHeaderMapper extends AbstractKafkaHeaderMapper {
 			if (trusted(nth.getUntrustedType())) {
 				try {
 					value = headerObjectMapper.readValue(nth.getHeaderValue(),
-							ClassUtils.forName(nth.getUntrustedType(), null));
+							loadClass(nth.getUntrustedType()));
 				}
 				catch (Exception e) {
 					logger.error(e, () -> "Could not decode header: " + nth);
@@ -391,9 +411,17 @@ public class DefaultKafkaHeaderMapper extends AbstractKafkaHeaderMapper {
 		Map<String, String> types = null;
 		Header jsonTypes = source.lastHeader(JSON_TYPES);
 		if (jsonTypes != null) {
+			ByteBuffer key = ByteBuffer.wrap(jsonTypes.value());
+			types = this.jsonTypesCache.get(key);
+			if (types != null) {
+				return types;
+			}
 			ObjectMapper headerObjectMapper = getObjectMapper();
 			try {
-				types = headerObjectMapper.readValue(jsonTypes.value(), Map.class);
+				types = Collections.unmodifiableMap(headerObjectMapper.readValue(jsonTypes.value(), Map.class));
+				if (this.jsonTypesCache.size() < MAX_CACHE_SIZE) {
+					this.jsonTypesCache.put(key, types);
+				}
 			}
 			catch (IOException e) {
 				logger.error(e, () -> "Could not decode json types: " + new String(jsonTypes.value()));
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.support;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.common.utils.Bytes;
+
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+/**
+ * Extracts the values at a set of JSON pointers (RFC 6901) from JSON data using a
+ * streaming parser, without binding the whole document. Parsing stops as soon as all the
+ * values have been found, and objects and arrays that cannot contain any of the values
+ * are skipped.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class JsonFieldExtractor {
+
+	private final ObjectMapper objectMapper;
+
+	private final Set<String> pointers = new LinkedHashSet<>();
+
+	private final Set<String> containers = new LinkedHashSet<>();
+
+	/**
+	 * Construct an instance for the provided pointers, using an
+	 * {@link JacksonUtils#enhancedObjectMapper() enhanced object mapper}.
+	 * @param pointers the JSON pointers, e.g. {@code /customer/id}.
+	 */
+	public JsonFieldExtractor(String... pointers) {
+		this(JacksonUtils.enhancedObjectMapper(), pointers);
+	}
+
+	/**
+	 * Construct an instance for the provided object mapper and pointers.
+	 * @param objectMapper the object mapper.
+	 * @param pointers the JSON pointers, e.g. {@code /customer/id}.
+	 */
+	public JsonFieldExtractor(ObjectMapper objectMapper, String... pointers) {
+		Assert.notNull(objectMapper, "'objectMapper' cannot be null");
+		Assert.notEmpty(pointers, "At least one pointer is required");
+		this.objectMapper = objectMapper;
+		for (String pointer : pointers) {
+			JsonPointer compiled = JsonPointer.compile(pointer);
+			this.pointers.add(compiled.toString());
+			JsonPointer parent = compiled.head();
+			while (parent != null) {
+				this.containers.add(parent.toString());
+				parent = parent.head();
+			}
+		}
+	}
+
+	/**
+	 * Return the pointers.
+	 * @return the pointers.
+	 */
+	public Set<String> getPointers() {
+		return Collections.unmodifiableSet(this.pointers);
+	}
+
+	/**
+	 * Extract the values from a {@code byte[]}, {@link Bytes} or {@link String}.
+	 * @param data the data.
+	 * @return a map of pointer to value; pointers that are not present in the data have
+	 * no entry.
+	 * @throws IOException if the data is not valid JSON.
+	 */
+	public Map<String, JsonNode> extract(Object data) throws IOException {
+		if (data instanceof byte[] bytes) {
+			return extract(this.objectMapper.createParser(bytes));
+		}
+		else if (data instanceof Bytes bytes) {
+			return extract(this.objectMapper.createParser(bytes.get()));
+		}
+		else if (data instanceof String string) {
+			return extract(this.objectMapper.createParser(string));
+		}
+		else {
+			throw new IllegalStateException("Only String, Bytes, or byte[] supported");
+		}
+	}
+
+	private Map<String, JsonNode> extract(JsonParser parser) throws IOException {
+		Map<String, JsonNode> found = new LinkedHashMap<>();
+		try (parser) {
+			JsonToken token = parser.nextToken();
+			while (token != null) {
+				if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY) {
+					String path = path(parser, token);
+					if (this.pointers.contains(path)) {
+						found.put(path, token == JsonToken.VALUE_NULL ? NullNode.getInstance() : parser.readValueAsTree());
+						if (found.size() == this.pointers.size()) {
+							break;
+						}
+					}
+					else if (token.isStructStart() && !this.containers.contains(path)) {
+						parser.skipChildren();
+					}
+				}
+				token = parser.nextToken();
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Return the pointer to the current value; when the value starts an object or array,
+	 * the parser has already entered its context so the pointer is that of the parent.
+	 */
+	private static String path(JsonParser parser, JsonToken token) {
+		JsonStreamContext context = parser.getParsingContext();
+		if (token.isStructStart()) {
+			context = context.getParent();
+		}
+		return context.pathAsPointer().toString();
+	}
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Routes topic names to targets using an ordered map of topic patterns; the target of
+ * the first pattern that matches the whole topic name is returned. Patterns that are
+ * plain topic names, or a topic name prefix followed by {@code .*}, are matched without
+ * using regular expressions; the other patterns are evaluated in order only when needed.
+ * Results are cached in a bounded, least recently used, cache.
+ *
+ * @param <T> the target type.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class TopicRouter<T> {
+
+	/**
+	 * The default cache size.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private static final Object NO_ROUTE = new Object();
+
+	private static final String META_CHARACTERS = ".[]{}()*+?^$|";
+
+	private final List<T> targets = new ArrayList<>();
+
+	private final Map<String, Integer> literals = new HashMap<>();
+
+	private final Node prefixes = new Node();
+
+	private final List<Route> regexes = new ArrayList<>();
+
+	private final int cacheSize;
+
+	@Nullable
+	private final Map<String, Object> cache;
+
+	private final ReentrantLock cacheLock = new ReentrantLock();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Construct an instance with the provided routes and the
+	 * {@link #DEFAULT_CACHE_SIZE}.
+	 * @param routes the routes; an ordered map, such as {@link LinkedHashMap}, should be
+	 * used with more specific patterns first.
+	 */
+	public TopicRouter(Map<Pattern, T> routes) {
+		this(routes, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Construct an instance with the provided routes and cache size.
+	 * @param routes the routes; an ordered map, such as {@link LinkedHashMap}, should be
+	 * used with more specific patterns first.
+	 * @param cacheSize the maximum number of topics for which the result is cached; 0 to
+	 * disable caching.
+	 */
+	public TopicRouter(Map<Pattern, T> routes, int cacheSize) {
+		Assert.notNull(routes, "'routes' cannot be null");
+		Assert.isTrue(cacheSize >= 0, "'cacheSize' cannot be negative");
+		for (Entry<Pattern, T> entry : routes.entrySet()) {
+			int index = this.targets.size();
+			this.targets.add(entry.getValue());
+			compile(entry.getKey(), index);
+		}
+		this.cacheSize = cacheSize;
+		this.cache = cacheSize > 0 ? new LinkedHashMap<>(16, 0.75f, true) : null;
+	}
+
+	private void compile(Pattern pattern, int index) {
+		String regex = pattern.pattern();
+		if (pattern.flags() == 0) {
+			String literal = literal(regex);
+			if (literal != null) {
+				this.literals.putIfAbsent(literal, index);
+				return;
+			}
+			if (regex.endsWith(".*")) {
+				String prefix = literal(regex.substring(0, regex.length() - 2));
+				if (prefix != null) {
+					this.prefixes.add(prefix, index);
+					return;
+				}
+			}
+		}
+		this.regexes.add(new Route(pattern, index));
+	}
+
+	/**
+	 * Return the string matched by the regex if it only matches that string.
+	 * @param regex the regex.
+	 * @return the literal, or null if the regex contains meta characters.
+	 */
+	@Nullable
+	private static String literal(String regex) {
+		StringBuilder literal = new StringBuilder(regex.length());
+		for (int i = 0; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				if (i + 1 == regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+					return null; // character class, back reference, quote etc.
+				}
+				literal.append(regex.charAt(++i));
+			}
+			else if (META_CHARACTERS.indexOf(c) >= 0) {
+				return null;
+			}
+			else {
+				literal.append(c);
+			}
+		}
+		return literal.toString();
+	}
+
+	/**
+	 * Return the target for the topic.
+	 * @param topic the topic.
+	 * @return the target, or null if no pattern matches.
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public T route(String topic) {
+		if (this.cache != null) {
+			Object cached;
+			this.cacheLock.lock();
+			try {
+				cached = this.cache.get(topic);
+			}
+			finally {
+				this.cacheLock.unlock();
+			}
+			if (cached != null) {
+				this.hits.incrementAndGet();
+				return cached == NO_ROUTE ? null : (T) cached;
+			}
+		}
+		this.misses.incrementAndGet();
+		T target = match(topic);
+		if (this.cache != null) {
+			this.cacheLock.lock();
+			try {
+				this.cache.put(topic, target == null ? NO_ROUTE : target);
+				if (this.cache.size() > this.cacheSize) {
+					this.cache.remove(this.cache.keySet().iterator().next());
+				}
+			}
+			finally {
+				this.cacheLock.unlock();
+			}
+		}
+		return target;
+	}
+
+	@Nullable
+	private T match(String topic) {
+		int best = Integer.MAX_VALUE;
+		Integer literal = this.literals.get(topic);
+		if (literal != null) {
+			best = literal;
+		}
+		best = Math.min(best, this.prefixes.match(topic));
+		for (Route route : this.regexes) {
+			if (route.index() >= best) {
+				break;
+			}
+			if (route.pattern().matcher(topic).matches()) {
+				best = route.index();
+				break;
+			}
+		}
+		return best == Integer.MAX_VALUE ? null : this.targets.get(best);
+	}
+
+	/**
+	 * Return the number of lookups satisfied by the cache.
+	 * @return the number of hits.
+	 */
+	public long getCacheHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Return the number of lookups that required the patterns to be evaluated.
+	 * @return the number of misses.
+	 */
+	public long getCacheMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Return the ratio of cache hits to lookups.
+	 * @return the hit rate, 0 if there have been no lookups.
+	 */
+	public double getCacheHitRate() {
+		long hitCount = this.hits.get();
+		long total = hitCount + this.misses.get();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	/**
+	 * Return the number of topics currently cached.
+	 * @return the number of topics.
+	 */
+	public int getCachedTopicCount() {
+		if (this.cache == null) {
+			return 0;
+		}
+		this.cacheLock.lock();
+		try {
+			return this.cache.size();
+		}
+		finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	private record Route(Pattern pattern, int index) {
+	}
+
+	/**
+	 * A trie node for prefix patterns; the index is that of the first pattern with the
+	 * prefix ending at this node.
+	 */
+	private static final class Node {
+
+		private final Map<Character, Node> children = new HashMap<>();
+
+		private int index = Integer.MAX_VALUE;
+
+		void add(String prefix, int patternIndex) {
+			Node node = this;
+			for (int i = 0; i < prefix.length(); i++) {
+				node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+			}
+			node.index = Math.min(node.index, patternIndex);
+		}
+
+		int match(String topic) {
+			int best = this.index;
+			Node node = this;
+			for (int i = 0; i < topic.length(); i++) {
+				node = node.children.get(topic.charAt(i));
+				if (node == null) {
+					break;
+				}
+				best = Math.min(best, node.index);
+			}
+			return best;
+		}
+
+	}
+
+}
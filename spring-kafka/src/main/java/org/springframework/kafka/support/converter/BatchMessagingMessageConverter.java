@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2022 the original author or authors.
+ * Copyright 2016-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,10 +19,12 @@ package org.springframework.kafka.support.converter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import org.apache.commons.logging.LogFactory;
 import org.apache.kafka.clients.consumer.Consumer;
@@ -54,12 +56,15 @@ import org.springframework.messaging.support.MessageBuilder;
  * <p>
  * If a {@link RecordMessageConverter} is provided, and the batch type is a {@link ParameterizedType}
  * with a single generic type parameter, each record will be passed to the converter, thus supporting
- * a method signature {@code List<Foo> foos}.
+ * a method signature {@code List<Foo> foos}. When {@link #setLazyConversion(boolean) lazy
+ * conversion} is enabled, each record is converted when its element of the payload is
+ * first accessed.
  *
  * @author Marius Bogoevici
  * @author Gary Russell
  * @author Dariusz Szablinski
  * @author Biju Kunjummen
+ * @author agent
  * @since 1.1
  */
 public class BatchMessagingMessageConverter implements BatchMessageConverter {
@@ -76,6 +81,8 @@ public class BatchMessagingMessageConverter implements BatchMessageConverter {
 
 	private boolean rawRecordHeader;
 
+	private boolean lazyConversion;
+
 	/**
 	 * Create an instance that does not convert the record values.
 	 */
@@ -138,6 +145,20 @@ public class BatchMessagingMessageConverter implements BatchMessageConverter {
 		this.rawRecordHeader = rawRecordHeader;
 	}
 
+	/**
+	 * Set to true to convert the record values only when the corresponding element of
+	 * the payload {@link List} (or the {@link KafkaHeaders#CONVERSION_FAILURES} header)
+	 * is first accessed, instead of converting the whole batch before the listener is
+	 * invoked. Only applies when a {@link RecordMessageConverter} is provided. Useful when
+	 * the listener only processes some of the records; the payload must not be accessed
+	 * after the listener returns, or on other threads.
+	 * @param lazyConversion true to convert lazily.
+	 * @since 3.1
+	 */
+	public void setLazyConversion(boolean lazyConversion) {
+		this.lazyConversion = lazyConversion;
+	}
+
 	@Override // NOSONAR
 	public Message<?> toMessage(List<ConsumerRecord<?, ?>> records, @Nullable Acknowledgment acknowledgment,
 			Consumer<?, ?> consumer, Type type) {
@@ -146,7 +167,7 @@ public class BatchMessagingMessageConverter implements BatchMessageConverter {
 				this.generateTimestamp);
 
 		Map<String, Object> rawHeaders = kafkaMessageHeaders.getRawHeaders();
-		List<Object> payloads = new ArrayList<>();
+		List<Object> payloads;
 		List<Object> keys = new ArrayList<>();
 		List<String> topics = new ArrayList<>();
 		List<Integer> partitions = new ArrayList<>();
@@ -156,14 +177,26 @@ public class BatchMessagingMessageConverter implements BatchMessageConverter {
 		List<Map<String, Object>> convertedHeaders = new ArrayList<>();
 		List<Headers> natives = new ArrayList<>();
 		List<ConsumerRecord<?, ?>> raws = new ArrayList<>();
-		List<ConversionException> conversionFailures = new ArrayList<>();
+		List<ConversionException> conversionFailures;
+		boolean lazy = this.lazyConversion && this.recordConverter != null && containerType(type);
+		if (lazy) {
+			LazyConversion conversion = new LazyConversion(records, type);
+			payloads = conversion.payloads;
+			conversionFailures = conversion.failures;
+		}
+		else {
+			payloads = new ArrayList<>();
+			conversionFailures = new ArrayList<>();
+		}
 		addToRawHeaders(rawHeaders, convertedHeaders, natives, raws, conversionFailures);
 		commonHeaders(acknowledgment, consumer, rawHeaders, keys, topics, partitions, offsets, timestampTypes,
 				timestamps);
 		boolean logged = false;
 		String info = null;
 		for (ConsumerRecord<?, ?> record : records) {
-			payloads.add(obtainPayload(type, record, conversionFailures));
+			if (!lazy) {
+				payloads.add(obtainPayload(type, record, conversionFailures));
+			}
 			keys.add(record.key());
 			topics.add(record.topic());
 			partitions.add(record.partition());
@@ -286,4 +319,67 @@ public class BatchMessagingMessageConverter implements BatchMessageConverter {
 				&& ((ParameterizedType) type).getActualTypeArguments().length == 1;
 	}
 
+	/**
+	 * Converts records on first access to the corresponding element of either view.
+	 */
+	private final class LazyConversion {
+
+		private final List<ConsumerRecord<?, ?>> records;
+
+		private final Type type;
+
+		private final Object[] converted;
+
+		private final ConversionException[] exceptions;
+
+		private final boolean[] done;
+
+		private final List<Object> payloads = new View<>() {
+
+			@Override
+			public Object get(int index) {
+				convertIfNecessary(index);
+				return LazyConversion.this.converted[index];
+			}
+
+		};
+
+		private final List<ConversionException> failures = new View<>() {
+
+			@Override
+			public ConversionException get(int index) {
+				convertIfNecessary(index);
+				return LazyConversion.this.exceptions[index];
+			}
+
+		};
+
+		LazyConversion(List<ConsumerRecord<?, ?>> records, Type type) {
+			this.records = records;
+			this.type = type;
+			this.converted = new Object[records.size()];
+			this.exceptions = new ConversionException[records.size()];
+			this.done = new boolean[records.size()];
+		}
+
+		private void convertIfNecessary(int index) {
+			if (!this.done[index]) {
+				List<ConversionException> failure = new ArrayList<>(1);
+				this.converted[index] = convert(this.records.get(index), this.type, failure);
+				this.exceptions[index] = failure.isEmpty() ? null : failure.get(0);
+				this.done[index] = true;
+			}
+		}
+
+		private abstract class View<E> extends AbstractList<E> implements RandomAccess {
+
+			@Override
+			public int size() {
+				return LazyConversion.this.records.size();
+			}
+
+		}
+
+	}
+
 }
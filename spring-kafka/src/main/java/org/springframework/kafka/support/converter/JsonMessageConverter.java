@@ -18,6 +18,8 @@ package org.springframework.kafka.support.converter;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Headers;
@@ -34,6 +36,7 @@ import org.springframework.util.Assert;
 
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 
 /**
@@ -43,6 +46,7 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
  * Kafka Serializer.
  *
  * @author Gary Russell
+ * @author agent
  * @since 2.3
  *
  */
@@ -50,8 +54,12 @@ public class JsonMessageConverter extends MessagingMessageConverter {
 
 	private static final JavaType OBJECT = TypeFactory.defaultInstance().constructType(Object.class);
 
+	private static final int MAX_CACHED_READERS = 256;
+
 	private final ObjectMapper objectMapper;
 
+	private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
 	private Jackson2JavaTypeMapper typeMapper = new DefaultJackson2JavaTypeMapper();
 
 	public JsonMessageConverter() {
@@ -110,7 +118,7 @@ public class JsonMessageConverter extends MessagingMessageConverter {
 		}
 		if (value instanceof String) {
 			try {
-				return this.objectMapper.readValue((String) value, javaType);
+				return readerFor(javaType).readValue((String) value);
 			}
 			catch (IOException e) {
 				throw new ConversionException("Failed to convert from JSON", record, e);
@@ -118,7 +126,7 @@ public class JsonMessageConverter extends MessagingMessageConverter {
 		}
 		else if (value instanceof byte[]) {
 			try {
-				return this.objectMapper.readValue((byte[]) value, javaType);
+				return readerFor(javaType).readValue((byte[]) value);
 			}
 			catch (IOException e) {
 				throw new ConversionException("Failed to convert from JSON", record, e);
@@ -129,6 +137,17 @@ public class JsonMessageConverter extends MessagingMessageConverter {
 		}
 	}
 
+	private ObjectReader readerFor(JavaType javaType) {
+		ObjectReader reader = this.readers.get(javaType);
+		if (reader == null) {
+			reader = this.objectMapper.readerFor(javaType);
+			if (this.readers.size() < MAX_CACHED_READERS) {
+				this.readers.put(javaType, reader);
+			}
+		}
+		return reader;
+	}
+
 	private JavaType determineJavaType(ConsumerRecord<?, ?> record, Type type) {
 		JavaType javaType = this.typeMapper.getTypePrecedence().equals(TypePrecedence.INFERRED) && type != null
 				? TypeFactory.defaultInstance().constructType(type)
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.support.converter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import org.springframework.kafka.support.DefaultKafkaHeaderMapper;
+import org.springframework.kafka.support.KafkaHeaderMapper;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link KafkaMessageHeaders} that only map a record header when it is first read; any
+ * operation that needs all the headers maps the remaining ones. Headers that are already
+ * present (such as those added by the converter) take precedence over record headers
+ * with the same name. The header mapper must map each record header to a header with the
+ * same name.
+ *
+ * @author agent
+ * @since 3.1
+ *
+ */
+@SuppressWarnings("serial")
+class LazyKafkaMessageHeaders extends KafkaMessageHeaders {
+
+	@Nullable
+	private transient Headers source;
+
+	@Nullable
+	private transient KafkaHeaderMapper headerMapper;
+
+	private final transient Set<String> mapped = new HashSet<>();
+
+	LazyKafkaMessageHeaders(boolean generateId, boolean generateTimestamp, Headers source,
+			KafkaHeaderMapper headerMapper) {
+
+		super(generateId, generateTimestamp);
+		this.source = source;
+		this.headerMapper = headerMapper;
+	}
+
+	/**
+	 * Return the underlying map without mapping the record headers.
+	 * @return the map.
+	 */
+	Map<String, Object> getUnmappedRawHeaders() {
+		return super.getRawHeaders();
+	}
+
+	@Override
+	public synchronized Map<String, Object> getRawHeaders() {
+		mapAll();
+		return super.getRawHeaders();
+	}
+
+	@Override
+	@Nullable
+	public synchronized Object get(Object key) {
+		map(key);
+		return super.get(key);
+	}
+
+	@Override
+	@Nullable
+	public synchronized <T> T get(Object key, Class<T> type) {
+		map(key);
+		return super.get(key, type);
+	}
+
+	@Override
+	public synchronized boolean containsKey(Object key) {
+		map(key);
+		return super.containsKey(key);
+	}
+
+	@Override
+	public synchronized boolean containsValue(Object value) {
+		mapAll();
+		return super.containsValue(value);
+	}
+
+	@Override
+	public synchronized Set<Map.Entry<String, Object>> entrySet() {
+		mapAll();
+		return super.entrySet();
+	}
+
+	@Override
+	public synchronized Set<String> keySet() {
+		mapAll();
+		return super.keySet();
+	}
+
+	@Override
+	public synchronized Collection<Object> values() {
+		mapAll();
+		return super.values();
+	}
+
+	@Override
+	public synchronized int size() {
+		mapAll();
+		return super.size();
+	}
+
+	@Override
+	public synchronized boolean isEmpty() {
+		mapAll();
+		return super.isEmpty();
+	}
+
+	@Override
+	public synchronized boolean equals(@Nullable Object other) {
+		mapAll();
+		return super.equals(other);
+	}
+
+	@Override
+	public synchronized int hashCode() {
+		mapAll();
+		return super.hashCode();
+	}
+
+	@Override
+	public synchronized String toString() {
+		mapAll();
+		return super.toString();
+	}
+
+	private void map(Object key) {
+		if (this.source == null || !(key instanceof String name) || !this.mapped.add(name)
+				|| super.getRawHeaders().containsKey(name)) {
+			return;
+		}
+		Headers single = null;
+		for (Header header : this.source) {
+			if (header.key().equals(name)) {
+				if (single == null) {
+					single = new RecordHeaders();
+				}
+				single.add(header);
+			}
+		}
+		if (single != null) {
+			Header types = this.source.lastHeader(DefaultKafkaHeaderMapper.JSON_TYPES);
+			if (types != null) {
+				single.add(types);
+			}
+			addMapped(single);
+		}
+	}
+
+	private void mapAll() {
+		if (this.source != null) {
+			addMapped(this.source);
+			this.source = null;
+			this.headerMapper = null;
+			this.mapped.clear();
+		}
+	}
+
+	private void addMapped(Headers headers) {
+		Map<String, Object> converted = new HashMap<>();
+		this.headerMapper.toHeaders(headers, converted);
+		Map<String, Object> raw = super.getRawHeaders();
+		converted.forEach((name, value) -> {
+			if (!raw.containsKey(name)) {
+				raw.put(name, value);
+			}
+		});
+	}
+
+	private Object writeReplace() {
+		synchronized (this) {
+			mapAll();
+		}
+		return this;
+	}
+
+}
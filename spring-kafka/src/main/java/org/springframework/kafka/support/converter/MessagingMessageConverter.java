@@ -57,6 +57,7 @@ import org.springframework.util.Assert;
  * @author Gary Russell
  * @author Dariusz Szablinski
  * @author Biju Kunjummen
+ * @author agent
  */
 public class MessagingMessageConverter implements RecordMessageConverter {
 
@@ -72,6 +73,8 @@ public class MessagingMessageConverter implements RecordMessageConverter {
 
 	private boolean rawRecordHeader;
 
+	private boolean lazyHeaderMapping;
+
 	private SmartMessageConverter messagingConverter;
 
 	/**
@@ -136,6 +139,19 @@ public class MessagingMessageConverter implements RecordMessageConverter {
 		this.rawRecordHeader = rawRecordHeader;
 	}
 
+	/**
+	 * Set to true to defer mapping each record header until it is first read from the
+	 * message headers, instead of mapping them all when the message is created.
+	 * Operations that need all the headers (such as iterating over them) map the
+	 * remaining headers. Requires a header mapper that maps each record header to a
+	 * message header with the same name, such as the {@link DefaultKafkaHeaderMapper}.
+	 * @param lazyHeaderMapping true to map headers lazily.
+	 * @since 3.1
+	 */
+	public void setLazyHeaderMapping(boolean lazyHeaderMapping) {
+		this.lazyHeaderMapping = lazyHeaderMapping;
+	}
+
 
 	protected org.springframework.messaging.converter.MessageConverter getMessagingConverter() {
 		return this.messagingConverter;
@@ -177,12 +193,20 @@ public class MessagingMessageConverter implements RecordMessageConverter {
 	public Message<?> toMessage(ConsumerRecord<?, ?> record, Acknowledgment acknowledgment, Consumer<?, ?> consumer,
 			Type type) {
 
-		KafkaMessageHeaders kafkaMessageHeaders = new KafkaMessageHeaders(this.generateMessageId,
-				this.generateTimestamp);
-
-		Map<String, Object> rawHeaders = kafkaMessageHeaders.getRawHeaders();
-		if (record.headers() != null) {
-			mapOrAddHeaders(record, rawHeaders);
+		KafkaMessageHeaders kafkaMessageHeaders;
+		Map<String, Object> rawHeaders;
+		if (this.lazyHeaderMapping && this.headerMapper != null && record.headers() != null) {
+			LazyKafkaMessageHeaders lazyHeaders = new LazyKafkaMessageHeaders(this.generateMessageId,
+					this.generateTimestamp, record.headers(), this.headerMapper);
+			kafkaMessageHeaders = lazyHeaders;
+			rawHeaders = lazyHeaders.getUnmappedRawHeaders();
+		}
+		else {
+			kafkaMessageHeaders = new KafkaMessageHeaders(this.generateMessageId, this.generateTimestamp);
+			rawHeaders = kafkaMessageHeaders.getRawHeaders();
+			if (record.headers() != null) {
+				mapOrAddHeaders(record, rawHeaders);
+			}
 		}
 		String ttName = record.timestampType() != null ? record.timestampType().name() : null;
 		commonHeaders(acknowledgment, consumer, rawHeaders, record.key(), record.topic(), record.partition(),
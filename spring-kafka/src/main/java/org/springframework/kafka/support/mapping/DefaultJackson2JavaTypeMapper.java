@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2021 the original author or authors.
+ * Copyright 2017-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,18 @@
 
 package org.springframework.kafka.support.mapping;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
 
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.converter.MessageConversionException;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -38,18 +44,32 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
  * @author Andreas Asplund
  * @author Artem Bilan
  * @author Gary Russell
+ * @author agent
  *
  * @since 2.1
  */
 public class DefaultJackson2JavaTypeMapper extends AbstractJavaTypeMapper
 		implements Jackson2JavaTypeMapper {
 
+	/**
+	 * The default {@link #setTypeCacheSize(int) type cache size}.
+	 */
+	public static final int DEFAULT_TYPE_CACHE_SIZE = 256;
+
 	private static final List<String> TRUSTED_PACKAGES = List.of("java.util", "java.lang");
 
 	private final Set<String> trustedPackages = new LinkedHashSet<>(TRUSTED_PACKAGES);
 
+	private final Map<TypeIdKey, JavaType> typeCache = new ConcurrentHashMap<>();
+
+	private final LongAdder typeCacheHits = new LongAdder();
+
+	private final LongAdder typeCacheMisses = new LongAdder();
+
 	private volatile TypePrecedence typePrecedence = TypePrecedence.INFERRED;
 
+	private int typeCacheSize = DEFAULT_TYPE_CACHE_SIZE;
+
 	/**
 	 * Return the precedence.
 	 * @return the precedence.
@@ -87,10 +107,86 @@ public class DefaultJackson2JavaTypeMapper extends AbstractJavaTypeMapper
 				}
 			}
 		}
+		this.typeCache.clear();
+	}
+
+	/**
+	 * Set the maximum number of type id header combinations for which the resolved
+	 * {@link JavaType} is cached, so that the class lookup and trusted package check are
+	 * only performed once for each; 0 to disable caching. Default
+	 * {@link #DEFAULT_TYPE_CACHE_SIZE}. When the cache is full, other types are resolved
+	 * for each record.
+	 * @param typeCacheSize the cache size.
+	 * @since 3.1
+	 */
+	public void setTypeCacheSize(int typeCacheSize) {
+		Assert.isTrue(typeCacheSize >= 0, "'typeCacheSize' cannot be negative");
+		this.typeCacheSize = typeCacheSize;
+		this.typeCache.clear();
+	}
+
+	/**
+	 * Return the number of type resolutions satisfied by the cache.
+	 * @return the number of hits.
+	 * @since 3.1
+	 */
+	public long getTypeCacheHits() {
+		return this.typeCacheHits.sum();
+	}
+
+	/**
+	 * Return the number of type resolutions that were not satisfied by the cache.
+	 * @return the number of misses.
+	 * @since 3.1
+	 */
+	public long getTypeCacheMisses() {
+		return this.typeCacheMisses.sum();
+	}
+
+	@Override
+	public void setIdClassMapping(Map<String, Class<?>> idClassMapping) {
+		super.setIdClassMapping(idClassMapping);
+		this.typeCache.clear();
+	}
+
+	@Override
+	public void setBeanClassLoader(ClassLoader classLoader) {
+		super.setBeanClassLoader(classLoader);
+		this.typeCache.clear();
 	}
 
 	@Override
 	public JavaType toJavaType(Headers headers) {
+		if (this.typeCacheSize == 0) {
+			return resolveJavaType(headers);
+		}
+		byte[] typeId = headerValue(headers, getClassIdFieldName());
+		if (typeId == null) {
+			return null;
+		}
+		TypeIdKey key = new TypeIdKey(typeId, headerValue(headers, getContentClassIdFieldName()),
+				headerValue(headers, getKeyClassIdFieldName()));
+		JavaType javaType = this.typeCache.get(key);
+		if (javaType != null) {
+			this.typeCacheHits.increment();
+			return javaType;
+		}
+		this.typeCacheMisses.increment();
+		javaType = resolveJavaType(headers);
+		if (javaType != null && this.typeCache.size() < this.typeCacheSize) {
+			this.typeCache.put(key.copy(), javaType);
+		}
+		return javaType;
+	}
+
+	@Nullable
+	private static byte[] headerValue(Headers headers, String headerName) {
+		Header header = headers.lastHeader(headerName);
+		return header == null ? null : header.value();
+	}
+
+	@Nullable
+	private JavaType resolveJavaType(Headers headers) {
 		String typeIdHeader = retrieveHeaderAsString(headers, getClassIdFieldName());
 
 		if (typeIdHeader != null) {
@@ -198,4 +294,52 @@ public class DefaultJackson2JavaTypeMapper extends AbstractJavaTypeMapper
 		}
 	}
 
+	/**
+	 * The raw values of the type id headers.
+	 */
+	private static final class TypeIdKey {
+
+		private final byte[] typeId;
+
+		@Nullable
+		private final byte[] contentTypeId;
+
+		@Nullable
+		private final byte[] keyTypeId;
+
+		private final int hash;
+
+		TypeIdKey(byte[] typeId, @Nullable byte[] contentTypeId, @Nullable byte[] keyTypeId) {
+			this.typeId = typeId;
+			this.contentTypeId = contentTypeId;
+			this.keyTypeId = keyTypeId;
+			this.hash = 31 * (31 * Arrays.hashCode(typeId) + Arrays.hashCode(contentTypeId))
+					+ Arrays.hashCode(keyTypeId);
+		}
+
+		TypeIdKey copy() {
+			return new TypeIdKey(this.typeId.clone(),
+					this.contentTypeId == null ? null : this.contentTypeId.clone(),
+					this.keyTypeId == null ? null : this.keyTypeId.clone());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof TypeIdKey other)) {
+				return false;
+			}
+			return Arrays.equals(this.typeId, other.typeId) && Arrays.equals(this.contentTypeId, other.contentTypeId)
+					&& Arrays.equals(this.keyTypeId, other.keyTypeId);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
 }
@@ -16,15 +16,25 @@
 
 package org.springframework.kafka.support.micrometer;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Timer.Builder;
@@ -34,6 +44,7 @@ import io.micrometer.core.instrument.Timer.Sample;
  * A wrapper for micrometer timers when available on the class path.
  *
  * @author Gary Russell
+ * @author agent
  * @since 2.5
  *
  */
@@ -43,6 +54,10 @@ public final class MicrometerHolder {
 
 	private final Map<String, Timer> meters = new ConcurrentHashMap<>();
 
+	private final Map<TimerKey, Timer> recordMeters = new ConcurrentHashMap<>();
+
+	private final List<Meter> otherMeters = new CopyOnWriteArrayList<>();
+
 	private final MeterRegistry registry;
 
 	private final String timerName;
@@ -53,6 +68,14 @@ public final class MicrometerHolder {
 
 	private final Function<Object, Map<String, String>> tagsProvider;
 
+	@Nullable
+	private final double[] percentiles;
+
+	@Nullable
+	private final Duration[] serviceLevelObjectives;
+
+	private final boolean percentileHistogram;
+
 	/**
 	 * Create an instance with the provided properties.
 	 * @param context the application context from which to obtain the meter registry.
@@ -65,6 +88,29 @@ public final class MicrometerHolder {
 	public MicrometerHolder(@Nullable ApplicationContext context, String name,
 			String timerName, String timerDesc, Function<Object, Map<String, String>> tagsProvider) {
 
+		this(context, name, timerName, timerDesc, tagsProvider, null, null, false);
+	}
+
+	/**
+	 * Create an instance with the provided properties; the distribution properties
+	 * apply to all the timers created by this holder.
+	 * @param context the application context from which to obtain the meter registry.
+	 * @param name the value of the 'name' tag.
+	 * @param timerName the timer name.
+	 * @param timerDesc the timer description.
+	 * @param tagsProvider the tags provider.
+	 * @param percentiles the percentiles to publish (e.g. 0.99), or null.
+	 * @param serviceLevelObjectives the SLO boundaries to publish as histogram buckets,
+	 * or null.
+	 * @param percentileHistogram true to publish a percentile histogram, for aggregable
+	 * percentiles in monitoring systems that support it.
+	 * @since 3.1
+	 */
+	public MicrometerHolder(@Nullable ApplicationContext context, String name,
+			String timerName, String timerDesc, Function<Object, Map<String, String>> tagsProvider,
+			@Nullable double[] percentiles, @Nullable Duration[] serviceLevelObjectives,
+			boolean percentileHistogram) {
+
 		Assert.notNull(tagsProvider, "'tagsProvider' cannot be null");
 		if (context == null) {
 			throw new IllegalStateException("No micrometer registry present");
@@ -80,7 +126,11 @@ public final class MicrometerHolder {
 			this.timerDesc = timerDesc;
 			this.name = name;
 			this.tagsProvider = tagsProvider;
-			buildTimer(NONE_EXCEPTION_METERS_KEY, null);
+			this.percentiles = percentiles;
+			this.serviceLevelObjectives = serviceLevelObjectives;
+			this.percentileHistogram = percentileHistogram;
+			this.meters.put(NONE_EXCEPTION_METERS_KEY,
+					buildTimer(NONE_EXCEPTION_METERS_KEY, tagsProvider.apply(null)));
 		}
 		else {
 			throw new IllegalStateException("No micrometer registry present (or more than one and "
@@ -115,10 +165,8 @@ public final class MicrometerHolder {
 	 * @see #start()
 	 */
 	public void failure(Object sample, String exception) {
-		Timer timer = this.meters.get(exception);
-		if (timer == null) {
-			timer = buildTimer(exception, null);
-		}
+		Timer timer = this.meters.computeIfAbsent(exception,
+				key -> buildTimer(key, this.tagsProvider.apply(null)));
 		((Sample) sample).stop(timer);
 	}
 
@@ -129,10 +177,7 @@ public final class MicrometerHolder {
 	 * @see #start()
 	 */
 	public void success(Object sample, Object record) {
-		Timer timer = buildTimer("none", record);
-		if (timer != null) {
-			((Sample) sample).stop(timer);
-		}
+		((Sample) sample).stop(recordTimer(NONE_EXCEPTION_METERS_KEY, record));
 	}
 
 	/**
@@ -143,33 +188,179 @@ public final class MicrometerHolder {
 	 * @see #start()
 	 */
 	public void failure(Object sample, String exception, Object record) {
-		Timer timer = buildTimer(exception, record);
-		((Sample) sample).stop(timer);
+		((Sample) sample).stop(recordTimer(exception, record));
+	}
+
+	/**
+	 * Return the timer for the exception and the tags provided for the record; timers
+	 * are cached by tag values, so they are only registered once.
+	 * @param exception the exception name.
+	 * @param record the record.
+	 * @return the timer.
+	 */
+	private Timer recordTimer(String exception, Object record) {
+		Map<String, String> extra = this.tagsProvider.apply(record);
+		Timer timer = this.recordMeters.get(new TimerKey(exception, extra));
+		if (timer == null) {
+			Map<String, String> tags = extra == null ? null : new HashMap<>(extra);
+			timer = this.recordMeters.computeIfAbsent(new TimerKey(exception, tags),
+					key -> buildTimer(exception, tags));
+		}
+		return timer;
+	}
+
+	/**
+	 * Register a gauge with the same 'name' tag (and the tags provided for a null
+	 * record) as the timers; it is removed by {@link #destroy()}.
+	 * @param <T> the type of the object to observe.
+	 * @param gaugeName the gauge name.
+	 * @param gaugeDesc the gauge description.
+	 * @param obj the object to observe.
+	 * @param valueFunction the function to obtain the value from the object.
+	 * @since 3.1
+	 */
+	public <T> void gauge(String gaugeName, String gaugeDesc, T obj, ToDoubleFunction<T> valueFunction) {
+		Gauge.Builder<T> builder = Gauge.builder(gaugeName, obj, valueFunction)
+				.description(gaugeDesc)
+				.tag("name", this.name);
+		Map<String, String> extra = this.tagsProvider.apply(null);
+		if (extra != null && !extra.isEmpty()) {
+			extra.forEach(builder::tag);
+		}
+		this.otherMeters.add(builder.register(this.registry));
 	}
 
-	private Timer buildTimer(String exception, @Nullable Object record) {
+	/**
+	 * Register a counter, whose value is obtained from a monotonically increasing
+	 * function, with the same 'name' tag (and the tags provided for a null record) as
+	 * the timers; it is removed by {@link #destroy()}.
+	 * @param <T> the type of the object to observe.
+	 * @param counterName the counter name.
+	 * @param counterDesc the counter description.
+	 * @param obj the object to observe.
+	 * @param countFunction the function to obtain the count from the object.
+	 * @since 3.1
+	 */
+	public <T> void functionCounter(String counterName, String counterDesc, T obj,
+			ToDoubleFunction<T> countFunction) {
+
+		FunctionCounter.Builder<T> builder = FunctionCounter.builder(counterName, obj, countFunction)
+				.description(counterDesc)
+				.tag("name", this.name);
+		Map<String, String> extra = this.tagsProvider.apply(null);
+		if (extra != null && !extra.isEmpty()) {
+			extra.forEach(builder::tag);
+		}
+		this.otherMeters.add(builder.register(this.registry));
+	}
+
+	/**
+	 * Register a timer with the same 'name' tag (and the tags provided for a null
+	 * record) as the other timers, together with the provided tags; it is removed by
+	 * {@link #destroy()}.
+	 * @param meterName the timer name.
+	 * @param meterDesc the timer description.
+	 * @param tags additional tags (key/value pairs).
+	 * @return the timer, to be passed to {@link #recordTime(Object, long)}.
+	 * @since 3.1
+	 */
+	public Object timer(String meterName, String meterDesc, String... tags) {
+		Builder builder = Timer.builder(meterName)
+				.description(meterDesc)
+				.tag("name", this.name)
+				.tags(tags);
+		Map<String, String> extra = this.tagsProvider.apply(null);
+		if (extra != null && !extra.isEmpty()) {
+			extra.forEach(builder::tag);
+		}
+		Timer timer = distribution(builder).register(this.registry);
+		this.otherMeters.add(timer);
+		return timer;
+	}
+
+	/**
+	 * Record a duration with a timer obtained from {@link #timer(String, String, String...)}.
+	 * @param timer the timer.
+	 * @param nanos the duration in nanoseconds.
+	 * @since 3.1
+	 */
+	public void recordTime(Object timer, long nanos) {
+		((Timer) timer).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Register a distribution summary with the same 'name' tag (and the tags provided
+	 * for a null record) as the timers, together with the provided tags; it is removed
+	 * by {@link #destroy()}.
+	 * @param meterName the summary name.
+	 * @param meterDesc the summary description.
+	 * @param tags additional tags (key/value pairs).
+	 * @return the summary, to be passed to {@link #recordAmount(Object, double)}.
+	 * @since 3.1
+	 */
+	public Object summary(String meterName, String meterDesc, String... tags) {
+		DistributionSummary.Builder builder = DistributionSummary.builder(meterName)
+				.description(meterDesc)
+				.tag("name", this.name)
+				.tags(tags);
+		Map<String, String> extra = this.tagsProvider.apply(null);
+		if (extra != null && !extra.isEmpty()) {
+			extra.forEach(builder::tag);
+		}
+		DistributionSummary summary = builder.register(this.registry);
+		this.otherMeters.add(summary);
+		return summary;
+	}
+
+	/**
+	 * Record an amount with a summary obtained from
+	 * {@link #summary(String, String, String...)}.
+	 * @param summary the summary.
+	 * @param amount the amount.
+	 * @since 3.1
+	 */
+	public void recordAmount(Object summary, double amount) {
+		((DistributionSummary) summary).record(amount);
+	}
+
+	private Timer buildTimer(String exception, @Nullable Map<String, String> extra) {
 		Builder builder = Timer.builder(this.timerName)
 			.description(this.timerDesc)
 			.tag("name", this.name)
 			.tag("result", exception.equals(NONE_EXCEPTION_METERS_KEY) ? "success" : "failure")
 			.tag("exception", exception);
-		Map<String, String> extra = this.tagsProvider.apply(record);
 		if (extra != null && !extra.isEmpty()) {
 			extra.forEach(builder::tag);
 		}
-		Timer registeredTimer = builder.register(this.registry);
-		if (record == null) {
-			this.meters.put(exception, registeredTimer);
+		return distribution(builder).register(this.registry);
+	}
+
+	private Builder distribution(Builder builder) {
+		if (this.percentiles != null) {
+			builder.publishPercentiles(this.percentiles);
 		}
-		return registeredTimer;
+		if (this.serviceLevelObjectives != null) {
+			builder.serviceLevelObjectives(this.serviceLevelObjectives);
+		}
+		if (this.percentileHistogram) {
+			builder.publishPercentileHistogram();
+		}
+		return builder;
 	}
 
 	/**
-	 * Remove the timers.
+	 * Remove the timers, gauges, counters and summaries.
 	 */
 	public void destroy() {
 		this.meters.values().forEach(this.registry::remove);
 		this.meters.clear();
+		this.recordMeters.values().forEach(this.registry::remove);
+		this.recordMeters.clear();
+		this.otherMeters.forEach(this.registry::remove);
+		this.otherMeters.clear();
+	}
+
+	private record TimerKey(String exception, @Nullable Map<String, String> tags) {
 	}
 
 }
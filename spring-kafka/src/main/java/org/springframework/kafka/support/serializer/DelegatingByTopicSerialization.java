@@ -1,5 +1,5 @@
 /*
- * Copyright 2021 the original author or authors.
+ * Copyright 2021-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,12 +20,12 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.support.TopicRouter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -37,6 +37,7 @@ import org.springframework.util.StringUtils;
  * @param <T> the type.
  *
  * @author Gary Russell
+ * @author agent
  * @since 2.8
  *
  */
@@ -83,6 +84,9 @@ public abstract class DelegatingByTopicSerialization<T extends Closeable> implem
 
 	private boolean cased = true;
 
+	@Nullable
+	private volatile TopicRouter<T> router;
+
 	public DelegatingByTopicSerialization() {
 	}
 
@@ -130,6 +134,7 @@ public abstract class DelegatingByTopicSerialization<T extends Closeable> implem
 		}
 		else if (value instanceof String) {
 			this.delegates.putAll(createDelegates((String) value, configs, isKey));
+			this.router = null;
 		}
 		else {
 			throw new IllegalStateException(
@@ -161,6 +166,7 @@ public abstract class DelegatingByTopicSerialization<T extends Closeable> implem
 				return;
 			}
 			this.delegates.put(pattern, (T) delegate);
+			this.router = null;
 			configureDelegate(configs, isKey, (T) delegate);
 		}
 		else if (delegate instanceof Class) {
@@ -265,6 +271,7 @@ public abstract class DelegatingByTopicSerialization<T extends Closeable> implem
 			configureDelegate(configs, isKey, delegate);
 			if (pattern != null) {
 				delegates2.put(pattern, delegate);
+				this.router = null;
 			}
 			return delegate;
 		}
@@ -275,11 +282,30 @@ public abstract class DelegatingByTopicSerialization<T extends Closeable> implem
 
 	public void addDelegate(Pattern pattern, T serializer) {
 		this.delegates.put(pattern, serializer);
+		this.router = null;
 	}
 
 	@Nullable
 	public T removeDelegate(Pattern pattern) {
-		return this.delegates.remove(pattern);
+		T removed = this.delegates.remove(pattern);
+		this.router = null;
+		return removed;
+	}
+
+	/**
+	 * Return the router used to select the delegate for a topic; it can be used to
+	 * monitor the cache hit rate. The router is replaced, and its statistics reset, when
+	 * delegates are added or removed.
+	 * @return the router.
+	 * @since 3.1
+	 */
+	public TopicRouter<T> getTopicRouter() {
+		TopicRouter<T> topicRouter = this.router;
+		if (topicRouter == null) {
+			topicRouter = new TopicRouter<>(this.delegates);
+			this.router = topicRouter;
+		}
+		return topicRouter;
 	}
 
 	/**
@@ -287,15 +313,8 @@ public abstract class DelegatingByTopicSerialization<T extends Closeable> implem
 	 * @param topic the topic.
 	 * @return the delegate.
 	 */
-	@SuppressWarnings(UNCHECKED)
 	protected T findDelegate(String topic) {
-		T delegate = null;
-		for (Entry<Pattern, T> entry : this.delegates.entrySet()) {
-			if (entry.getKey().matcher(topic).matches()) {
-				delegate = entry.getValue();
-				break;
-			}
-		}
+		T delegate = getTopicRouter().route(topic);
 		if (delegate == null) {
 			delegate = this.defaultDelegate;
 		}
@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 
 import org.apache.kafka.common.errors.SerializationException;
@@ -65,6 +66,7 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
  * @author Elliot Kennedy
  * @author Torsten Schleede
  * @author Ivan Ponomarev
+ * @author agent
  */
 public class JsonDeserializer<T> implements Deserializer<T> {
 
@@ -112,6 +114,8 @@ public class JsonDeserializer<T> implements Deserializer<T> {
 	 */
 	public static final String VALUE_TYPE_METHOD = "spring.json.value.type.method";
 
+	private static final int MAX_CACHED_READERS = 256;
+
 	private static final Set<String> OUR_KEYS = new HashSet<>();
 
 	static {
@@ -133,6 +137,8 @@ public class JsonDeserializer<T> implements Deserializer<T> {
 
 	private ObjectReader reader;
 
+	private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
 	private boolean typeMapperExplicitlySet = false;
 
 	private boolean removeTypeHeaders = true;
@@ -572,7 +578,7 @@ public class JsonDeserializer<T> implements Deserializer<T> {
 			javaType = this.typeMapper.toJavaType(headers);
 		}
 		if (javaType != null) {
-			deserReader = this.objectMapper.readerFor(javaType);
+			deserReader = readerFor(javaType);
 		}
 		if (this.removeTypeHeaders) {
 			this.typeMapper.removeHeaders(headers);
@@ -598,7 +604,7 @@ public class JsonDeserializer<T> implements Deserializer<T> {
 		if (this.typeResolver != null) {
 			JavaType javaType = this.typeResolver.resolveType(topic, data, null);
 			if (javaType != null) {
-				localReader = this.objectMapper.readerFor(javaType);
+				localReader = readerFor(javaType);
 			}
 		}
 		Assert.state(localReader != null, "No headers available and no default type provided");
@@ -611,6 +617,17 @@ public class JsonDeserializer<T> implements Deserializer<T> {
 		}
 	}
 
+	private ObjectReader readerFor(JavaType javaType) {
+		ObjectReader typeReader = this.readers.get(javaType);
+		if (typeReader == null) {
+			typeReader = this.objectMapper.readerFor(javaType);
+			if (this.readers.size() < MAX_CACHED_READERS) {
+				this.readers.put(javaType, typeReader);
+			}
+		}
+		return typeReader;
+	}
+
 	@Override
 	public void close() {
 		// No-op
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2021 the original author or authors.
+ * Copyright 2016-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.kafka.support.serializer;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -52,6 +53,7 @@ import com.fasterxml.jackson.databind.ObjectWriter;
  * @author Artem Bilan
  * @author Gary Russell
  * @author Elliot Kennedy
+ * @author agent
  */
 public class JsonSerializer<T> implements Serializer<T> {
 
@@ -66,6 +68,16 @@ public class JsonSerializer<T> implements Serializer<T> {
 	 */
 	public static final String TYPE_MAPPINGS = "spring.json.type.mapping";
 
+	/**
+	 * Kafka config property for the maximum size of a reusable output buffer; a
+	 * positive value enables buffer reuse.
+	 * @since 3.1
+	 * @see #setMaxRetainedBufferSize(int)
+	 */
+	public static final String MAX_RETAINED_BUFFER_SIZE = "spring.json.max.retained.buffer.size";
+
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+
 	protected final ObjectMapper objectMapper; // NOSONAR
 
 	protected boolean addTypeInfo = true; // NOSONAR
@@ -80,6 +92,11 @@ public class JsonSerializer<T> implements Serializer<T> {
 
 	private boolean configured;
 
+	private int maxRetainedBufferSize;
+
+	@Nullable
+	private volatile ThreadLocal<ReusableBuffer> buffers;
+
 	public JsonSerializer() {
 		this((JavaType) null, JacksonUtils.enhancedObjectMapper());
 	}
@@ -145,13 +162,35 @@ public class JsonSerializer<T> implements Serializer<T> {
 		this.setterCalled = true;
 	}
 
+	/**
+	 * Set to a positive value to serialize into a reusable, per-thread, output buffer,
+	 * instead of a new, growing, buffer for each record; only the returned
+	 * {@code byte[]} is then allocated for each record. A buffer that grows beyond this
+	 * size is discarded after use. Default 0 (no reuse).
+	 * @param maxRetainedBufferSize the maximum size of a retained buffer.
+	 * @since 3.1
+	 */
+	public void setMaxRetainedBufferSize(int maxRetainedBufferSize) {
+		doSetMaxRetainedBufferSize(maxRetainedBufferSize);
+		this.setterCalled = true;
+	}
+
+	private void doSetMaxRetainedBufferSize(int maxRetainedBufferSize) {
+		Assert.isTrue(maxRetainedBufferSize >= 0, "'maxRetainedBufferSize' cannot be negative");
+		this.maxRetainedBufferSize = maxRetainedBufferSize;
+		this.buffers = maxRetainedBufferSize > 0
+				? ThreadLocal.withInitial(() -> new ReusableBuffer(Math.min(INITIAL_BUFFER_SIZE, maxRetainedBufferSize)))
+				: null;
+	}
+
 	@Override
 	public synchronized void configure(Map<String, ?> configs, boolean isKey) {
 		if (this.configured) {
 			return;
 		}
 		Assert.state(!this.setterCalled
-				|| (!configs.containsKey(ADD_TYPE_INFO_HEADERS) && !configs.containsKey(TYPE_MAPPINGS)),
+				|| (!configs.containsKey(ADD_TYPE_INFO_HEADERS) && !configs.containsKey(TYPE_MAPPINGS)
+						&& !configs.containsKey(MAX_RETAINED_BUFFER_SIZE)),
 				"JsonSerializer must be configured with property setters, or via configuration properties; not both");
 		setUseTypeMapperForKey(isKey);
 		if (configs.containsKey(ADD_TYPE_INFO_HEADERS)) {
@@ -171,6 +210,18 @@ public class JsonSerializer<T> implements Serializer<T> {
 			((AbstractJavaTypeMapper) this.typeMapper)
 					.setIdClassMapping(createMappings((String) configs.get(TYPE_MAPPINGS)));
 		}
+		if (configs.containsKey(MAX_RETAINED_BUFFER_SIZE)) {
+			Object config = configs.get(MAX_RETAINED_BUFFER_SIZE);
+			if (config instanceof Number) {
+				doSetMaxRetainedBufferSize(((Number) config).intValue());
+			}
+			else if (config instanceof String) {
+				doSetMaxRetainedBufferSize(Integer.parseInt(((String) config).trim()));
+			}
+			else {
+				throw new IllegalStateException(MAX_RETAINED_BUFFER_SIZE + " must be Number or String");
+			}
+		}
 		this.configured = true;
 	}
 
@@ -210,6 +261,13 @@ public class JsonSerializer<T> implements Serializer<T> {
 			return null;
 		}
 		try {
+			ThreadLocal<ReusableBuffer> threadBuffers = this.buffers;
+			if (threadBuffers != null) {
+				ReusableBuffer buffer = threadBuffers.get();
+				if (!buffer.inUse) {
+					return serializeToBuffer(threadBuffers, buffer, data);
+				}
+			}
 			return this.writer.writeValueAsBytes(data);
 		}
 		catch (IOException ex) {
@@ -217,6 +275,23 @@ public class JsonSerializer<T> implements Serializer<T> {
 		}
 	}
 
+	private byte[] serializeToBuffer(ThreadLocal<ReusableBuffer> threadBuffers, ReusableBuffer buffer, T data)
+			throws IOException {
+
+		buffer.inUse = true;
+		try {
+			this.writer.writeValue(buffer, data);
+			return buffer.toByteArray();
+		}
+		finally {
+			buffer.inUse = false;
+			buffer.reset();
+			if (buffer.capacity() > this.maxRetainedBufferSize) {
+				threadBuffers.remove();
+			}
+		}
+	}
+
 	@Override
 	public void close() {
 		// No-op
@@ -256,6 +331,7 @@ public class JsonSerializer<T> implements Serializer<T> {
 		result.addTypeInfo = this.addTypeInfo;
 		result.typeMapper = this.typeMapper;
 		result.typeMapperExplicitlySet = this.typeMapperExplicitlySet;
+		result.doSetMaxRetainedBufferSize(this.maxRetainedBufferSize);
 		return result;
 	}
 
@@ -296,4 +372,33 @@ public class JsonSerializer<T> implements Serializer<T> {
 		return this;
 	}
 
+	/**
+	 * Serialize into reusable, per-thread, output buffers.
+	 * @param maxRetainedSize the maximum size of a retained buffer.
+	 * @return the serializer.
+	 * @since 3.1
+	 * @see #setMaxRetainedBufferSize(int)
+	 */
+	public JsonSerializer<T> reuseBuffers(int maxRetainedSize) {
+		setMaxRetainedBufferSize(maxRetainedSize);
+		return this;
+	}
+
+	/**
+	 * A {@link ByteArrayOutputStream} whose capacity is retained after {@link #reset()}.
+	 */
+	private static final class ReusableBuffer extends ByteArrayOutputStream {
+
+		private boolean inUse;
+
+		ReusableBuffer(int size) {
+			super(size);
+		}
+
+		int capacity() {
+			return this.buf.length;
+		}
+
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2019 the original author or authors.
+ * Copyright 2019-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.kafka.support.serializer;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 import org.apache.kafka.common.serialization.Serializer;
@@ -23,10 +24,13 @@ import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.kafka.common.utils.Bytes;
 
 /**
- * A serializer that can handle {@code byte[]}, {@link Bytes} and {@link String}.
- * Convenient when used with one of the Json message converters.
+ * A serializer that can handle {@code byte[]}, {@link Bytes}, {@link ByteBuffer} and
+ * {@link String}. Convenient when used with one of the Json message converters.
+ * The backing array of a {@link ByteBuffer} is returned without copying if the buffer's
+ * remaining bytes span the whole array.
  *
  * @author Gary Russell
+ * @author agent
  * @since 2.3
  *
  */
@@ -47,6 +51,9 @@ public class StringOrBytesSerializer implements Serializer<Object> {
 		else if (data instanceof Bytes) {
 			return ((Bytes) data).get();
 		}
+		else if (data instanceof ByteBuffer) {
+			return toBytes((ByteBuffer) data);
+		}
 		else if (data instanceof String) {
 			return this.stringSerializer.serialize(topic, (String) data);
 		}
@@ -54,8 +61,19 @@ public class StringOrBytesSerializer implements Serializer<Object> {
 			return null;
 		}
 		else {
-			throw new IllegalStateException("This serializer can only handle byte[], Bytes or String values");
+			throw new IllegalStateException("This serializer can only handle byte[], Bytes, ByteBuffer or String values");
+		}
+	}
+
+	private static byte[] toBytes(ByteBuffer buffer) {
+		if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+				&& buffer.remaining() == buffer.array().length) {
+
+			return buffer.array();
 		}
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
 	}
 
 	@Override
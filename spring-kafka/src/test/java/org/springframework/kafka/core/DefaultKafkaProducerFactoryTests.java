@@ -37,7 +37,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -45,6 +52,7 @@ import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.Metric;
 import org.apache.kafka.common.MetricName;
@@ -55,6 +63,7 @@ import org.mockito.InOrder;
 
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.ContextStoppedEvent;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.kafka.core.ProducerFactory.Listener;
 import org.springframework.kafka.test.utils.KafkaTestUtils;
 import org.springframework.kafka.transaction.KafkaTransactionManager;
@@ -63,6 +72,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author Gary Russell
+ * @author agent
  * @since 1.3.5
  *
  */
@@ -123,6 +133,142 @@ public class DefaultKafkaProducerFactoryTests {
 		pf.destroy();
 	}
 
+	@Test
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	void testTransactionalPoolPreWarm() {
+		List<Producer> created = new ArrayList<>();
+		DefaultKafkaProducerFactory pf = new DefaultKafkaProducerFactory(new HashMap<>()) {
+
+			@Override
+			protected Producer createRawProducer(Map configs) {
+				Producer producer = mock(Producer.class);
+				created.add(producer);
+				return producer;
+			}
+
+		};
+		pf.setTransactionIdPrefix("tx.");
+		pf.setTransactionalPoolMinSize(2);
+		pf.setTransactionalPoolMaxSize(2);
+		pf.setTransactionalPoolExecutor(new SyncTaskExecutor());
+		pf.start();
+		assertThat(created).hasSize(2);
+		created.forEach(producer -> verify(producer).initTransactions());
+		assertThat(pf.getIdleTransactionalProducerCount()).isEqualTo(2);
+		Producer aProducer = pf.createProducer();
+		assertThat(created).hasSize(3);
+		assertThat(pf.getIdleTransactionalProducerCount()).isEqualTo(2);
+		aProducer.close();
+		verify(created.get(0)).close(any(Duration.class));
+		assertThat(pf.getIdleTransactionalProducerCount()).isEqualTo(2);
+		pf.reset();
+		assertThat(created).hasSize(5);
+		assertThat(pf.getIdleTransactionalProducerCount()).isEqualTo(2);
+		assertThat(pf.getTransactionalCacheMisses()).isEqualTo(0);
+		pf.stop();
+		assertThat(pf.getIdleTransactionalProducerCount()).isEqualTo(0);
+		pf.createProducer().close();
+		assertThat(created).hasSize(6);
+		assertThat(pf.getTransactionalCacheMisses()).isEqualTo(1);
+		pf.destroy();
+	}
+
+	@Test
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	void testSharedProducerConcurrentAccess() throws Exception {
+		List<Producer> created = Collections.synchronizedList(new ArrayList<>());
+		DefaultKafkaProducerFactory pf = new DefaultKafkaProducerFactory(new HashMap<>()) {
+
+			@Override
+			protected Producer createRawProducer(Map configs) {
+				Producer producer = mock(Producer.class);
+				created.add(producer);
+				return producer;
+			}
+
+		};
+		ExecutorService exec = Executors.newFixedThreadPool(8);
+		try {
+			Set<Producer> seen = ConcurrentHashMap.newKeySet();
+			Callable<Void> task = () -> {
+				for (int i = 0; i < 1000; i++) {
+					Producer producer = pf.createProducer();
+					seen.add(producer);
+					producer.close();
+				}
+				return null;
+			};
+			for (Future<Void> future : exec.invokeAll(Collections.nCopies(8, task))) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+			assertThat(seen).hasSize(1);
+			assertThat(created).hasSize(1);
+			pf.setMaxAge(Duration.ofMillis(10));
+			Thread.sleep(50);
+			for (Future<Void> future : exec.invokeAll(Collections.nCopies(8, task))) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+			assertThat(created).hasSizeGreaterThanOrEqualTo(2);
+			verify(created.get(0)).close(any(Duration.class));
+			Producer current = pf.createProducer();
+			pf.reset();
+			assertThat(KafkaTestUtils.getPropertyValue(pf, "producer")).isNull();
+			assertThat(pf.createProducer()).isNotSameAs(current);
+		}
+		finally {
+			exec.shutdownNow();
+			pf.destroy();
+		}
+	}
+
+	@Test
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	void testProducerPool() {
+		List<Producer> created = new ArrayList<>();
+		DefaultKafkaProducerFactory pf = new DefaultKafkaProducerFactory(new HashMap<>()) {
+
+			@Override
+			protected Producer createRawProducer(Map configs) {
+				Producer producer = mock(Producer.class);
+				created.add(producer);
+				return producer;
+			}
+
+		};
+		List<String> added = new ArrayList<>();
+		pf.addListener(new Listener() {
+
+			@Override
+			public void producerAdded(String id, Producer producer) {
+				added.add(id);
+			}
+
+		});
+		pf.setProducerPoolSize(3);
+		Producer aProducer = pf.createProducer();
+		assertThat(aProducer).isInstanceOf(PooledProducer.class);
+		assertThat(pf.createProducer()).isSameAs(aProducer);
+		assertThat(created).hasSize(3);
+		assertThat(added).hasSize(3);
+		PooledProducer pool = (PooledProducer) aProducer;
+		ProducerRecord record = new ProducerRecord("foo", 1, null, "bar");
+		assertThat(pool.select(record)).isSameAs(pool.select(new ProducerRecord("foo", 1, "key", "baz")));
+		assertThat(pool.select(new ProducerRecord("foo", "key", "bar")))
+				.isSameAs(pool.select(new ProducerRecord("foo", "key", "baz")));
+		aProducer.send(record);
+		verify(pool.select(record).getDelegate()).send(eq(record), any());
+		aProducer.close();
+		assertThat(pf.createProducer()).isSameAs(aProducer);
+		pool.getMembers()[1].closed = true;
+		Producer bProducer = pf.createProducer();
+		assertThat(bProducer).isNotSameAs(aProducer);
+		assertThat(created).hasSize(4);
+		verify(created.get(1)).close(any(Duration.class));
+		assertThat(((PooledProducer) bProducer).getMembers()[0]).isSameAs(pool.getMembers()[0]);
+		pf.reset();
+		created.forEach(producer -> verify(producer).close(any(Duration.class)));
+	}
+
 	@Test
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	void testResetSingle() throws InterruptedException {
@@ -22,9 +22,11 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -45,14 +47,17 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.BufferExhaustedException;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -81,6 +86,7 @@ import org.mockito.Mockito;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.BatchSendResult;
 import org.springframework.kafka.support.CompositeProducerInterceptor;
 import org.springframework.kafka.support.CompositeProducerListener;
 import org.springframework.kafka.support.DefaultKafkaHeaderMapper;
@@ -106,6 +112,7 @@ import org.springframework.messaging.support.MessageBuilder;
  * @author Thomas Strauß
  * @author Soby Chacko
  * @author Gurps Bassi
+ * @author agent
  */
 @EmbeddedKafka(topics = { KafkaTemplateTests.INT_KEY_TOPIC, KafkaTemplateTests.STRING_KEY_TOPIC })
 public class KafkaTemplateTests {
@@ -441,6 +448,124 @@ public class KafkaTemplateTests {
 		assertThat(value.get()).isEqualTo("bar");
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	void testSendAll() throws Exception {
+		Producer<Integer, String> producer = mock(Producer.class);
+		willAnswer(inv -> {
+			ProducerRecord<Integer, String> record = inv.getArgument(0);
+			Callback callback = inv.getArgument(1);
+			if ("fail".equals(record.value())) {
+				callback.onCompletion(null, new TimeoutException("test"));
+			}
+			else {
+				callback.onCompletion(new RecordMetadata(new TopicPartition("foo", 0), 0L, 0, 0L, 0, 0), null);
+			}
+			return new CompletableFuture<RecordMetadata>();
+		}).given(producer).send(any(), any());
+		ProducerFactory<Integer, String> pf = mock(ProducerFactory.class);
+		given(pf.createProducer()).willReturn(producer);
+		KafkaTemplate<Integer, String> template = new KafkaTemplate<>(pf);
+		ProducerListener<Integer, String> listener = mock(ProducerListener.class);
+		template.setProducerListener(listener);
+		List<ProducerRecord<Integer, String>> records = List.of(new ProducerRecord<>("foo", 1, "bar"),
+				new ProducerRecord<>("foo", 2, "fail"), new ProducerRecord<>("foo", 3, "baz"));
+		BatchSendResult<Integer, String> result = template.sendAll(records).get(10, TimeUnit.SECONDS);
+		assertThat(result.isSuccessful()).isFalse();
+		assertThat(result.getResults()).hasSize(3);
+		assertThat(result.getResult(0).getProducerRecord().value()).isEqualTo("bar");
+		assertThat(result.getResult(1)).isNull();
+		assertThat(result.getResult(2).getProducerRecord().value()).isEqualTo("baz");
+		assertThat(result.getFailures()).containsOnlyKeys(1);
+		assertThat(result.getFailures().get(1)).isInstanceOf(KafkaProducerException.class)
+				.cause().isInstanceOf(TimeoutException.class);
+		verify(pf).createProducer();
+		verify(producer).close(any());
+		verify(listener, times(2)).onSuccess(any(), any());
+		verify(listener).onError(any(), any(), any());
+		assertThat(template.sendAll(Collections.emptyList()).get(10, TimeUnit.SECONDS).getResults()).isEmpty();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testBackPressure() throws Exception {
+		Producer<Integer, String> producer = mock(Producer.class);
+		AtomicLong available = new AtomicLong();
+		Metric bufferAvailable = mock(Metric.class);
+		given(bufferAvailable.metricValue()).willAnswer(inv -> (double) available.get());
+		MetricName name = new MetricName("buffer-available-bytes", "producer-metrics", "", Collections.emptyMap());
+		willReturn(Collections.singletonMap(name, bufferAvailable)).given(producer).metrics();
+		willAnswer(inv -> {
+			Callback callback = inv.getArgument(1);
+			callback.onCompletion(new RecordMetadata(new TopicPartition("foo", 0), 0L, 0, 0L, 0, 0), null);
+			return new CompletableFuture<RecordMetadata>();
+		}).given(producer).send(any(), any());
+		ProducerFactory<Integer, String> pf = mock(ProducerFactory.class);
+		given(pf.createProducer()).willReturn(producer);
+		List<ProducerFactory.Listener<Integer, String>> listeners = new ArrayList<>();
+		willAnswer(inv -> listeners.add(inv.getArgument(0))).given(pf).addListener(any());
+		given(pf.getListeners()).willReturn(listeners);
+		KafkaTemplate<Integer, String> template = new KafkaTemplate<>(pf);
+		template.setBackPressureMode(KafkaTemplate.BackPressureMode.FAIL);
+		assertThat(template.isBackPressured()).isTrue();
+		CompletableFuture<SendResult<Integer, String>> future = template.send("foo", 1, "bar");
+		assertThat(future).isCompletedExceptionally();
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(future::get)
+				.withCauseInstanceOf(KafkaProducerException.class)
+				.withRootCauseInstanceOf(BufferExhaustedException.class);
+		assertThat(template.getBackPressureRejections()).isEqualTo(1);
+		verify(producer, never()).send(any(), any());
+		available.set(KafkaTemplate.DEFAULT_BACK_PRESSURE_THRESHOLD);
+		assertThat(template.isBackPressured()).isFalse();
+		assertThat(template.send("foo", 1, "bar").get(10, TimeUnit.SECONDS)).isNotNull();
+		verify(producer).send(any(), any());
+		available.set(0);
+		template.setBackPressureMode(KafkaTemplate.BackPressureMode.SPILL);
+		assertThat(template.send("foo", 1, "baz").get(10, TimeUnit.SECONDS).getProducerRecord().value())
+				.isEqualTo("baz");
+		verify(producer, times(2)).send(any(), any());
+		assertThat(template.getSpillQueueDepth()).isEqualTo(0);
+		assertThat(template.getBackPressureRejections()).isEqualTo(1);
+		verify(producer).metrics();
+		assertThat(listeners).hasSize(1);
+		listeners.get(0).producerRemoved("foo", producer);
+		assertThat(template.isBackPressured()).isTrue();
+		verify(producer, times(2)).metrics();
+		template.destroy();
+		verify(pf).removeListener(listeners.get(0));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testBackPressureSpillsFirstRecordForTopic() throws Exception {
+		Producer<Integer, String> producer = mock(Producer.class);
+		Metric bufferAvailable = mock(Metric.class);
+		given(bufferAvailable.metricValue()).willReturn((double) KafkaTemplate.DEFAULT_BACK_PRESSURE_THRESHOLD);
+		MetricName name = new MetricName("buffer-available-bytes", "producer-metrics", "", Collections.emptyMap());
+		willReturn(Collections.singletonMap(name, bufferAvailable)).given(producer).metrics();
+		List<String> senders = new ArrayList<>();
+		willAnswer(inv -> {
+			ProducerRecord<Integer, String> record = inv.getArgument(0);
+			senders.add(record.topic() + ":" + Thread.currentThread().getName().contains("-spill-"));
+			Callback callback = inv.getArgument(1);
+			callback.onCompletion(new RecordMetadata(new TopicPartition(record.topic(), 0), 0L, 0, 0L, 0, 0), null);
+			return new CompletableFuture<RecordMetadata>();
+		}).given(producer).send(any(), any());
+		ProducerFactory<Integer, String> pf = mock(ProducerFactory.class);
+		given(pf.createProducer()).willReturn(producer);
+		List<ProducerFactory.Listener<Integer, String>> listeners = new ArrayList<>();
+		willAnswer(inv -> listeners.add(inv.getArgument(0))).given(pf).addListener(any());
+		given(pf.getListeners()).willReturn(listeners);
+		KafkaTemplate<Integer, String> template = new KafkaTemplate<>(pf);
+		template.setBackPressureMode(KafkaTemplate.BackPressureMode.SPILL);
+		assertThat(template.send("foo", 1, "bar").get(10, TimeUnit.SECONDS)).isNotNull();
+		assertThat(template.send("foo", 1, "baz").get(10, TimeUnit.SECONDS)).isNotNull();
+		assertThat(template.send("qux", 1, "bar").get(10, TimeUnit.SECONDS)).isNotNull();
+		assertThat(senders).containsExactly("foo:true", "foo:false", "qux:true");
+		assertThat(template.getBackPressureRejections()).isEqualTo(0);
+		template.destroy();
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	void testWithCallbackFailureFunctional() throws Exception {
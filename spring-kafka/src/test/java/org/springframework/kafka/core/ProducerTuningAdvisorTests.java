@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.kafka.core.ProducerTuningAdvisor.ProducerSample;
+import org.springframework.kafka.core.ProducerTuningAdvisor.Recommendation;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class ProducerTuningAdvisorTests {
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void recommendWhenBusyApplyWhenIdle() {
+		ProducerFactory<String, String> pf = mock(ProducerFactory.class);
+		Map<String, Object> configs = new HashMap<>();
+		configs.put(ProducerConfig.BATCH_SIZE_CONFIG, 16_384);
+		configs.put(ProducerConfig.LINGER_MS_CONFIG, "0");
+		configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "gzip");
+		given(pf.getConfigurationProperties()).willReturn(configs);
+		Map<MetricName, Metric> metrics = new HashMap<>();
+		Producer<String, String> producer = mock(Producer.class);
+		given(producer.metrics()).willAnswer(inv -> metrics);
+		ProducerTuningAdvisor<String, String> advisor = new ProducerTuningAdvisor<>(pf);
+		verify(pf).addListener(advisor);
+		advisor.setAutoApply(true);
+		advisor.setMinApplyInterval(Duration.ZERO);
+		advisor.producerAdded("pf.producer-1", producer);
+
+		producerMetric(metrics, "record-send-rate", 5000);
+		producerMetric(metrics, "batch-size-avg", 16_000);
+		producerMetric(metrics, "compression-rate-avg", 0.99);
+		topicMetric(metrics, "foo", "record-send-rate", 5000);
+		topicMetric(metrics, "foo", "compression-rate", 0.99);
+		ProducerSample sample = advisor.evaluate();
+		assertThat(sample.recordSendRate()).isEqualTo(5000);
+		assertThat(sample.batchSizeAvg()).isEqualTo(16_000);
+		assertThat(sample.requestLatencyAvg()).isNaN();
+		assertThat(sample.topics().get("foo").compressionRate()).isEqualTo(0.99);
+		Recommendation recommendation = advisor.getLastRecommendation();
+		assertThat(recommendation).isNotNull();
+		assertThat(recommendation.configs()).containsEntry(ProducerConfig.BATCH_SIZE_CONFIG, 32_768)
+				.containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none");
+		assertThat(recommendation.reasons()).hasSize(2);
+		verify(pf, never()).reset();
+
+		producerMetric(metrics, "record-send-rate", 1);
+		advisor.evaluate();
+		verify(pf, never()).reset();
+		producerMetric(metrics, "record-send-rate", 0);
+		producerMetric(metrics, "requests-in-flight", 1);
+		advisor.evaluate();
+		verify(pf, never()).reset();
+		producerMetric(metrics, "requests-in-flight", 0);
+		producerMetric(metrics, "buffer-total-bytes", 33_554_432);
+		producerMetric(metrics, "buffer-available-bytes", 33_538_048);
+		advisor.evaluate();
+		verify(pf, never()).reset();
+		producerMetric(metrics, "buffer-available-bytes", 33_554_432);
+		advisor.evaluate();
+		verify(pf).updateConfigs(recommendation.configs());
+		verify(pf).reset();
+		assertThat(advisor.getAppliedCount()).isEqualTo(1);
+		advisor.evaluate();
+		assertThat(advisor.getAppliedCount()).isEqualTo(1);
+
+		producerMetric(metrics, "record-send-rate", 5000);
+		producerMetric(metrics, "batch-size-avg", 4000);
+		configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none");
+		advisor.evaluate();
+		assertThat(advisor.getLastRecommendation().configs())
+				.containsExactly(Map.entry(ProducerConfig.LINGER_MS_CONFIG, 5));
+
+		advisor.destroy();
+		verify(pf).removeListener(advisor);
+	}
+
+	private static void producerMetric(Map<MetricName, Metric> metrics, String name, double value) {
+		metric(metrics, new MetricName(name, "producer-metrics", "", Map.of("client-id", "producer-1")), value);
+	}
+
+	private static void topicMetric(Map<MetricName, Metric> metrics, String topic, String name, double value) {
+		metric(metrics, new MetricName(name, "producer-topic-metrics", "",
+				Map.of("client-id", "producer-1", "topic", topic)), value);
+	}
+
+	private static void metric(Map<MetricName, Metric> metrics, MetricName name, double value) {
+		Metric metric = mock(Metric.class);
+		given(metric.metricValue()).willReturn(value);
+		metrics.put(name, metric);
+	}
+
+}
@@ -32,11 +32,10 @@ import java.util.regex.Pattern;
 import org.apache.kafka.clients.producer.Producer;
 import org.junit.jupiter.api.Test;
 
-import org.springframework.kafka.test.utils.KafkaTestUtils;
-
 /**
  * @author Gary Russell
  * @author Nathan Xu
+ * @author agent
  * @since 2.5
  *
  */
@@ -63,7 +62,8 @@ public class RoutingKafkaTemplateTests {
 		template.send("bar", "test");
 		verify(p1, times(2)).send(any(), any());
 		verify(p2, times(2)).send(any(), any());
-		assertThat(KafkaTestUtils.getPropertyValue(template, "factoryMap", Map.class)).hasSize(2);
+		assertThat(template.getTopicRouter().getCachedTopicCount()).isEqualTo(2);
+		assertThat(template.getTopicRouter().getCacheHits()).isEqualTo(2);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class BoundedMpscQueueTests {
+
+	@Test
+	void offerPollAndWrap() {
+		BoundedMpscQueue<Integer> queue = new BoundedMpscQueue<>(3);
+		assertThat(queue.capacity()).isEqualTo(4);
+		assertThat(queue.isEmpty()).isTrue();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 4; i++) {
+				assertThat(queue.offer(i)).isTrue();
+			}
+			assertThat(queue.offer(4)).isFalse();
+			assertThat(queue.size()).isEqualTo(4);
+			for (int i = 0; i < 4; i++) {
+				assertThat(queue.poll()).isEqualTo(i);
+			}
+			assertThat(queue.poll()).isNull();
+		}
+	}
+
+	@Test
+	void drain() {
+		BoundedMpscQueue<String> queue = new BoundedMpscQueue<>(8);
+		queue.offer("a");
+		queue.offer("b");
+		List<String> drained = new ArrayList<>();
+		assertThat(queue.drain(drained::add)).isEqualTo(2);
+		assertThat(drained).containsExactly("a", "b");
+		assertThat(queue.isEmpty()).isTrue();
+	}
+
+	@Test
+	void concurrentProducers() throws InterruptedException {
+		BoundedMpscQueue<Integer> queue = new BoundedMpscQueue<>(16);
+		ExecutorService exec = Executors.newFixedThreadPool(4);
+		CountDownLatch latch = new CountDownLatch(4);
+		for (int p = 0; p < 4; p++) {
+			int producer = p;
+			exec.execute(() -> {
+				try {
+					for (int i = 0; i < 1000; i++) {
+						queue.put(producer * 1000 + i);
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				latch.countDown();
+			});
+		}
+		int[] last = { -1, -1, -1, -1 };
+		int received = 0;
+		long end = System.currentTimeMillis() + 10_000;
+		while (received < 4000 && System.currentTimeMillis() < end) {
+			Integer next = queue.poll();
+			if (next != null) {
+				int producer = next / 1000;
+				assertThat(next % 1000).isGreaterThan(last[producer]);
+				last[producer] = next % 1000;
+				received++;
+			}
+		}
+		assertThat(received).isEqualTo(4000);
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		exec.shutdownNow();
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.kafka.listener;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -54,17 +55,21 @@ import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.GroupAuthorizationException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.KafkaResourceHolder;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.event.ConsumerFailedToStartEvent;
 import org.springframework.kafka.event.ConsumerStartedEvent;
 import org.springframework.kafka.event.ConsumerStartingEvent;
+import org.springframework.kafka.event.ConsumerStoppedEvent.Reason;
 import org.springframework.kafka.event.ListenerContainerIdleEvent;
 import org.springframework.kafka.listener.ContainerProperties.AckMode;
 import org.springframework.kafka.listener.ContainerProperties.AssignmentCommitOption;
@@ -78,6 +83,7 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 
 /**
  * @author Gary Russell
+ * @author agent
  * @since 2.2.4
  *
  */
@@ -130,6 +136,130 @@ public class ConcurrentMessageListenerContainerMockTests {
 		exec.destroy();
 	}
 
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void concurrencyScaling() {
+		ConsumerFactory consumerFactory = mock(ConsumerFactory.class);
+		Consumer consumer = mock(Consumer.class);
+		willAnswer(invocation -> {
+			Thread.sleep(10);
+			return new ConsumerRecords<>(Collections.emptyMap());
+		}).given(consumer).poll(any());
+		List<TopicPartition> assignments = Arrays.asList(new TopicPartition("foo", 0), new TopicPartition("foo", 1),
+				new TopicPartition("foo", 2), new TopicPartition("foo", 3));
+		willAnswer(invocation -> {
+			((ConsumerRebalanceListener) invocation.getArgument(1))
+				.onPartitionsAssigned(assignments);
+			return null;
+		}).given(consumer).subscribe(any(Collection.class), any());
+		Metric lag = mock(Metric.class);
+		given(lag.metricValue()).willReturn(5000.0);
+		Map<MetricName, Metric> metrics = Map.of(new MetricName("records-lag", "consumer-fetch-manager-metrics",
+				"", Map.of("topic", "foo", "partition", "0")), lag);
+		given(consumer.metrics()).willReturn(metrics);
+		given(consumerFactory.createConsumer(anyString(), anyString(), anyString(),
+				eq(KafkaTestUtils.defaultPropertyOverrides())))
+						.willReturn(consumer);
+		ContainerProperties containerProperties = new ContainerProperties("foo");
+		containerProperties.setGroupId("grp");
+		containerProperties.setMessageListener((MessageListener) record -> { });
+		containerProperties.setMissingTopicsFatal(false);
+		ConcurrentMessageListenerContainer container = new ConcurrentMessageListenerContainer<>(consumerFactory,
+				containerProperties);
+		container.start();
+		assertThat(container.getContainers()).hasSize(1);
+		container.setConcurrency(2);
+		assertThat(container.getContainers()).hasSize(1);
+		container.scaleConcurrency(2);
+		assertThat(container.getContainers()).hasSize(2);
+		container.scaleConcurrency(1);
+		assertThat(container.getContainers()).hasSize(1);
+		container.stop();
+		container.setConcurrencyScalingPolicy(new LagConcurrencyScalingPolicy());
+		container.setMaxConcurrency(3);
+		container.setScalingInterval(Duration.ofMillis(50));
+		container.setScalingCooldown(Duration.ZERO);
+		container.start();
+		await().atMost(Duration.ofSeconds(10)).until(() -> container.getContainers().size() == 3);
+		assertThat(container.getConcurrency()).isEqualTo(3);
+		container.stop();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void scaleUpDoesNotReuseIndexOfStoppingChild() throws InterruptedException {
+		ConsumerFactory consumerFactory = mock(ConsumerFactory.class);
+		Consumer consumer = mock(Consumer.class);
+		CountDownLatch gate = new CountDownLatch(1);
+		willAnswer(invocation -> {
+			gate.await(10, TimeUnit.SECONDS);
+			Thread.sleep(10);
+			return new ConsumerRecords<>(Collections.emptyMap());
+		}).given(consumer).poll(any());
+		given(consumerFactory.createConsumer(anyString(), anyString(), anyString(),
+				eq(KafkaTestUtils.defaultPropertyOverrides())))
+						.willReturn(consumer);
+		ContainerProperties containerProperties = new ContainerProperties("foo");
+		containerProperties.setGroupId("grp");
+		containerProperties.setMessageListener((MessageListener) record -> { });
+		containerProperties.setMissingTopicsFatal(false);
+		ConcurrentMessageListenerContainer container = new ConcurrentMessageListenerContainer<>(consumerFactory,
+				containerProperties);
+		container.setConcurrency(2);
+		container.start();
+		container.scaleConcurrency(1);
+		container.scaleConcurrency(2);
+		List<KafkaMessageListenerContainer> children = container.getContainers();
+		assertThat(children).hasSize(2);
+		assertThat(children.get(1).getBeanName()).isEqualTo("consumer-2");
+		assertThat(KafkaTestUtils.getPropertyValue(children.get(1), "clientIdSuffix")).isEqualTo("-2");
+		gate.countDown();
+		await().atMost(Duration.ofSeconds(10))
+				.until(() -> KafkaTestUtils.getPropertyValue(container, "retiredContainers", Set.class).isEmpty());
+		container.scaleConcurrency(1);
+		await().atMost(Duration.ofSeconds(10))
+				.until(() -> KafkaTestUtils.getPropertyValue(container, "retiredContainers", Set.class).isEmpty());
+		container.scaleConcurrency(2);
+		assertThat(((KafkaMessageListenerContainer) container.getContainers().get(1)).getBeanName())
+				.isEqualTo("consumer-1");
+		container.stop();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void scaledDownChildNotCountedForAuthRestart() {
+		ConsumerFactory consumerFactory = mock(ConsumerFactory.class);
+		Consumer consumer = mock(Consumer.class);
+		willAnswer(invocation -> {
+			Thread.sleep(10);
+			return new ConsumerRecords<>(Collections.emptyMap());
+		}).given(consumer).poll(any());
+		given(consumerFactory.createConsumer(anyString(), anyString(), anyString(),
+				eq(KafkaTestUtils.defaultPropertyOverrides())))
+						.willReturn(consumer);
+		ContainerProperties containerProperties = new ContainerProperties("foo");
+		containerProperties.setGroupId("grp");
+		containerProperties.setMessageListener((MessageListener) record -> { });
+		containerProperties.setMissingTopicsFatal(false);
+		containerProperties.setRestartAfterAuthExceptions(true);
+		ConcurrentMessageListenerContainer container = new ConcurrentMessageListenerContainer<>(consumerFactory,
+				containerProperties);
+		container.setApplicationEventPublisher(mock(ApplicationEventPublisher.class));
+		container.setConcurrency(2);
+		container.start();
+		List<KafkaMessageListenerContainer> children = container.getContainers();
+		container.childStopped(children.get(1), Reason.AUTH);
+		container.scaleConcurrency(1);
+		await().atMost(Duration.ofSeconds(10))
+				.until(() -> KafkaTestUtils.getPropertyValue(container, "retiredContainers", Set.class).isEmpty());
+		assertThat(KafkaTestUtils.getPropertyValue(container, "stoppedContainers", Set.class)).isEmpty();
+		container.childStopped(children.get(0), Reason.AUTH);
+		// all live children stopped for auth; the restart clears the state
+		assertThat(KafkaTestUtils.getPropertyValue(container, "reason")).isNull();
+		assertThat(KafkaTestUtils.getPropertyValue(container, "stoppedContainers", Set.class)).isEmpty();
+		container.stop();
+	}
+
 	@SuppressWarnings({ "rawtypes", "unchecked", "deprecation" })
 	@Test
 	void testCorrectContainerForConsumerError() throws InterruptedException {
@@ -75,6 +75,7 @@ import org.springframework.kafka.test.utils.KafkaTestUtils;
  * @author Marius Bogoevici
  * @author Artem Yakshin
  * @author Vladimir Tsanev
+ * @author agent
  */
 @EmbeddedKafka(topics = { ConcurrentMessageListenerContainerTests.topic1,
 		ConcurrentMessageListenerContainerTests.topic2,
@@ -192,8 +193,8 @@ public class ConcurrentMessageListenerContainerTests {
 				"containers", List.class);
 		assertThat(containers).hasSize(2);
 		for (int i = 0; i < 2; i++) {
-			assertThat(KafkaTestUtils.getPropertyValue(containers.get(i), "listenerConsumer.acks", Collection.class)
-					.size()).isEqualTo(0);
+			assertThat(KafkaTestUtils.getPropertyValue(containers.get(i), "listenerConsumer.acks",
+					BoundedMpscQueue.class).size()).isEqualTo(0);
 		}
 		assertThat(container.metrics()).isNotNull();
 		Set<KafkaMessageListenerContainer<Integer, String>> children = new HashSet<>(containers);
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class DeferredDeserializerTests {
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void deserialize() {
+		ConsumerFactory cf = mock(ConsumerFactory.class);
+		given(cf.getConfigurationProperties()).willReturn(Map.of(
+				ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, IntegerDeserializer.class,
+				ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, IntegerDeserializer.class.getName()));
+		Properties overrides = new Properties();
+		overrides.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+		DeferredDeserializer deserializer = new DeferredDeserializer<>(cf, overrides, getClass().getClassLoader());
+		ConsumerRecords<Object, Object> records = deserializer.deserialize(new ConsumerRecords<>(Map.of(
+				new TopicPartition("foo", 0), List.of(
+						new ConsumerRecord<>("foo", 0, 0L, new byte[] { 0, 0, 0, 1 },
+								"bar".getBytes(StandardCharsets.UTF_8)),
+						new ConsumerRecord<>("foo", 0, 1L, null, null)))));
+		assertThat(records.count()).isEqualTo(2);
+		List<ConsumerRecord<Object, Object>> list = records.records(new TopicPartition("foo", 0));
+		assertThat(list.get(0).key()).isEqualTo(1);
+		assertThat(list.get(0).value()).isEqualTo("bar");
+		assertThat(list.get(0).offset()).isEqualTo(0L);
+		assertThat(list.get(1).key()).isNull();
+		assertThat(list.get(1).value()).isNull();
+		assertThat(list.get(1).offset()).isEqualTo(1L);
+		deserializer.close();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void deserializedRecordsNotDeserializedAgain() {
+		ConsumerFactory cf = mock(ConsumerFactory.class);
+		given(cf.getConfigurationProperties()).willReturn(Map.of(
+				ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, IntegerDeserializer.class,
+				ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class));
+		DeferredDeserializer deserializer = new DeferredDeserializer<>(cf, new Properties(),
+				getClass().getClassLoader());
+		ConsumerRecords<Object, Object> records = deserializer.deserialize(new ConsumerRecords<>(Map.of(
+				new TopicPartition("foo", 0), List.of(new ConsumerRecord<>("foo", 0, 0L, new byte[] { 0, 0, 0, 1 },
+						"bar".getBytes(StandardCharsets.UTF_8))))));
+		assertThat(DeferredDeserializer.isDeserialized(records)).isTrue();
+		assertThat(deserializer.deserialize(records)).isSameAs(records);
+		ConsumerRecords<Object, Object> remaining = new ConsumerRecords<>(Map.of(new TopicPartition("foo", 0),
+				List.of(new ConsumerRecord<>("foo", 0, 0L, 1, "bar"))));
+		assertThat(DeferredDeserializer.isDeserialized(remaining)).isFalse();
+		ConsumerRecords<Object, Object> marked = DeferredDeserializer.deserialized(remaining);
+		assertThat(deserializer.deserialize(marked)).isSameAs(marked);
+		assertThat(marked.iterator().next().value()).isEqualTo("bar");
+		deserializer.close();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void failureAddsHeader() {
+		ConsumerFactory cf = mock(ConsumerFactory.class);
+		given(cf.getConfigurationProperties()).willReturn(Map.of(
+				ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+				ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, FailingDeserializer.class));
+		DeferredDeserializer deserializer = new DeferredDeserializer<>(cf, new Properties(),
+				getClass().getClassLoader());
+		ConsumerRecord<Object, Object> rec = deserializer.deserialize(new ConsumerRecord<>("foo", 0, 0L,
+				"key".getBytes(StandardCharsets.UTF_8), "bar".getBytes(StandardCharsets.UTF_8)));
+		assertThat(rec.key()).isEqualTo("key");
+		assertThat(rec.value()).isNull();
+		DeserializationException ex = SerializationUtils.getExceptionFromHeader(rec,
+				SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, new LogAccessor(getClass()));
+		assertThat(ex).isNotNull();
+		assertThat(ex.getData()).isEqualTo("bar".getBytes(StandardCharsets.UTF_8));
+		assertThat(ex.isKey()).isFalse();
+		assertThat(ex.getCause()).hasMessage("test");
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void deserializerObjectsRejected() {
+		ConsumerFactory cf = mock(ConsumerFactory.class);
+		given(cf.getValueDeserializer()).willReturn(new StringDeserializer());
+		assertThatIllegalStateException().isThrownBy(() ->
+				new DeferredDeserializer<>(cf, new Properties(), getClass().getClassLoader()));
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void concurrentCallersUseSeparateDeserializers() throws Exception {
+		ConsumerFactory cf = mock(ConsumerFactory.class);
+		given(cf.getConfigurationProperties()).willReturn(Map.of(
+				ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+				ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, SingleThreadedDeserializer.class));
+		DeferredDeserializer deserializer = new DeferredDeserializer<>(cf, new Properties(),
+				getClass().getClassLoader());
+		int threads = 4;
+		ExecutorService exec = Executors.newFixedThreadPool(threads);
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<List<Object>>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(exec.submit(() -> {
+				go.await(10, TimeUnit.SECONDS);
+				List<Object> values = new ArrayList<>();
+				for (int j = 0; j < 20; j++) {
+					values.add(deserializer.deserialize(new ConsumerRecord<>("foo", 0, j, null,
+							"bar".getBytes(StandardCharsets.UTF_8))).value());
+				}
+				return values;
+			}));
+		}
+		go.countDown();
+		for (Future<List<Object>> future : futures) {
+			assertThat(future.get(10, TimeUnit.SECONDS)).hasSize(20).containsOnly("bar");
+		}
+		exec.shutdown();
+		assertThat(deserializer.getDeserializerCount()).isBetween(1, threads);
+		deserializer.close();
+	}
+
+	public static class SingleThreadedDeserializer implements Deserializer<Object> {
+
+		private final AtomicBoolean inUse = new AtomicBoolean();
+
+		@Override
+		public Object deserialize(String topic, byte[] data) {
+			if (!this.inUse.compareAndSet(false, true)) {
+				throw new IllegalStateException("concurrent use");
+			}
+			try {
+				Thread.sleep(2);
+				return new String(data, StandardCharsets.UTF_8);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(ex);
+			}
+			finally {
+				this.inUse.set(false);
+			}
+		}
+
+	}
+
+	public static class FailingDeserializer implements Deserializer<Object> {
+
+		@Override
+		public Object deserialize(String topic, byte[] data) {
+			throw new IllegalStateException("test");
+		}
+
+	}
+
+}
@@ -19,6 +19,7 @@ package org.springframework.kafka.listener;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
@@ -33,6 +34,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -50,6 +52,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -80,9 +83,12 @@ import org.apache.kafka.common.errors.RebalanceInProgressException;
 import org.apache.kafka.common.errors.TopicAuthorizationException;
 import org.apache.kafka.common.errors.WakeupException;
 import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.EnumSource;
@@ -128,6 +134,7 @@ import org.springframework.kafka.test.utils.KafkaTestUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.backoff.FixedBackOff;
 
 /**
@@ -140,6 +147,7 @@ import org.springframework.util.backoff.FixedBackOff;
  * @author Lukasz Kaminski
  * @author Ray Chuan Tay
  * @author Daniel Gentes
+ * @author agent
  */
 @EmbeddedKafka(topics = { KafkaMessageListenerContainerTests.topic1, KafkaMessageListenerContainerTests.topic2,
 		KafkaMessageListenerContainerTests.topic3, KafkaMessageListenerContainerTests.topic4,
@@ -667,6 +675,342 @@ public class KafkaMessageListenerContainerTests {
 		assertThat(container.isRunning()).isFalse();
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	void testRecordAckCoalescedMock() throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer<Integer, String> consumer = mock(Consumer.class);
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		final Map<TopicPartition, List<ConsumerRecord<Integer, String>>> records = new HashMap<>();
+		records.put(tp, Arrays.asList(
+				new ConsumerRecord<>("foo", 0, 0L, 1, "foo"),
+				new ConsumerRecord<>("foo", 0, 1L, 1, "bar"),
+				new ConsumerRecord<>("foo", 0, 2L, 1, "baz"),
+				new ConsumerRecord<>("foo", 0, 3L, 1, "qux")));
+		ConsumerRecords<Integer, String> consumerRecords = new ConsumerRecords<>(records);
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(50);
+			return consumerRecords;
+		});
+		ContainerProperties containerProps = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		containerProps.setGroupId("grp");
+		containerProps.setAckMode(AckMode.RECORD);
+		containerProps.setCommitCoalesceCount(2);
+		containerProps.setMissingTopicsFatal(false);
+		final CountDownLatch latch = new CountDownLatch(4);
+		containerProps.setMessageListener((MessageListener<Integer, String>) data -> {
+			latch.countDown();
+			if (latch.getCount() == 0) {
+				records.clear();
+			}
+		});
+		final CountDownLatch commitLatch = new CountDownLatch(2);
+		willAnswer(i -> {
+			commitLatch.countDown();
+			return null;
+		}).given(consumer).commitSync(anyMap(), any());
+		containerProps.setClientId("clientId");
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.start();
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(commitLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		InOrder inOrder = inOrder(consumer);
+		inOrder.verify(consumer).commitSync(Collections.singletonMap(tp, new OffsetAndMetadata(2L)),
+				Duration.ofSeconds(60));
+		inOrder.verify(consumer).commitSync(Collections.singletonMap(tp, new OffsetAndMetadata(4L)),
+				Duration.ofSeconds(60));
+		verify(consumer, times(2)).commitSync(anyMap(), any());
+		container.stop();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testCoalescingRestartsAfterRebalanceCommit() throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer<Integer, String> consumer = mock(Consumer.class);
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		AtomicReference<ConsumerRebalanceListener> rebal = new AtomicReference<>();
+		willAnswer(invoc -> {
+			rebal.set(invoc.getArgument(1));
+			return null;
+		}).given(consumer).subscribe(any(Collection.class), any(ConsumerRebalanceListener.class));
+		Iterator<ConsumerRecords<Integer, String>> batches = List.of(
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 0L, 1, "foo"),
+						new ConsumerRecord<>("foo", 0, 1L, 1, "bar")))),
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 2L, 1, "baz"),
+						new ConsumerRecord<>("foo", 0, 3L, 1, "qux")))),
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 4L, 1, "fiz")))))
+				.iterator();
+		AtomicInteger polls = new AtomicInteger();
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(50);
+			if (polls.incrementAndGet() == 2) {
+				rebal.get().onPartitionsRevoked(List.of(tp));
+			}
+			synchronized (batches) {
+				return batches.hasNext() ? batches.next() : ConsumerRecords.empty();
+			}
+		});
+		CountDownLatch commitLatch = new CountDownLatch(2);
+		List<Map<TopicPartition, OffsetAndMetadata>> commits = Collections.synchronizedList(new ArrayList<>());
+		willAnswer(i -> {
+			commits.add(i.getArgument(0));
+			commitLatch.countDown();
+			return null;
+		}).given(consumer).commitSync(anyMap(), any());
+		ContainerProperties containerProps = new ContainerProperties("foo");
+		containerProps.setGroupId("grp");
+		containerProps.setClientId("clientId");
+		containerProps.setAckMode(AckMode.RECORD);
+		containerProps.setCommitCoalesceCount(3);
+		containerProps.setMissingTopicsFatal(false);
+		containerProps.setMessageListener((MessageListener<Integer, String>) data -> { });
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.start();
+		assertThat(commitLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		container.stop();
+		// the revocation commit starts a new window; otherwise offset 2 would complete the first one
+		assertThat(commits).startsWith(Map.of(tp, new OffsetAndMetadata(2L)), Map.of(tp, new OffsetAndMetadata(5L)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testPipelinedBatchMock() throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer<Integer, String> consumer = mock(Consumer.class);
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		Iterator<ConsumerRecords<Integer, String>> batches = List.of(
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 0L, 1, "foo"),
+						new ConsumerRecord<>("foo", 0, 1L, 1, "bar")))),
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 2L, 1, "baz")))),
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 3L, 1, "qux")))))
+				.iterator();
+		AtomicBoolean paused = new AtomicBoolean();
+		willAnswer(i -> {
+			paused.set(true);
+			return null;
+		}).given(consumer).pause(any());
+		willAnswer(i -> {
+			paused.set(false);
+			return null;
+		}).given(consumer).resume(any());
+		CountDownLatch prefetchLatch = new CountDownLatch(2);
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(10);
+			if (paused.get() || !batches.hasNext()) {
+				return ConsumerRecords.empty();
+			}
+			prefetchLatch.countDown();
+			return batches.next();
+		});
+		ContainerProperties containerProps = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		containerProps.setGroupId("grp");
+		containerProps.setPipelineDepth(2);
+		containerProps.setMissingTopicsFatal(false);
+		containerProps.setClientId("clientId");
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		List<String> threads = Collections.synchronizedList(new ArrayList<>());
+		containerProps.setMessageListener((BatchMessageListener<Integer, String>) data -> {
+			threads.add(Thread.currentThread().getName());
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			data.forEach(rec -> received.add(rec.value()));
+		});
+		CountDownLatch commitLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			if (i.getArgument(0, Map.class).equals(Map.of(tp, new OffsetAndMetadata(4L)))) {
+				commitLatch.countDown();
+			}
+			return null;
+		}).given(consumer).commitSync(anyMap(), any());
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.setBeanName("pipelined");
+		container.start();
+		assertThat(prefetchLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		await().atMost(Duration.ofSeconds(10)).until(paused::get);
+		assertThat(received).isEmpty();
+		release.countDown();
+		assertThat(commitLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(received).containsExactly("foo", "bar", "baz", "qux");
+		assertThat(threads).allMatch(name -> name.startsWith("pipelined-pipeline-"));
+		container.stop();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testPipelinedBatchesDiscardedBeforeSeek() throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer<Integer, String> consumer = mock(Consumer.class);
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		Iterator<ConsumerRecords<Integer, String>> batches = List.of(
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 0L, 1, "foo"),
+						new ConsumerRecord<>("foo", 0, 1L, 1, "bar")))),
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 2L, 1, "baz")))),
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 3L, 1, "qux")))))
+				.iterator();
+		AtomicBoolean paused = new AtomicBoolean();
+		willAnswer(i -> {
+			paused.set(true);
+			return null;
+		}).given(consumer).pause(any());
+		willAnswer(i -> {
+			paused.set(false);
+			return null;
+		}).given(consumer).resume(any());
+		given(consumer.assignment()).willReturn(Set.of(tp));
+		CountDownLatch prefetchLatch = new CountDownLatch(3);
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(10);
+			if (paused.get() || !batches.hasNext()) {
+				return ConsumerRecords.empty();
+			}
+			prefetchLatch.countDown();
+			return batches.next();
+		});
+		CountDownLatch seekLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			seekLatch.countDown();
+			return null;
+		}).given(consumer).seek(tp, 10L);
+		ContainerProperties containerProps = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		containerProps.setGroupId("grp");
+		containerProps.setPipelineDepth(3);
+		containerProps.setMissingTopicsFatal(false);
+		containerProps.setClientId("clientId");
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		AtomicReference<ConsumerSeekAware.ConsumerSeekCallback> seekCallback = new AtomicReference<>();
+		class Listener implements BatchMessageListener<Integer, String>, ConsumerSeekAware {
+
+			@Override
+			public void onMessage(List<ConsumerRecord<Integer, String>> data) {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				data.forEach(rec -> received.add(rec.value()));
+			}
+
+			@Override
+			public void registerSeekCallback(ConsumerSeekCallback callback) {
+				seekCallback.set(callback);
+			}
+
+		}
+		containerProps.setMessageListener(new Listener());
+		CountDownLatch commitLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			if (i.getArgument(0, Map.class).equals(Map.of(tp, new OffsetAndMetadata(2L)))) {
+				commitLatch.countDown();
+			}
+			return null;
+		}).given(consumer).commitSync(anyMap(), any());
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.start();
+		assertThat(prefetchLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		await().atMost(Duration.ofSeconds(10)).until(paused::get);
+		seekCallback.get().seek("foo", 0, 10L);
+		assertThat(seekLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		release.countDown();
+		assertThat(commitLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		container.stop();
+		assertThat(received).containsExactly("foo", "bar");
+		InOrder inOrder = inOrder(consumer);
+		inOrder.verify(consumer).seek(tp, 2L);
+		inOrder.verify(consumer).seek(tp, 10L);
+	}
+
+	@ParameterizedTest(name = "{index} seeksAfterHandling:{0}")
+	@ValueSource(booleans = { true, false })
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	void testDeferredDeserializationErrorHandlingGetsDeserializedRecords(boolean seeks) throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer consumer = mock(Consumer.class);
+		given(cf.getConfigurationProperties()).willReturn(Map.of(
+				ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, IntegerDeserializer.class,
+				ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class));
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		ConsumerRecords raw = new ConsumerRecords<>(Map.of(tp, List.of(
+				new ConsumerRecord<>("foo", 0, 0L, new byte[] { 0, 0, 0, 1 }, "foo".getBytes()),
+				new ConsumerRecord<>("foo", 0, 1L, new byte[] { 0, 0, 0, 2 }, "bar".getBytes()),
+				new ConsumerRecord<>("foo", 0, 2L, new byte[] { 0, 0, 0, 3 }, "baz".getBytes()))));
+		AtomicBoolean polled = new AtomicBoolean();
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(10);
+			return polled.getAndSet(true) ? ConsumerRecords.empty() : raw;
+		});
+		ContainerProperties containerProps = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		containerProps.setGroupId("grp");
+		containerProps.setClientId("clientId");
+		containerProps.setMissingTopicsFatal(false);
+		containerProps.setDeferredDeserialization(true);
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		AtomicBoolean failed = new AtomicBoolean();
+		CountDownLatch latch = new CountDownLatch(seeks ? 2 : 4);
+		containerProps.setMessageListener((MessageListener<Integer, String>) rec -> {
+			Integer key = rec.key();
+			String value = rec.value();
+			received.add(key + ":" + value);
+			latch.countDown();
+			if (value.equals("bar") && !failed.getAndSet(true)) {
+				throw new IllegalStateException("test");
+			}
+		});
+		List<ConsumerRecord<?, ?>> handled = Collections.synchronizedList(new ArrayList<>());
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.setCommonErrorHandler(new CommonErrorHandler() {
+
+			@Override
+			public boolean seeksAfterHandling() {
+				return seeks;
+			}
+
+			@Override
+			public boolean handleOne(Exception thrownException, ConsumerRecord<?, ?> record,
+					Consumer<?, ?> consumer, MessageListenerContainer container) {
+
+				handled.add(record);
+				return false;
+			}
+
+			@Override
+			public void handleRemaining(Exception thrownException, List<ConsumerRecord<?, ?>> records,
+					Consumer<?, ?> consumer, MessageListenerContainer container) {
+
+				handled.addAll(records);
+			}
+
+		});
+		container.start();
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		container.stop();
+		if (seeks) {
+			assertThat(handled).extracting(ConsumerRecord::value).containsExactly("bar", "baz");
+		}
+		else {
+			assertThat(handled).extracting(ConsumerRecord::value).containsExactly("bar");
+			// the remaining records are redelivered without being deserialized again
+			assertThat(received).containsExactly("1:foo", "2:bar", "2:bar", "3:baz");
+		}
+	}
+
 	@ParameterizedTest(name = "{index} AckMode.{0}")
 	@EnumSource(value = AckMode.class, names = { "MANUAL", "MANUAL_IMMEDIATE" })
 	@SuppressWarnings("unchecked")
@@ -735,6 +1079,260 @@ public class KafkaMessageListenerContainerTests {
 		assertThat(illegal.get()).isNotNull();
 	}
 
+	@Test
+	@EnabledForJreRange(min = JRE.JAVA_21)
+	@SuppressWarnings("unchecked")
+	void testVirtualThreadsMock() throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer<Integer, String> consumer = mock(Consumer.class);
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		ConsumerRecords<Integer, String> consumerRecords = new ConsumerRecords<>(Map.of(tp, List.of(
+				new ConsumerRecord<>("foo", 0, 0L, 1, "foo"),
+				new ConsumerRecord<>("foo", 0, 1L, 2, "bar"),
+				new ConsumerRecord<>("foo", 0, 2L, 3, "baz"),
+				new ConsumerRecord<>("foo", 0, 3L, 4, "qux"))));
+		AtomicBoolean polled = new AtomicBoolean();
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(50);
+			return polled.getAndSet(true) ? ConsumerRecords.empty() : consumerRecords;
+		});
+		ContainerProperties containerProps = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		containerProps.setGroupId("grp");
+		containerProps.setClientId("clientId");
+		containerProps.setMissingTopicsFatal(false);
+		containerProps.setVirtualThreads(true);
+		Method isVirtual = ReflectionUtils.findMethod(Thread.class, "isVirtual");
+		List<String> threads = Collections.synchronizedList(new ArrayList<>());
+		List<Object> virtual = Collections.synchronizedList(new ArrayList<>());
+		containerProps.setMessageListener((MessageListener<Integer, String>) data -> {
+			threads.add(Thread.currentThread().getName());
+			virtual.add(ReflectionUtils.invokeMethod(isVirtual, Thread.currentThread()));
+		});
+		CountDownLatch commitLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			if (i.getArgument(0, Map.class).equals(Map.of(tp, new OffsetAndMetadata(4L)))) {
+				commitLatch.countDown();
+			}
+			return null;
+		}).given(consumer).commitSync(anyMap(), any());
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.setBeanName("vt");
+		container.start();
+		assertThat(commitLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(threads).hasSize(4).allMatch(name -> name.startsWith("vt-P-"));
+		assertThat(virtual).containsOnly(true);
+		container.stop();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testConcurrentOutOfOrderAcksMock() throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer<Integer, String> consumer = mock(Consumer.class);
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		List<ConsumerRecord<Integer, String>> recordList = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			recordList.add(new ConsumerRecord<>("foo", 0, i, 1, "foo" + i));
+		}
+		ConsumerRecords<Integer, String> consumerRecords = new ConsumerRecords<>(Map.of(tp, recordList));
+		AtomicBoolean paused = new AtomicBoolean();
+		CountDownLatch pauseLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			paused.set(true);
+			pauseLatch.countDown();
+			return null;
+		}).given(consumer).pause(any());
+		willAnswer(i -> {
+			paused.set(false);
+			return null;
+		}).given(consumer).resume(any());
+		given(consumer.paused()).willAnswer(i -> paused.get() ? Set.of(tp) : Collections.emptySet());
+		AtomicBoolean polled = new AtomicBoolean();
+		AtomicBoolean polledWhilePaused = new AtomicBoolean();
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(10);
+			if (paused.get()) {
+				polledWhilePaused.set(true);
+			}
+			return polled.getAndSet(true) ? ConsumerRecords.empty() : consumerRecords;
+		});
+		ContainerProperties containerProps = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		containerProps.setGroupId("grp");
+		containerProps.setClientId("clientId");
+		containerProps.setMissingTopicsFatal(false);
+		containerProps.setAckMode(AckMode.MANUAL);
+		containerProps.setAsyncAcks(true);
+		List<Acknowledgment> acks = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch received = new CountDownLatch(100);
+		containerProps.setMessageListener((AcknowledgingMessageListener<Integer, String>) (data, ack) -> {
+			acks.add(ack);
+			received.countDown();
+		});
+		List<Long> committed = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch commitLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			Map<TopicPartition, OffsetAndMetadata> offsets = i.getArgument(0);
+			long offset = offsets.get(tp).offset();
+			committed.add(offset);
+			if (offset == 100L) {
+				commitLatch.countDown();
+			}
+			return null;
+		}).given(consumer).commitSync(anyMap(), any());
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.start();
+		assertThat(received.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(pauseLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		List<Acknowledgment> shuffled = new ArrayList<>(acks);
+		Collections.shuffle(shuffled);
+		ExecutorService exec = Executors.newFixedThreadPool(4);
+		CountDownLatch go = new CountDownLatch(1);
+		List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+		for (int t = 0; t < 4; t++) {
+			List<Acknowledgment> slice = shuffled.subList(t * 25, (t + 1) * 25);
+			exec.execute(() -> {
+				try {
+					go.await();
+					slice.forEach(Acknowledgment::acknowledge);
+				}
+				catch (Throwable ex) {
+					failures.add(ex);
+				}
+			});
+		}
+		go.countDown();
+		assertThat(commitLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		await().atMost(Duration.ofSeconds(10)).until(() -> !paused.get());
+		exec.shutdown();
+		assertThat(exec.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(failures).isEmpty();
+		assertThat(polledWhilePaused.get()).isTrue();
+		assertThat(committed).isSorted().doesNotHaveDuplicates().last().isEqualTo(100L);
+		container.stop();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testOutOfOrderAcksOverflowAckQueueMock() throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer<Integer, String> consumer = mock(Consumer.class);
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		int count = 20_000;
+		List<ConsumerRecord<Integer, String>> recordList = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			recordList.add(new ConsumerRecord<>("foo", 0, i, 1, "foo"));
+		}
+		ConsumerRecords<Integer, String> consumerRecords = new ConsumerRecords<>(Map.of(tp, recordList));
+		AtomicBoolean paused = new AtomicBoolean();
+		CountDownLatch pauseLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			paused.set(true);
+			pauseLatch.countDown();
+			return null;
+		}).given(consumer).pause(any());
+		willAnswer(i -> {
+			paused.set(false);
+			return null;
+		}).given(consumer).resume(any());
+		given(consumer.paused()).willAnswer(i -> paused.get() ? Set.of(tp) : Collections.emptySet());
+		AtomicBoolean polled = new AtomicBoolean();
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(50); // long enough for the acks to fill the queue
+			return polled.getAndSet(true) ? ConsumerRecords.empty() : consumerRecords;
+		});
+		ContainerProperties containerProps = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		containerProps.setGroupId("grp");
+		containerProps.setClientId("clientId");
+		containerProps.setMissingTopicsFatal(false);
+		containerProps.setAckMode(AckMode.MANUAL);
+		containerProps.setAsyncAcks(true);
+		List<Acknowledgment> acks = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch received = new CountDownLatch(count);
+		containerProps.setMessageListener((AcknowledgingMessageListener<Integer, String>) (data, ack) -> {
+			acks.add(ack);
+			received.countDown();
+		});
+		List<Long> committed = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch commitLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			Map<TopicPartition, OffsetAndMetadata> offsets = i.getArgument(0);
+			long offset = offsets.get(tp).offset();
+			committed.add(offset);
+			if (offset == count) {
+				commitLatch.countDown();
+			}
+			return null;
+		}).given(consumer).commitSync(anyMap(), any());
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.start();
+		assertThat(received.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(pauseLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		ExecutorService exec = Executors.newSingleThreadExecutor();
+		exec.execute(() -> {
+			acks.subList(18_500, count).forEach(Acknowledgment::acknowledge); // held back by the gap
+			acks.subList(0, 18_000).forEach(Acknowledgment::acknowledge); // more releases than the queue holds
+			acks.subList(18_000, 18_500).forEach(Acknowledgment::acknowledge);
+		});
+		assertThat(commitLatch.await(30, TimeUnit.SECONDS)).isTrue();
+		await().atMost(Duration.ofSeconds(10)).until(() -> !paused.get());
+		exec.shutdown();
+		assertThat(exec.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(committed).isSorted().doesNotHaveDuplicates().last().isEqualTo((long) count);
+		container.stop();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testParallelRetryBacksOffWhenErrorHandlerThrows() throws Exception {
+		ConsumerFactory<Integer, String> cf = mock(ConsumerFactory.class);
+		Consumer<Integer, String> consumer = mock(Consumer.class);
+		given(cf.createConsumer(eq("grp"), eq("clientId"), isNull(), any())).willReturn(consumer);
+		TopicPartition tp = new TopicPartition("foo", 0);
+		ConsumerRecords<Integer, String> consumerRecords =
+				new ConsumerRecords<>(Map.of(tp, List.of(new ConsumerRecord<>("foo", 0, 0L, 1, "foo"))));
+		AtomicBoolean polled = new AtomicBoolean();
+		given(consumer.poll(any(Duration.class))).willAnswer(i -> {
+			Thread.sleep(50);
+			return polled.getAndSet(true) ? ConsumerRecords.empty() : consumerRecords;
+		});
+		ContainerProperties containerProps = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		containerProps.setGroupId("grp");
+		containerProps.setClientId("clientId");
+		containerProps.setMissingTopicsFatal(false);
+		containerProps.setParallelism(2);
+		AtomicInteger invocations = new AtomicInteger();
+		CountDownLatch invoked = new CountDownLatch(1);
+		containerProps.setMessageListener((MessageListener<Integer, String>) data -> {
+			invocations.incrementAndGet();
+			invoked.countDown();
+			throw new IllegalStateException("listener");
+		});
+		KafkaMessageListenerContainer<Integer, String> container =
+				new KafkaMessageListenerContainer<>(cf, containerProps);
+		container.setCommonErrorHandler(new CommonErrorHandler() {
+
+			@Override
+			public boolean handleOne(Exception thrownException, ConsumerRecord<?, ?> record,
+					Consumer<?, ?> consumer, MessageListenerContainer container) {
+
+				throw new IllegalStateException("error handler");
+			}
+
+		});
+		container.start();
+		assertThat(invoked.await(10, TimeUnit.SECONDS)).isTrue();
+		Thread.sleep(1000);
+		assertThat(invocations.get()).isBetween(2, 20);
+		container.stop();
+		assertThat(container.isRunning()).isFalse();
+	}
+
 	private static Stream<Arguments> testInOrderAckPauseUntilAckedParamters() {
 		return Stream.of(
 				Arguments.of(AckMode.MANUAL, false),
@@ -1620,6 +2218,7 @@ public class KafkaMessageListenerContainerTests {
 		containerProps.setAckMode(AckMode.RECORD);
 		containerProps.setIdleEventInterval(60000L);
 		containerProps.setIdleBeforeDataMultiplier(1.0);
+		containerProps.setAckQueueCapacity(100);
 
 		KafkaMessageListenerContainer<Integer, String> container = new KafkaMessageListenerContainer<>(cf,
 				containerProps);
@@ -1627,6 +2226,8 @@ public class KafkaMessageListenerContainerTests {
 		container.start();
 		assertThat(KafkaTestUtils.getPropertyValue(container, "listenerConsumer.autoCommit", Boolean.class))
 				.isEqualTo(autoCommit);
+		assertThat(KafkaTestUtils.getPropertyValue(container, "listenerConsumer.acks.buffer", Object[].class))
+				.hasSize(128);
 		Consumer<?, ?> consumer = spyOnConsumer(container);
 		ContainerTestUtils.waitForAssignment(container, embeddedKafka.getPartitionsPerTopic());
 		Map<String, Object> senderProps = KafkaTestUtils.producerProps(embeddedKafka);
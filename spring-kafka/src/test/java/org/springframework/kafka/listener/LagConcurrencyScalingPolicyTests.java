@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.kafka.listener.ConcurrencyScalingPolicy.ScalingMetrics;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class LagConcurrencyScalingPolicyTests {
+
+	@Test
+	void scaleOnLag() {
+		LagConcurrencyScalingPolicy policy = new LagConcurrencyScalingPolicy();
+		assertThat(policy.determineConcurrency(new ScalingMetrics(2, 10, 5000, 0.5, 100))).isEqualTo(3);
+		assertThat(policy.determineConcurrency(new ScalingMetrics(2, 10, 1000, 0.5, 100))).isEqualTo(2);
+		assertThat(policy.determineConcurrency(new ScalingMetrics(2, 10, 10, 0.1, 100))).isEqualTo(1);
+	}
+
+	@Test
+	void scaleOnBusyRatio() {
+		LagConcurrencyScalingPolicy policy = new LagConcurrencyScalingPolicy();
+		assertThat(policy.determineConcurrency(new ScalingMetrics(2, 10, 0, 0.9, 100))).isEqualTo(3);
+		assertThat(policy.determineConcurrency(new ScalingMetrics(2, 10, 0, 0.5, 100))).isEqualTo(2);
+		policy.setScaleUpBusyRatio(0.4);
+		assertThat(policy.determineConcurrency(new ScalingMetrics(2, 10, 0, 0.5, 100))).isEqualTo(3);
+	}
+
+	@Test
+	void scaleOnTimeBetweenPolls() {
+		LagConcurrencyScalingPolicy policy = new LagConcurrencyScalingPolicy();
+		assertThat(policy.determineConcurrency(new ScalingMetrics(2, 10, 500, 0.5, 60_000))).isEqualTo(2);
+		policy.setMaxTimeBetweenPolls(Duration.ofSeconds(30));
+		assertThat(policy.determineConcurrency(new ScalingMetrics(2, 10, 500, 0.5, 60_000))).isEqualTo(3);
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.kafka.listener.ListenerPhaseMonitor.Phase;
+import org.springframework.kafka.support.micrometer.MicrometerHolder;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class ListenerPhaseMonitorTests {
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void phasesRecorded() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		ApplicationContext ctx = mock(ApplicationContext.class);
+		ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+		given(ctx.getBeanProvider(MeterRegistry.class)).willReturn(provider);
+		given(provider.getIfUnique()).willReturn(registry);
+		MicrometerHolder holder = new MicrometerHolder(ctx, "container", "spring.kafka.listener", "desc",
+				rec -> Collections.singletonMap("extra", "tag"));
+		ListenerPhaseMonitor monitor = new ListenerPhaseMonitor("id", holder, true);
+		monitor.end(Phase.POLL, monitor.start(), 42);
+		monitor.end(Phase.POLL, monitor.start(), 0);
+		monitor.end(Phase.COMMIT, monitor.start());
+		Timer poll = registry.get("spring.kafka.listener.phase")
+				.tags("name", "container", "phase", "poll", "extra", "tag")
+				.timer();
+		assertThat(poll.count()).isEqualTo(2);
+		assertThat(registry.get("spring.kafka.listener.phase").tag("phase", "commit").timer().count())
+				.isEqualTo(1);
+		assertThat(registry.get("spring.kafka.listener.phase").tag("phase", "invoke").timer().count())
+				.isEqualTo(0);
+		DistributionSummary records = registry.get("spring.kafka.listener.poll.records").summary();
+		assertThat(records.count()).isEqualTo(2);
+		assertThat(records.totalAmount()).isEqualTo(42.0);
+		holder.destroy();
+		assertThat(registry.find("spring.kafka.listener.phase").timers()).isEmpty();
+		assertThat(registry.find("spring.kafka.listener.poll.records").summaries()).isEmpty();
+	}
+
+}
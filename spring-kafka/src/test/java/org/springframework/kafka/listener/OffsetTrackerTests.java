@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class OffsetTrackerTests {
+
+	@Test
+	void inOrder() {
+		OffsetTracker tracker = new OffsetTracker(new long[] { 10L, 11L, 12L });
+		assertThat(tracker.complete(10L)).isEqualTo(10L);
+		assertThat(tracker.complete(11L)).isEqualTo(11L);
+		assertThat(tracker.isComplete()).isFalse();
+		assertThat(tracker.complete(12L)).isEqualTo(12L);
+		assertThat(tracker.isComplete()).isTrue();
+		assertThat(tracker.getFirstPending()).isNegative();
+	}
+
+	@Test
+	void outOfOrder() {
+		OffsetTracker tracker = new OffsetTracker(new long[] { 10L, 11L, 12L, 13L });
+		assertThat(tracker.complete(12L)).isNegative();
+		assertThat(tracker.complete(11L)).isNegative();
+		assertThat(tracker.getFirstPending()).isEqualTo(10L);
+		assertThat(tracker.getPendingCount()).isEqualTo(2);
+		assertThat(tracker.getCompletedAheadCount()).isEqualTo(2);
+		assertThat(tracker.complete(10L)).isEqualTo(12L);
+		assertThat(tracker.getFirstPending()).isEqualTo(13L);
+		assertThat(tracker.getPendingCount()).isEqualTo(1);
+		assertThat(tracker.getCompletedAheadCount()).isEqualTo(0);
+		assertThat(tracker.complete(13L)).isEqualTo(13L);
+		assertThat(tracker.isComplete()).isTrue();
+	}
+
+	@Test
+	void duplicatesIgnored() {
+		OffsetTracker tracker = new OffsetTracker(new long[] { 0L, 1L, 2L });
+		assertThat(tracker.complete(1L)).isNegative();
+		assertThat(tracker.complete(1L)).isNegative();
+		assertThat(tracker.getCompletedAheadCount()).isEqualTo(1);
+		assertThat(tracker.complete(0L)).isEqualTo(1L);
+		assertThat(tracker.complete(0L)).isNegative();
+	}
+
+	@Test
+	void gapsInOffsets() {
+		OffsetTracker tracker = OffsetTracker.forRecords(List.of(
+				new ConsumerRecord<>("foo", 0, 5L, null, "a"),
+				new ConsumerRecord<>("foo", 0, 7L, null, "b"),
+				new ConsumerRecord<>("foo", 0, 20L, null, "c")));
+		assertThat(tracker.complete(20L)).isNegative();
+		assertThat(tracker.complete(7L)).isNegative();
+		assertThat(tracker.complete(5L)).isEqualTo(20L);
+		assertThat(tracker.isComplete()).isTrue();
+		OffsetTracker tracker2 = new OffsetTracker(new long[] { 5L, 7L });
+		assertThatIllegalStateException().isThrownBy(() -> tracker2.complete(6L));
+		assertThatIllegalStateException().isThrownBy(() -> tracker2.complete(8L));
+	}
+
+	@Test
+	void leaderEpochs() {
+		OffsetTracker tracker = OffsetTracker.forRecords(List.of(
+				record(5L, Optional.of(3)),
+				record(6L, Optional.empty()),
+				record(7L, Optional.of(4))));
+		assertThat(tracker.getLeaderEpoch(5L)).hasValue(3);
+		assertThat(tracker.getLeaderEpoch(6L)).isEmpty();
+		assertThat(tracker.getLeaderEpoch(7L)).hasValue(4);
+		assertThat(tracker.getLeaderEpoch(8L)).isEmpty();
+		assertThat(tracker.complete(7L)).isNegative();
+		assertThat(tracker.complete(6L)).isNegative();
+		assertThat(tracker.complete(5L)).isEqualTo(7L);
+		assertThat(tracker.getLeaderEpoch(7L)).hasValue(4);
+		OffsetTracker noEpochs = OffsetTracker.forRecords(List.of(record(5L, Optional.empty())));
+		assertThat(noEpochs.getLeaderEpoch(5L)).isEmpty();
+	}
+
+	private static ConsumerRecord<Object, String> record(long offset, Optional<Integer> leaderEpoch) {
+		return new ConsumerRecord<>("foo", 0, offset, 0L, TimestampType.CREATE_TIME, 0, 0, null, "a",
+				new RecordHeaders(), leaderEpoch);
+	}
+
+	@Test
+	void manyOffsetsSpanWords() {
+		long[] offsets = new long[200];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = 1000L + i;
+		}
+		OffsetTracker tracker = new OffsetTracker(offsets);
+		for (int i = offsets.length - 1; i > 0; i--) {
+			assertThat(tracker.complete(offsets[i])).isNegative();
+		}
+		assertThat(tracker.getCompletedAheadCount()).isEqualTo(199);
+		assertThat(tracker.complete(1000L)).isEqualTo(1199L);
+		assertThat(tracker.isComplete()).isTrue();
+		assertThatIllegalStateException().isThrownBy(() -> tracker.complete(999L));
+	}
+
+}
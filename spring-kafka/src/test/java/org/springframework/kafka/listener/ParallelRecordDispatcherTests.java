@@ -0,0 +1,176 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.listener.ContainerProperties.ParallelOrdering;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class ParallelRecordDispatcherTests {
+
+	private ExecutorService exec;
+
+	@BeforeEach
+	void setUp() {
+		this.exec = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.exec.shutdownNow();
+	}
+
+	@Test
+	void sameKeySameLane() {
+		ParallelRecordDispatcher dispatcher = new ParallelRecordDispatcher(this.exec, 4, ParallelOrdering.KEY,
+				mock(LogAccessor.class));
+		int lane = dispatcher.laneFor(new ConsumerRecord<>("foo", 0, 0L, "key", "bar"));
+		assertThat(dispatcher.laneFor(new ConsumerRecord<>("foo", 1, 1L, "key", "baz"))).isEqualTo(lane);
+		assertThat(dispatcher.laneFor(new ConsumerRecord<>("qux", 2, 2L, "key", "baz"))).isEqualTo(lane);
+		assertThat(dispatcher.laneFor(new ConsumerRecord<>("foo", 0, 0L, null, "bar")))
+				.isEqualTo(dispatcher.laneFor(new ConsumerRecord<>("foo", 0, 1L, null, "baz")));
+	}
+
+	@Test
+	void samePartitionSameLane() {
+		ParallelRecordDispatcher dispatcher = new ParallelRecordDispatcher(this.exec, 4, ParallelOrdering.PARTITION,
+				mock(LogAccessor.class));
+		int lane = dispatcher.laneFor(new ConsumerRecord<>("foo", 0, 0L, "key1", "bar"));
+		for (int i = 1; i < 20; i++) {
+			assertThat(dispatcher.laneFor(new ConsumerRecord<>("foo", 0, i, "key" + i, "bar"))).isEqualTo(lane);
+		}
+		assertThat(dispatcher.getLaneCount()).isEqualTo(4);
+	}
+
+	@Test
+	void orderedWithinLaneConcurrentAcrossLanes() throws InterruptedException {
+		ParallelRecordDispatcher dispatcher = new ParallelRecordDispatcher(this.exec, 4, ParallelOrdering.KEY,
+				mock(LogAccessor.class));
+		Map<String, List<Long>> processed = new ConcurrentHashMap<>();
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger maxConcurrent = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(100);
+		for (int i = 0; i < 100; i++) {
+			ConsumerRecord<String, String> rec = new ConsumerRecord<>("foo", 0, i, "key" + (i % 10), "bar");
+			dispatcher.dispatch(rec, () -> {
+				maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(1);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				processed.computeIfAbsent(rec.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+						.add(rec.offset());
+				concurrent.decrementAndGet();
+				latch.countDown();
+			});
+		}
+		assertThat(dispatcher.awaitCompletion(Duration.ofSeconds(10))).isTrue();
+		assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(processed).hasSize(10);
+		processed.values().forEach(offsets -> assertThat(offsets).isSorted().hasSize(10));
+		assertThat(maxConcurrent.get()).isBetween(1, 4);
+	}
+
+	@Test
+	void exceptionDoesNotBreakLane() {
+		ParallelRecordDispatcher dispatcher = new ParallelRecordDispatcher(this.exec, 1, ParallelOrdering.KEY,
+				mock(LogAccessor.class));
+		AtomicInteger count = new AtomicInteger();
+		dispatcher.dispatch(new ConsumerRecord<>("foo", 0, 0L, "key", "bar"), () -> {
+			throw new IllegalStateException("test");
+		});
+		dispatcher.dispatch(new ConsumerRecord<>("foo", 0, 1L, "key", "bar"), count::incrementAndGet);
+		assertThat(dispatcher.awaitCompletion(Duration.ofSeconds(10))).isTrue();
+		assertThat(count.get()).isEqualTo(1);
+	}
+
+	@Test
+	void awaitTimesOut() throws InterruptedException {
+		ParallelRecordDispatcher dispatcher = new ParallelRecordDispatcher(this.exec, 2, ParallelOrdering.KEY,
+				mock(LogAccessor.class));
+		CountDownLatch latch = new CountDownLatch(1);
+		dispatcher.dispatch(new ConsumerRecord<>("foo", 0, 0L, "key", "bar"), () -> {
+			try {
+				latch.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(dispatcher.awaitCompletion(Duration.ofMillis(50))).isFalse();
+		latch.countDown();
+		assertThat(dispatcher.awaitCompletion(Duration.ofSeconds(10))).isTrue();
+	}
+
+	@Test
+	void revokeSkipsQueuedTasks() throws Exception {
+		ParallelRecordDispatcher dispatcher = new ParallelRecordDispatcher(this.exec, 1, ParallelOrdering.PARTITION,
+				mock(LogAccessor.class));
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+		dispatcher.dispatch(new ConsumerRecord<>("foo", 0, 0L, "key", "bar"), () -> {
+			running.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			processed.add(0L);
+		});
+		dispatcher.dispatch(new ConsumerRecord<>("foo", 0, 1L, "key", "bar"), () -> processed.add(1L));
+		dispatcher.dispatch(new ConsumerRecord<>("foo", 1, 2L, "key", "bar"), () -> processed.add(2L));
+		assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Void> drained = dispatcher.revoke(List.of(new TopicPartition("foo", 0)));
+		assertThat(drained).isNotDone();
+		release.countDown();
+		drained.get(10, TimeUnit.SECONDS);
+		assertThat(dispatcher.awaitCompletion(Duration.ofSeconds(10))).isTrue();
+		assertThat(processed).containsExactly(0L, 2L);
+		assertThat(dispatcher.revoke(List.of(new TopicPartition("bar", 0)))).isDone();
+	}
+
+}
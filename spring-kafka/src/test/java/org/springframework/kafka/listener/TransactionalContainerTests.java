@@ -37,6 +37,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -106,6 +107,7 @@ import org.springframework.util.backoff.FixedBackOff;
 /**
  * @author Gary Russell
  * @author Artem Bilan
+ * @author agent
  *
  * @since 1.3
  *
@@ -362,6 +364,154 @@ public class TransactionalContainerTests {
 		assertThat(delivery.get()).isNotNull();
 	}
 
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void testTransactionBatchSize() throws Exception {
+		Consumer consumer = mock(Consumer.class);
+		final TopicPartition topicPartition0 = new TopicPartition("foo", 0);
+		ConsumerRecords records = new ConsumerRecords(Collections.singletonMap(topicPartition0, List.of(
+				new ConsumerRecord<>("foo", 0, 0, "key", "value"),
+				new ConsumerRecord<>("foo", 0, 1, "key", "value"),
+				new ConsumerRecord<>("foo", 0, 2, "key", "value"),
+				new ConsumerRecord<>("foo", 0, 3, "key", "fail"))));
+		ConsumerRecords empty = new ConsumerRecords(Collections.emptyMap());
+		final AtomicBoolean done = new AtomicBoolean();
+		willAnswer(i -> {
+			if (done.compareAndSet(false, true)) {
+				return records;
+			}
+			else {
+				Thread.sleep(500);
+				return empty;
+			}
+		}).given(consumer).poll(any(Duration.class));
+		final CountDownLatch seekLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			seekLatch.countDown();
+			return null;
+		}).given(consumer).seek(any(), anyLong());
+		ConsumerGroupMetadata consumerGroupMetadata = new ConsumerGroupMetadata("group");
+		given(consumer.groupMetadata()).willReturn(consumerGroupMetadata);
+		ConsumerFactory cf = mock(ConsumerFactory.class);
+		willReturn(consumer).given(cf).createConsumer("group", "", null, KafkaTestUtils.defaultPropertyOverrides());
+		Producer producer = mock(Producer.class);
+		final CountDownLatch closeLatch = new CountDownLatch(2);
+		willAnswer(i -> {
+			closeLatch.countDown();
+			return null;
+		}).given(producer).close(any());
+		ProducerFactory pf = mock(ProducerFactory.class);
+		given(pf.transactionCapable()).willReturn(true);
+		given(pf.createProducer(isNull())).willReturn(producer);
+		KafkaTransactionManager tm = new KafkaTransactionManager(pf);
+		ContainerProperties props = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		props.setGroupId("group");
+		props.setTransactionManager(tm);
+		props.setTransactionBatchSize(3);
+		AtomicInteger invocations = new AtomicInteger();
+		props.setMessageListener((MessageListener<String, String>) m -> {
+			invocations.incrementAndGet();
+			if ("fail".equals(m.value())) {
+				throw new RuntimeException("fail");
+			}
+		});
+		KafkaMessageListenerContainer container = new KafkaMessageListenerContainer<>(cf, props);
+		container.setBeanName("txBatch");
+		container.start();
+		assertThat(closeLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(seekLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		InOrder inOrder = inOrder(producer);
+		inOrder.verify(producer).beginTransaction();
+		inOrder.verify(producer).sendOffsetsToTransaction(Collections.singletonMap(topicPartition0,
+				new OffsetAndMetadata(3)), consumerGroupMetadata);
+		inOrder.verify(producer).commitTransaction();
+		inOrder.verify(producer).close(any());
+		inOrder.verify(producer).beginTransaction();
+		inOrder.verify(producer).abortTransaction();
+		inOrder.verify(producer).close(any());
+		// retried in its own transaction
+		inOrder.verify(producer).beginTransaction();
+		inOrder.verify(producer).abortTransaction();
+		inOrder.verify(producer).close(any());
+		verify(producer).sendOffsetsToTransaction(anyMap(), any(ConsumerGroupMetadata.class));
+		verify(consumer).seek(topicPartition0, 3);
+		assertThat(invocations.get()).isEqualTo(5);
+		container.stop();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	void testTransactionBatchSizeLaterRecordInGroupFails() throws Exception {
+		Consumer consumer = mock(Consumer.class);
+		final TopicPartition topicPartition0 = new TopicPartition("foo", 0);
+		ConsumerRecords records = new ConsumerRecords(Collections.singletonMap(topicPartition0, List.of(
+				new ConsumerRecord<>("foo", 0, 0, "key", "value"),
+				new ConsumerRecord<>("foo", 0, 1, "key", "fail"),
+				new ConsumerRecord<>("foo", 0, 2, "key", "value"),
+				new ConsumerRecord<>("foo", 0, 3, "key", "value"))));
+		ConsumerRecords empty = new ConsumerRecords(Collections.emptyMap());
+		final AtomicBoolean done = new AtomicBoolean();
+		willAnswer(i -> {
+			if (done.compareAndSet(false, true)) {
+				return records;
+			}
+			else {
+				Thread.sleep(500);
+				return empty;
+			}
+		}).given(consumer).poll(any(Duration.class));
+		final CountDownLatch seekLatch = new CountDownLatch(1);
+		willAnswer(i -> {
+			seekLatch.countDown();
+			return null;
+		}).given(consumer).seek(any(), anyLong());
+		ConsumerGroupMetadata consumerGroupMetadata = new ConsumerGroupMetadata("group");
+		given(consumer.groupMetadata()).willReturn(consumerGroupMetadata);
+		ConsumerFactory cf = mock(ConsumerFactory.class);
+		willReturn(consumer).given(cf).createConsumer("group", "", null, KafkaTestUtils.defaultPropertyOverrides());
+		Producer producer = mock(Producer.class);
+		ProducerFactory pf = mock(ProducerFactory.class);
+		given(pf.transactionCapable()).willReturn(true);
+		given(pf.createProducer(isNull())).willReturn(producer);
+		KafkaTransactionManager tm = new KafkaTransactionManager(pf);
+		ContainerProperties props = new ContainerProperties(new TopicPartitionOffset("foo", 0));
+		props.setGroupId("group");
+		props.setTransactionManager(tm);
+		props.setTransactionBatchSize(3);
+		List<Long> invocations = Collections.synchronizedList(new ArrayList<>());
+		props.setMessageListener((MessageListener<String, String>) m -> {
+			invocations.add(m.offset());
+			if ("fail".equals(m.value())) {
+				throw new RuntimeException("fail");
+			}
+		});
+		List<ConsumerRecord<?, ?>> rolledBack = Collections.synchronizedList(new ArrayList<>());
+		KafkaMessageListenerContainer container = new KafkaMessageListenerContainer<>(cf, props);
+		container.setAfterRollbackProcessor(new DefaultAfterRollbackProcessor() {
+
+			@Override
+			public void process(List records, Consumer consumer, MessageListenerContainer container,
+					RuntimeException exception, boolean recoverable, EOSMode eosMode) {
+
+				rolledBack.addAll(records);
+				super.process(records, consumer, container, exception, recoverable, eosMode);
+			}
+
+		});
+		container.setBeanName("txBatchLater");
+		container.start();
+		assertThat(seekLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		container.stop();
+		// the group is rolled back and retried a record at a time; the failed record is first
+		assertThat(invocations).containsExactly(0L, 1L, 0L, 1L);
+		assertThat(rolledBack).extracting(ConsumerRecord::offset).containsExactly(1L, 2L, 3L);
+		verify(producer).sendOffsetsToTransaction(Collections.singletonMap(topicPartition0,
+				new OffsetAndMetadata(1)), consumerGroupMetadata);
+		verify(producer).sendOffsetsToTransaction(anyMap(), any(ConsumerGroupMetadata.class));
+		verify(consumer).seek(topicPartition0, 1);
+		verify(consumer, never()).seek(topicPartition0, 0);
+	}
+
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Test
 	public void testConsumeAndProduceTransactionRollbackBatch() throws Exception {
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.listener.adapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class CompiledHandlerInvokerTests {
+
+	private final DefaultMessageHandlerMethodFactory factory = new DefaultMessageHandlerMethodFactory();
+
+	{
+		this.factory.afterPropertiesSet();
+	}
+
+	@Test
+	void compiledWithDelegationForConversion() throws Exception {
+		Listener listener = new Listener();
+		HandlerAdapter adapter = adapter(listener, "listen");
+		assertThat(adapter.isCompiled()).isTrue();
+		ConsumerRecord<String, String> record = new ConsumerRecord<>("foo", 1, 42L, null, "bar");
+		Acknowledgment ack = mock(Acknowledgment.class);
+		Consumer<?, ?> consumer = mock(Consumer.class);
+		Message<String> message = MessageBuilder.withPayload("bar")
+				.setHeader(KafkaHeaders.RECEIVED_PARTITION, 1)
+				.build();
+		assertThat(adapter.invoke(message, record, ack, consumer)).isEqualTo("bar-1-42-true-null");
+		CompiledHandlerInvoker invoker = KafkaTestUtils.getPropertyValue(adapter, "compiledInvoker",
+				CompiledHandlerInvoker.class);
+		assertThat(invoker.getDelegatedCount()).isEqualTo(0);
+		message = MessageBuilder.withPayload("bar")
+				.setHeader(KafkaHeaders.RECEIVED_PARTITION, "2")
+				.setHeader("optional", "baz")
+				.build();
+		assertThat(adapter.invoke(message, record, ack, consumer)).isEqualTo("bar-2-42-true-baz");
+		assertThat(invoker.getDelegatedCount()).isEqualTo(1);
+		message = MessageBuilder.withPayload(12)
+				.setHeader(KafkaHeaders.RECEIVED_PARTITION, 1)
+				.build();
+		assertThat(adapter.invoke(message, record, ack, consumer)).isEqualTo("12-1-42-true-null");
+		assertThat(invoker.getDelegatedCount()).isEqualTo(2);
+	}
+
+	@Test
+	void exceptionsPropagate() {
+		HandlerAdapter adapter = adapter(new Listener(), "fail");
+		assertThat(adapter.isCompiled()).isTrue();
+		assertThatIOException()
+				.isThrownBy(() -> adapter.invoke(MessageBuilder.withPayload("bar").build()))
+				.withMessage("bar");
+	}
+
+	@Test
+	void unsupportedNotCompiled() throws Exception {
+		HandlerAdapter adapter = adapter(new Listener(), "withDefault");
+		assertThat(adapter.isCompiled()).isFalse();
+		assertThat(adapter.invoke(MessageBuilder.withPayload("bar").build())).isEqualTo("bar-qux");
+	}
+
+	private HandlerAdapter adapter(Object bean, String methodName) {
+		Method method = ReflectionUtils.findMethod(bean.getClass(), methodName, (Class<?>[]) null);
+		return new HandlerAdapter(this.factory.createInvocableHandlerMethod(bean, method), true);
+	}
+
+	public static class Listener {
+
+		public String listen(@Payload String in, @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+				ConsumerRecord<?, ?> record, Acknowledgment ack,
+				@Header(name = "optional", required = false) String optional) {
+
+			return in + "-" + partition + "-" + record.offset() + "-" + (ack != null) + "-" + optional;
+		}
+
+		public void fail(String in) throws IOException {
+			throw new IOException(in);
+		}
+
+		public String withDefault(String in, @Header(name = "foo", defaultValue = "qux") String foo) {
+			return in + "-" + foo;
+		}
+
+	}
+
+}
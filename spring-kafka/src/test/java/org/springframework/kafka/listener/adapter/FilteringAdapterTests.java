@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2019 the original author or authors.
+ * Copyright 2017-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.utils.Bytes;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
@@ -36,6 +37,7 @@ import org.springframework.kafka.support.Acknowledgment;
 
 /**
  * @author Gary Russell
+ * @author agent
  * @since 2.0
  *
  */
@@ -59,6 +61,34 @@ public class FilteringAdapterTests {
 		verify(ack, never()).acknowledge();
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	void jsonFieldFilter() {
+		BatchAcknowledgingMessageListener<String, Object> listener = mock(BatchAcknowledgingMessageListener.class);
+		JsonFieldRecordFilterStrategy<String, Object> filter = new JsonFieldRecordFilterStrategy<>(
+				fields -> !fields.containsKey("/type") || !"order".equals(fields.get("/type").asText())
+						|| fields.get("/customer/id").asInt() > 100,
+				"/type", "/customer/id");
+		filter.setRecordFilter(rec -> "skip".equals(rec.key()));
+		FilteringBatchMessageListenerAdapter<String, Object> adapter =
+				new FilteringBatchMessageListenerAdapter<>(listener, filter);
+		List<ConsumerRecord<String, Object>> consumerRecords = new ArrayList<>();
+		consumerRecords.add(new ConsumerRecord<>("foo", 0, 0L, "a",
+				"{\"lines\":[{\"type\":\"order\"}],\"type\":\"order\",\"customer\":{\"id\":42},\"more\":[]}"));
+		consumerRecords.add(new ConsumerRecord<>("foo", 0, 1L, "b",
+				"{\"type\":\"order\",\"customer\":{\"id\":142}}".getBytes()));
+		consumerRecords.add(new ConsumerRecord<>("foo", 0, 2L, "c",
+				new Bytes("{\"type\":\"quote\",\"customer\":{\"id\":1}}".getBytes())));
+		consumerRecords.add(new ConsumerRecord<>("foo", 0, 3L, "d", "not json"));
+		consumerRecords.add(new ConsumerRecord<>("foo", 0, 4L, "skip",
+				"{\"type\":\"order\",\"customer\":{\"id\":1}}"));
+		consumerRecords.add(new ConsumerRecord<>("foo", 0, 5L, "e", null));
+		Acknowledgment ack = mock(Acknowledgment.class);
+		adapter.onMessage(consumerRecords, ack, null);
+		verify(listener).onMessage(consumerRecords, ack);
+		assertThat(consumerRecords).extracting(ConsumerRecord::offset).containsExactly(0L, 3L);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testBatchFilterAckDiscard() throws Exception {
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.kafka.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent
+ * @since 3.1
+ *
+ */
+public class TopicRouterTests {
+
+	@Test
+	void firstMatchWins() {
+		Map<Pattern, String> routes = new LinkedHashMap<>();
+		routes.put(Pattern.compile("foo\\.bar"), "literal");
+		routes.put(Pattern.compile("foo.*"), "prefix");
+		routes.put(Pattern.compile("f[aeiou]+x"), "regex");
+		routes.put(Pattern.compile("fox"), "shadowed");
+		routes.put(Pattern.compile("BAZ", Pattern.CASE_INSENSITIVE), "insensitive");
+		routes.put(Pattern.compile("my-topic"), "dash");
+		routes.put(Pattern.compile(".*"), "default");
+		TopicRouter<String> router = new TopicRouter<>(routes);
+		assertThat(router.route("foo.bar")).isEqualTo("literal");
+		assertThat(router.route("fooXbar")).isEqualTo("prefix");
+		assertThat(router.route("foo")).isEqualTo("prefix");
+		assertThat(router.route("faeex")).isEqualTo("regex");
+		assertThat(router.route("fox")).isEqualTo("regex");
+		assertThat(router.route("baz")).isEqualTo("insensitive");
+		assertThat(router.route("my-topic")).isEqualTo("dash");
+		assertThat(router.route("other")).isEqualTo("default");
+	}
+
+	@Test
+	void laterLiteralDoesNotOverrideEarlierRegex() {
+		Map<Pattern, String> routes = new LinkedHashMap<>();
+		routes.put(Pattern.compile("ba[rz]"), "regex");
+		routes.put(Pattern.compile("bar"), "literal");
+		routes.put(Pattern.compile("qux"), "qux");
+		TopicRouter<String> router = new TopicRouter<>(routes, 0);
+		assertThat(router.route("bar")).isEqualTo("regex");
+		assertThat(router.route("qux")).isEqualTo("qux");
+		assertThat(router.route("quxx")).isNull();
+		assertThat(router.getCachedTopicCount()).isEqualTo(0);
+		assertThat(router.getCacheMisses()).isEqualTo(3);
+	}
+
+	@Test
+	void boundedCache() {
+		Map<Pattern, String> routes = new LinkedHashMap<>();
+		routes.put(Pattern.compile("a.*"), "a");
+		TopicRouter<String> router = new TopicRouter<>(routes, 2);
+		assertThat(router.getCacheHitRate()).isEqualTo(0);
+		assertThat(router.route("a1")).isEqualTo("a");
+		assertThat(router.route("b1")).isNull();
+		assertThat(router.route("a1")).isEqualTo("a");
+		assertThat(router.route("b1")).isNull();
+		assertThat(router.getCacheHits()).isEqualTo(2);
+		assertThat(router.getCacheMisses()).isEqualTo(2);
+		assertThat(router.getCacheHitRate()).isEqualTo(0.5);
+		router.route("a2");
+		assertThat(router.getCachedTopicCount()).isEqualTo(2);
+		router.route("b1");
+		router.route("a1");
+		assertThat(router.getCacheHits()).isEqualTo(3);
+		assertThat(router.getCacheMisses()).isEqualTo(4);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2022 the original author or authors.
+ * Copyright 2017-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,12 @@
 package org.springframework.kafka.support.converter;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,16 +41,19 @@ import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.apache.kafka.common.record.TimestampType;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.core.ResolvableType;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.kafka.support.KafkaUtils;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.GenericMessage;
 
 /**
  * @author Biju Kunjummen
  * @author Artem Bilan
  * @author Gary Russell
+ * @author agent
  *
  * @since 1.3
  */
@@ -100,6 +108,36 @@ public class BatchMessageConverterTests {
 				.containsExactly("value1", "value2", "value3");
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	void lazyConversion() {
+		RecordMessageConverter recordConverter = mock(RecordMessageConverter.class);
+		given(recordConverter.toMessage(any(), any(), any(), any())).willAnswer(inv -> {
+			ConsumerRecord<?, ?> record = inv.getArgument(0);
+			if ("value2".equals(record.value())) {
+				throw new ConversionException("test", record, null);
+			}
+			return new GenericMessage<>(((String) record.value()).toUpperCase());
+		});
+		BatchMessagingMessageConverter batchMessageConverter = new BatchMessagingMessageConverter(recordConverter);
+		batchMessageConverter.setLazyConversion(true);
+		Message<?> message = batchMessageConverter.toMessage(recordList(), null, null,
+				ResolvableType.forClassWithGenerics(List.class, String.class).getType());
+		verify(recordConverter, never()).toMessage(any(), any(), any(), any());
+		List<Object> payload = (List<Object>) message.getPayload();
+		assertThat(payload).hasSize(3);
+		assertThat(payload.get(2)).isEqualTo("VALUE3");
+		verify(recordConverter).toMessage(any(), any(), any(), any());
+		List<ConversionException> failures = message.getHeaders().get(KafkaHeaders.CONVERSION_FAILURES, List.class);
+		assertThat(failures.get(1)).isInstanceOf(ConversionException.class);
+		assertThat(payload.get(1)).isNull();
+		assertThat(failures.get(2)).isNull();
+		assertThat(payload.get(2)).isEqualTo("VALUE3");
+		verify(recordConverter, times(2)).toMessage(any(), any(), any(), any());
+		assertThat(payload).containsExactly("VALUE1", null, "VALUE3");
+		verify(recordConverter, times(3)).toMessage(any(), any(), any(), any());
+	}
+
 	private MessageHeaders testGuts(BatchMessageConverter batchMessageConverter) {
 		List<ConsumerRecord<?, ?>> consumerRecords = recordList();
 
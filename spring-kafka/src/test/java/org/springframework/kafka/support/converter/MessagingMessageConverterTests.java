@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -30,6 +31,8 @@ import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.kafka.support.DefaultKafkaHeaderMapper;
+import org.springframework.kafka.support.KafkaHeaderMapper;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
@@ -43,6 +46,7 @@ import org.springframework.util.MimeType;
 /**
  * @author Gary Russell
  * @author Artem Bilan
+ * @author agent
  *
  * @since 2.1.13
  *
@@ -73,6 +77,45 @@ public class MessagingMessageConverterTests {
 		assertThat(message.getHeaders().get(KafkaHeaders.RAW_DATA)).isNull();
 	}
 
+	@Test
+	void lazyHeaderMapping() {
+		DefaultKafkaHeaderMapper mapper = new DefaultKafkaHeaderMapper();
+		Headers recordHeaders = new RecordHeaders();
+		mapper.fromHeaders(new MessageHeaders(Map.of("foo", "bar", "num", 42)), recordHeaders);
+		recordHeaders.add(KafkaHeaders.RECEIVED_TOPIC, "baz".getBytes());
+		AtomicInteger mapped = new AtomicInteger();
+		MessagingMessageConverter converter = new MessagingMessageConverter();
+		converter.setHeaderMapper(new KafkaHeaderMapper() {
+
+			@Override
+			public void fromHeaders(MessageHeaders headers, Headers target) {
+				mapper.fromHeaders(headers, target);
+			}
+
+			@Override
+			public void toHeaders(Headers source, Map<String, Object> target) {
+				mapped.incrementAndGet();
+				mapper.toHeaders(source, target);
+			}
+
+		});
+		converter.setLazyHeaderMapping(true);
+		ConsumerRecord<String, String> record = new ConsumerRecord<>("foo", 1, 42, -1L, null, 0, 0, "bar", "baz",
+				recordHeaders, Optional.empty());
+		MessageHeaders headers = converter.toMessage(record, null, null, null).getHeaders();
+		assertThat(headers.get(KafkaHeaders.RECEIVED_TOPIC)).isEqualTo("foo");
+		assertThat(headers.get("missing")).isNull();
+		assertThat(mapped.get()).isEqualTo(0);
+		assertThat(headers.get("num", Integer.class)).isEqualTo(42);
+		assertThat(headers.get("num")).isEqualTo(42);
+		assertThat(mapped.get()).isEqualTo(1);
+		assertThat(headers.keySet()).contains("foo", "num")
+				.doesNotContain(DefaultKafkaHeaderMapper.JSON_TYPES);
+		assertThat(headers.get("foo")).isEqualTo("bar");
+		assertThat(headers.get(KafkaHeaders.RECEIVED_TOPIC)).isEqualTo("foo");
+		assertThat(mapped.get()).isEqualTo(2);
+	}
+
 	@Test
 	void dontMapNullKey() {
 		MessagingMessageConverter converter = new MessagingMessageConverter();
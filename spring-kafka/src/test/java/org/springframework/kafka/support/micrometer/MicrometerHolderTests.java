@@ -25,6 +25,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 
@@ -43,6 +44,7 @@ import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * @author Vasyl Sarzhynskyi
+ * @author agent
  */
 public class MicrometerHolderTests {
 
@@ -74,6 +76,34 @@ public class MicrometerHolderTests {
 		verifyNoMoreInteractions(ctx, sample);
 	}
 
+	@Test
+	void recordTimersCachedWithDistribution() {
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ApplicationContext ctx = mock(ApplicationContext.class);
+		@SuppressWarnings("unchecked")
+		ObjectProvider<MeterRegistry> beanProvider = mock(ObjectProvider.class);
+		given(ctx.getBeanProvider(MeterRegistry.class)).willReturn(beanProvider);
+		given(beanProvider.getIfUnique()).willReturn(meterRegistry);
+		MicrometerHolder micrometerHolder = new MicrometerHolder(ctx, "holderName", "timerName", "timerDesc",
+				r -> r == null ? Collections.emptyMap() : Map.of("topic", (String) r), new double[] { 0.99 },
+				new Duration[] { Duration.ofMillis(10) }, false);
+		micrometerHolder.success(micrometerHolder.start(), "foo");
+		micrometerHolder.success(micrometerHolder.start(), "foo");
+		micrometerHolder.success(micrometerHolder.start(), "bar");
+		micrometerHolder.failure(micrometerHolder.start(), "RuntimeException", "foo");
+		Map<?, ?> recordMeters = (Map<?, ?>) ReflectionTestUtils.getField(micrometerHolder, "recordMeters");
+		assertThat(recordMeters).hasSize(3);
+		Timer timer = meterRegistry.get("timerName").tag("topic", "foo").tag("result", "success").timer();
+		assertThat(timer.count()).isEqualTo(2);
+		assertThat(timer.takeSnapshot().percentileValues()).hasSize(1);
+		assertThat(timer.takeSnapshot().histogramCounts()).hasSize(1);
+		Timer other = (Timer) micrometerHolder.timer("otherTimer", "otherDesc");
+		assertThat(other.takeSnapshot().percentileValues()).hasSize(1);
+		micrometerHolder.destroy();
+		assertThat(meterRegistry.find("timerName").timers()).isEmpty();
+		assertThat(meterRegistry.find("otherTimer").timers()).isEmpty();
+	}
+
 	@Test
 	void multiReg() {
 		assertThatIllegalStateException().isThrownBy(() -> new MicrometerHolder(
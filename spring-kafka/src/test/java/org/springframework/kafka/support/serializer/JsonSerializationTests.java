@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2021 the original author or authors.
+ * Copyright 2016-2023 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,6 +62,7 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
  * @author Torsten Schleede
  * @author Gary Russell
  * @author Ivan Ponomarev
+ * @author agent
  */
 public class JsonSerializationTests {
 
@@ -159,6 +160,37 @@ public class JsonSerializationTests {
 				.withMessageContaining("not in the trusted packages");
 	}
 
+	@Test
+	void typeIdCache() {
+		DefaultJackson2JavaTypeMapper mapper = new DefaultJackson2JavaTypeMapper();
+		mapper.setTypePrecedence(TypePrecedence.TYPE_ID);
+		mapper.addTrustedPackages(DummyEntity.class.getPackage().getName());
+		JsonDeserializer<Object> deser = new JsonDeserializer<>();
+		deser.setTypeMapper(mapper);
+		byte[] data = jsonWriter.serialize(topic, entity);
+		for (int i = 0; i < 3; i++) {
+			Headers headers = new RecordHeaders();
+			headers.add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, DummyEntity.class.getName().getBytes());
+			assertThat(deser.deserialize(topic, headers, data)).isEqualTo(entity);
+		}
+		assertThat(mapper.getTypeCacheMisses()).isEqualTo(1);
+		assertThat(mapper.getTypeCacheHits()).isEqualTo(2);
+		for (int i = 0; i < 2; i++) {
+			Headers headers = new RecordHeaders();
+			headers.add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, "com.malware.DummyEntity".getBytes());
+			assertThatIllegalArgumentException()
+					.isThrownBy(() -> deser.deserialize(topic, headers, data))
+					.withMessageContaining("not in the trusted packages");
+		}
+		assertThat(mapper.getTypeCacheMisses()).isEqualTo(3);
+		mapper.setTypeCacheSize(0);
+		Headers headers = new RecordHeaders();
+		headers.add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, DummyEntity.class.getName().getBytes());
+		assertThat(deser.deserialize(topic, headers, data)).isEqualTo(entity);
+		assertThat(mapper.getTypeCacheHits()).isEqualTo(2);
+		deser.close();
+	}
+
 	@Test
 	void testSerializedStringNullEqualsNull() {
 		assertThat(stringWriter.serialize(topic, null)).isEqualTo(null);
@@ -434,6 +466,31 @@ public class JsonSerializationTests {
 		assertThatIllegalStateException().isThrownBy(() -> ser.configure(configs2, false));
 	}
 
+	@Test
+	void reusedBuffers() {
+		JsonSerializer<Object> plain = new JsonSerializer<>();
+		JsonSerializer<Object> reusing = new JsonSerializer<>();
+		reusing.configure(Map.of(JsonSerializer.MAX_RETAINED_BUFFER_SIZE, "65536"), false);
+		ThreadLocal<?> buffers = KafkaTestUtils.getPropertyValue(reusing, "buffers", ThreadLocal.class);
+		Map<String, String> payload = Map.of("foo", "x".repeat(40_000));
+		byte[] expected = plain.serialize(topic, payload);
+		assertThat(reusing.serialize(topic, payload)).isEqualTo(expected);
+		Object buffer = buffers.get();
+		assertThat(reusing.serialize(topic, payload)).isEqualTo(expected);
+		assertThat(buffers.get()).isSameAs(buffer);
+		Map<String, String> oversize = Map.of("foo", "y".repeat(100_000));
+		assertThat(reusing.serialize(topic, oversize)).isEqualTo(plain.serialize(topic, oversize));
+		assertThat(buffers.get()).isNotSameAs(buffer);
+		assertThat(reusing.serialize(topic, payload)).isEqualTo(expected);
+		buffer = buffers.get();
+		assertThat(reusing.copyWithType(Object.class).serialize(topic, payload)).isEqualTo(expected);
+		plain.close();
+		reusing.close();
+		assertThat(reusing.serialize(topic, payload)).isEqualTo(expected);
+		assertThat(KafkaTestUtils.getPropertyValue(reusing, "buffers")).isSameAs(buffers);
+		assertThat(buffers.get()).isSameAs(buffer);
+	}
+
 	public static JavaType fooBarJavaType(byte[] data, Headers headers) {
 		if (data[0] == '{' && data[1] == 'f') {
 			return TypeFactory.defaultInstance().constructType(Foo.class);